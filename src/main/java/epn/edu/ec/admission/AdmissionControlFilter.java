@@ -0,0 +1,206 @@
+package epn.edu.ec.admission;
+
+import static org.springframework.http.HttpHeaders.ACCEPT;
+import static org.springframework.http.HttpHeaders.RETRY_AFTER;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Admission control for the cake API, registered behind the Spring Security filter chain so every
+ * request is attributed to its authenticated principal.
+ * <p>
+ * Each principal gets a {@link TokenBucket}; a request finding it empty is answered
+ * {@code 429 Too Many Requests} with the seconds until the next permit in {@code Retry-After}.
+ * Admitted requests then take a slot of the {@link AdaptiveConcurrencyLimit} of their endpoint
+ * class, reads ({@code GET}/{@code HEAD}) or writes; when none is free the request is answered
+ * {@code 503 Service Unavailable} right away instead of waiting for a Tomcat thread or a database
+ * connection. Asynchronous requests of the reactive API hold their slot until they complete.
+ * Streams (the change feed, the NDJSON export and reactive NDJSON listings) last as long as the
+ * client keeps reading, so they are only rate limited: they take no slot and their duration is
+ * never taken as a latency sample.
+ */
+@Slf4j
+public class AdmissionControlFilter extends OncePerRequestFilter {
+    public static final String REJECTIONS_METRIC = "cakes.admission.rejections";
+    public static final String LIMIT_METRIC = "cakes.admission.limit";
+    public static final String IN_FLIGHT_METRIC = "cakes.admission.in-flight";
+    public static final String CLIENTS_METRIC = "cakes.admission.clients";
+
+    private static final Set<String> STREAM_PATHS = Set.of("/cakes/changes", "/cakes/export");
+
+    enum EndpointClass {
+        READ, WRITE;
+
+        String tag() {
+            return name().toLowerCase(Locale.ROOT);
+        }
+    }
+
+    private final double permitsPerSecond;
+    private final int burst;
+    private final Cache<String, TokenBucket> buckets;
+    private final Map<EndpointClass, AdaptiveConcurrencyLimit> limits;
+    private final long overloadedRetryAfterSeconds;
+    private final Map<EndpointClass, Counter> rateLimited;
+    private final Map<EndpointClass, Counter> overloaded;
+
+    public AdmissionControlFilter(double permitsPerSecond, int burst, long maximumClients,
+                                  AdaptiveConcurrencyLimit readLimit, AdaptiveConcurrencyLimit writeLimit,
+                                  Duration overloadedRetryAfter, MeterRegistry meterRegistry) {
+        this.permitsPerSecond = permitsPerSecond;
+        this.burst = burst;
+        // a bucket idle for its refill time is full again, forgetting it changes nothing
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(maximumClients)
+                .expireAfterAccess(Duration.ofNanos(new TokenBucket(permitsPerSecond, burst, 0).refillNanos()))
+                .build();
+        this.limits = Map.of(EndpointClass.READ, readLimit, EndpointClass.WRITE, writeLimit);
+        this.overloadedRetryAfterSeconds = Math.max(1, overloadedRetryAfter.toSeconds());
+
+        this.rateLimited = Map.of(
+                EndpointClass.READ, rejections(meterRegistry, EndpointClass.READ, "rate-limited"),
+                EndpointClass.WRITE, rejections(meterRegistry, EndpointClass.WRITE, "rate-limited"));
+        this.overloaded = Map.of(
+                EndpointClass.READ, rejections(meterRegistry, EndpointClass.READ, "overloaded"),
+                EndpointClass.WRITE, rejections(meterRegistry, EndpointClass.WRITE, "overloaded"));
+        limits.forEach((endpointClass, limit) -> {
+            Gauge.builder(LIMIT_METRIC, limit, AdaptiveConcurrencyLimit::getLimit)
+                    .tag("endpoint", endpointClass.tag())
+                    .register(meterRegistry);
+            Gauge.builder(IN_FLIGHT_METRIC, limit, AdaptiveConcurrencyLimit::getInFlight)
+                    .tag("endpoint", endpointClass.tag())
+                    .register(meterRegistry);
+        });
+        Gauge.builder(CLIENTS_METRIC, buckets, Cache::estimatedSize).register(meterRegistry);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        EndpointClass endpointClass = endpointClass(request);
+        String client = client(request);
+
+        long now = System.nanoTime();
+        long waitNanos = buckets.get(client, key -> new TokenBucket(permitsPerSecond, burst, now)).tryAcquire(now);
+        if (waitNanos > 0) {
+            log.debug("rate limited {} request of {}", endpointClass.tag(), client);
+            rateLimited.get(endpointClass).increment();
+            reject(response, HttpStatus.TOO_MANY_REQUESTS, (long) Math.ceil(waitNanos / 1e9));
+            return;
+        }
+
+        if (isStream(request)) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        AdaptiveConcurrencyLimit limit = limits.get(endpointClass);
+        if (!limit.tryAcquire()) {
+            log.debug("shed {} request of {}, limit {}", endpointClass.tag(), client, limit.getLimit());
+            overloaded.get(endpointClass).increment();
+            reject(response, HttpStatus.SERVICE_UNAVAILABLE, overloadedRetryAfterSeconds);
+            return;
+        }
+
+        long start = System.nanoTime();
+        boolean async = false;
+        try {
+            chain.doFilter(request, response);
+            if (request.isAsyncStarted()) {
+                request.getAsyncContext().addListener(new ReleaseOnComplete(limit, start));
+                async = true;
+            }
+        } finally {
+            if (!async) {
+                limit.release(System.nanoTime() - start);
+            }
+        }
+    }
+
+    private static EndpointClass endpointClass(HttpServletRequest request) {
+        String method = request.getMethod();
+        return HttpMethod.GET.matches(method) || HttpMethod.HEAD.matches(method)
+                ? EndpointClass.READ
+                : EndpointClass.WRITE;
+    }
+
+    private static String client(HttpServletRequest request) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.isAuthenticated()
+                && !(authentication instanceof AnonymousAuthenticationToken)) {
+            return "user:" + authentication.getName();
+        }
+        return "address:" + request.getRemoteAddr();
+    }
+
+    private static boolean isStream(HttpServletRequest request) {
+        if (STREAM_PATHS.contains(path(request))) {
+            return true;
+        }
+        String accept = request.getHeader(ACCEPT);
+        return accept != null && accept.contains(MediaType.APPLICATION_NDJSON_VALUE);
+    }
+
+    private static String path(HttpServletRequest request) {
+        return request.getRequestURI().substring(request.getContextPath().length());
+    }
+
+    private static void reject(HttpServletResponse response, HttpStatus status, long retryAfterSeconds) {
+        response.setStatus(status.value());
+        response.setHeader(RETRY_AFTER, String.valueOf(retryAfterSeconds));
+    }
+
+    private static Counter rejections(MeterRegistry meterRegistry, EndpointClass endpointClass, String reason) {
+        return Counter.builder(REJECTIONS_METRIC)
+                .tag("endpoint", endpointClass.tag())
+                .tag("reason", reason)
+                .register(meterRegistry);
+    }
+
+    private record ReleaseOnComplete(AdaptiveConcurrencyLimit limit, long start) implements AsyncListener {
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            // also called after a timeout or an error
+            limit.release(System.nanoTime() - start);
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package epn.edu.ec.admission;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock-free token bucket in its GCRA form: instead of a token count it keeps the theoretical
+ * arrival time of the next request, so a decision is one read and one compare-and-set. A bucket
+ * refills {@code permitsPerSecond} and admits bursts of up to {@code burst} requests.
+ */
+public class TokenBucket {
+    private final long emissionIntervalNanos;
+    private final long burstToleranceNanos;
+    // nanoTime of the theoretical arrival of the next request when it arrives at the sustained rate
+    private final AtomicLong theoreticalArrival;
+
+    public TokenBucket(double permitsPerSecond, int burst, long nowNanos) {
+        if (permitsPerSecond <= 0 || burst < 1) {
+            throw new IllegalArgumentException("rate and burst must be positive");
+        }
+        this.emissionIntervalNanos = Math.max(1, (long) (1_000_000_000L / permitsPerSecond));
+        this.burstToleranceNanos = emissionIntervalNanos * (burst - 1);
+        this.theoreticalArrival = new AtomicLong(nowNanos);
+    }
+
+    /**
+     * Takes a permit.
+     *
+     * @return 0 when the request is admitted, otherwise how many nanoseconds until it would be
+     */
+    public long tryAcquire(long nowNanos) {
+        while (true) {
+            long arrival = theoreticalArrival.get();
+            // differences only, nanoTime may overflow
+            long ahead = arrival - nowNanos;
+            if (ahead > burstToleranceNanos) {
+                return ahead - burstToleranceNanos;
+            }
+            long next = (ahead > 0 ? arrival : nowNanos) + emissionIntervalNanos;
+            if (theoreticalArrival.compareAndSet(arrival, next)) {
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * How long an unused bucket takes to fill up again; an idle bucket older than this is
+     * indistinguishable from a new one.
+     */
+    public long refillNanos() {
+        return burstToleranceNanos + emissionIntervalNanos;
+    }
+}
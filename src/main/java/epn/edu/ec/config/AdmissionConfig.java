@@ -0,0 +1,49 @@
+package epn.edu.ec.config;
+
+import java.time.Duration;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.security.SecurityProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import epn.edu.ec.admission.AdaptiveConcurrencyLimit;
+import epn.edu.ec.admission.AdmissionControlFilter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+@Configuration
+@ConditionalOnProperty(name = "cakes.admission.enabled", havingValue = "true")
+public class AdmissionConfig {
+
+    /**
+     * Runs right after the Spring Security filter chain, so requests are already authenticated and
+     * unauthenticated ones never consume a client's permits.
+     */
+    @Bean
+    public FilterRegistrationBean<AdmissionControlFilter> admissionControlFilter(
+            MeterRegistry meterRegistry,
+            @Value("${cakes.admission.rate:100}") double permitsPerSecond,
+            @Value("${cakes.admission.burst:200}") int burst,
+            @Value("${cakes.admission.maximum-clients:10000}") long maximumClients,
+            @Value("${cakes.admission.min-limit:4}") int minLimit,
+            @Value("${cakes.admission.read.initial-limit:64}") int readInitialLimit,
+            @Value("${cakes.admission.read.max-limit:256}") int readMaxLimit,
+            @Value("${cakes.admission.read.latency-target:PT0.25S}") Duration readLatencyTarget,
+            @Value("${cakes.admission.write.initial-limit:16}") int writeInitialLimit,
+            @Value("${cakes.admission.write.max-limit:64}") int writeMaxLimit,
+            @Value("${cakes.admission.write.latency-target:PT0.5S}") Duration writeLatencyTarget,
+            @Value("${cakes.admission.retry-after:PT1S}") Duration overloadedRetryAfter
+    ) {
+        AdmissionControlFilter filter = new AdmissionControlFilter(permitsPerSecond, burst, maximumClients,
+                new AdaptiveConcurrencyLimit(readInitialLimit, minLimit, readMaxLimit, readLatencyTarget),
+                new AdaptiveConcurrencyLimit(writeInitialLimit, minLimit, writeMaxLimit, writeLatencyTarget),
+                overloadedRetryAfter, meterRegistry);
+
+        FilterRegistrationBean<AdmissionControlFilter> registration = new FilterRegistrationBean<>(filter);
+        registration.addUrlPatterns("/cakes", "/cakes/*", "/reactive/cakes", "/reactive/cakes/*");
+        registration.setOrder(SecurityProperties.DEFAULT_FILTER_ORDER + 1);
+        return registration;
+    }
+}
@@ -0,0 +1,20 @@
+package epn.edu.ec.config;
+
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.transaction.annotation.EnableTransactionManagement;
+
+/**
+ * The caching advice wraps the transactional one, so {@code @CachePut} and {@code @CacheEvict}
+ * apply once the transaction has committed, and not at all when it rolls back. With equal orders
+ * either could run first, and a cake could be cached that was never committed. Both keep the
+ * class-based proxies Spring Boot configures by default.
+ */
+@Configuration
+@EnableCaching(proxyTargetClass = true, order = CacheConfig.CACHE_ADVICE_ORDER)
+@EnableTransactionManagement(proxyTargetClass = true, order = CacheConfig.TRANSACTION_ADVICE_ORDER)
+public class CacheConfig {
+    public static final int TRANSACTION_ADVICE_ORDER = Ordered.LOWEST_PRECEDENCE;
+    public static final int CACHE_ADVICE_ORDER = TRANSACTION_ADVICE_ORDER - 1;
+}
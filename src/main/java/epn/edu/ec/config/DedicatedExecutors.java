@@ -0,0 +1,40 @@
+package epn.edu.ec.config;
+
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+/**
+ * Thread pools owned by a single component, apart from the shared {@code applicationTaskExecutor},
+ * so work that blocks (writing to a slow client, waiting on a database) cannot take the threads of
+ * the rest of the application. They are not beans: an {@link java.util.concurrent.Executor} bean
+ * would replace the auto-configured {@code applicationTaskExecutor}. The owner shuts its pool down.
+ */
+public final class DedicatedExecutors {
+
+    private DedicatedExecutors() {
+    }
+
+    /**
+     * A pool of {@code threads} platform threads named after {@code name}; tasks wait in a queue of
+     * {@code queueCapacity} and are rejected with a
+     * {@link org.springframework.core.task.TaskRejectedException} beyond it.
+     */
+    public static ThreadPoolTaskExecutor threadPool(String name, int threads, int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setThreadNamePrefix(name + "-");
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setDaemon(true);
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * A new virtual thread named after {@code name} for every task, for work that mostly waits on
+     * one client: a blocked task holds no platform thread and delays no other task.
+     */
+    public static VirtualThreadTaskExecutor virtualThreads(String name) {
+        return new VirtualThreadTaskExecutor(name + "-");
+    }
+}
@@ -1,15 +1,23 @@
 package epn.edu.ec.config;
 
+import java.time.Duration;
+
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
 import org.springframework.security.config.annotation.authentication.builders.AuthenticationManagerBuilder;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
+import org.springframework.security.core.userdetails.User;
 import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.provisioning.InMemoryUserDetailsManager;
 import org.springframework.security.web.SecurityFilterChain;
 
+import epn.edu.ec.security.CachingAuthenticationProvider;
+import io.micrometer.core.instrument.MeterRegistry;
+
 @Configuration
 @EnableWebSecurity
 public class SecurityConfig {
@@ -23,7 +31,9 @@ public class SecurityConfig {
                         "/v3/api-docs",
                         "/v3/api-docs/**",
                         "/swagger-ui.html",
-                        "/swagger-ui/**").permitAll()
+                        "/swagger-ui/**",
+                        "/actuator/health",
+                        "/actuator/health/**").permitAll()
                 .anyRequest().authenticated()
                 .and()
                 .httpBasic();
@@ -34,13 +44,30 @@ public class SecurityConfig {
     public void configureGlobal(
             AuthenticationManagerBuilder auth,
             PasswordEncoder passwordEncoder,
+            MeterRegistry meterRegistry,
             @Value("${cakes.authentication.username}") String userName,
-            @Value("${cakes.authentication.password}") String password
+            @Value("${cakes.authentication.password}") String password,
+            @Value("${cakes.authentication.cache.enabled:true}") boolean cacheEnabled,
+            @Value("${cakes.authentication.cache.ttl:PT5M}") Duration cacheTtl,
+            @Value("${cakes.authentication.cache.maximum-size:1000}") long cacheMaximumSize
     ) throws Exception {
-        auth
-                .inMemoryAuthentication()
-                .withUser(userName)
-                .password(passwordEncoder.encode(password))
-                .authorities("ROLE_USER");
+        DaoAuthenticationProvider passwordAuthentication = new DaoAuthenticationProvider();
+        passwordAuthentication.setPasswordEncoder(passwordEncoder);
+        passwordAuthentication.setUserDetailsService(new InMemoryUserDetailsManager(
+                User.withUsername(userName)
+                        .password(passwordEncoder.encode(password))
+                        .authorities("ROLE_USER")
+                        .build()));
+
+        if (!cacheEnabled) {
+            auth.authenticationProvider(passwordAuthentication);
+            return;
+        }
+
+        // every request carries Basic credentials; only the first one in a TTL pays for BCrypt
+        CachingAuthenticationProvider cachingAuthentication =
+                new CachingAuthenticationProvider(passwordAuthentication, cacheTtl, cacheMaximumSize);
+        cachingAuthentication.bindTo(meterRegistry);
+        auth.authenticationProvider(cachingAuthentication);
     }
 }
@@ -1,11 +1,34 @@
 package epn.edu.ec.controller;
 
+import static epn.edu.ec.config.BinaryFormatsConfig.APPLICATION_SMILE_VALUE;
+import static org.springframework.http.HttpStatus.BAD_REQUEST;
+import static org.springframework.http.HttpStatus.CONFLICT;
 import static org.springframework.http.HttpStatus.CREATED;
+import static org.springframework.http.HttpStatus.GONE;
 import static org.springframework.http.HttpStatus.NOT_FOUND;
+import static org.springframework.http.HttpStatus.NOT_IMPLEMENTED;
 import static org.springframework.http.HttpStatus.NO_CONTENT;
+import static org.springframework.http.HttpStatus.PAYLOAD_TOO_LARGE;
+import static org.springframework.http.HttpStatus.PRECONDITION_FAILED;
+import static org.springframework.http.HttpStatus.SERVICE_UNAVAILABLE;
+import static org.springframework.http.HttpHeaders.ACCEPT;
+import static org.springframework.http.HttpHeaders.IF_MATCH;
+import static org.springframework.http.MediaType.APPLICATION_CBOR_VALUE;
+import static org.springframework.http.MediaType.APPLICATION_JSON;
 import static org.springframework.http.MediaType.APPLICATION_JSON_VALUE;
+import static org.springframework.http.MediaType.APPLICATION_NDJSON;
+import static org.springframework.http.MediaType.APPLICATION_NDJSON_VALUE;
+import static org.springframework.http.MediaType.TEXT_EVENT_STREAM_VALUE;
 
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.util.InvalidMimeTypeException;
+import org.springframework.util.MimeTypeUtils;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -13,15 +36,34 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import epn.edu.ec.exception.CakeBatchTooLargeException;
+import epn.edu.ec.exception.CakeCommitTimeoutException;
 import epn.edu.ec.exception.CakeNotFoundException;
+import epn.edu.ec.exception.CakeOperationNotSupportedException;
+import epn.edu.ec.exception.CakeTitleConflictException;
+import epn.edu.ec.exception.CakeVersionConflictException;
+import epn.edu.ec.exception.CatalogRevisionExpiredException;
+import epn.edu.ec.exception.InvalidCakeCursorException;
+import epn.edu.ec.exception.InvalidCakeQueryException;
+import epn.edu.ec.model.cake.CakeBatchRequest;
+import epn.edu.ec.model.cake.CakeBatchResponse;
+import epn.edu.ec.model.cake.CakeDeltaResponse;
+import epn.edu.ec.model.cake.CakeQuery;
 import epn.edu.ec.model.cake.CakeResponse;
 import epn.edu.ec.model.cake.CakesResponse;
 import epn.edu.ec.model.cake.CreateCakeRequest;
 import epn.edu.ec.model.cake.UpdateCakeRequest;
+import epn.edu.ec.service.CakeCatalogSnapshot;
+import epn.edu.ec.service.CakeChangeFeed;
+import epn.edu.ec.service.CakeGroupCommitter;
 import epn.edu.ec.service.CakeService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -29,44 +71,157 @@ import lombok.extern.slf4j.Slf4j;
 @RequiredArgsConstructor
 @Slf4j
 @RestController
-@RequestMapping("/cakes")
+@RequestMapping(path = "/cakes", produces = {APPLICATION_JSON_VALUE, APPLICATION_CBOR_VALUE, APPLICATION_SMILE_VALUE})
 public class CakeController {
         private final CakeService cakeService;
+        private final CakeCatalogSnapshot catalogSnapshot;
+        private final CakeChangeFeed changeFeed;
+        private final Optional<CakeGroupCommitter> groupCommitter;
+
+    /**
+     * The unpaginated catalog is served from the pre-serialized snapshot of the format named by
+     * {@code Accept}, with a strong ETag; a matching {@code If-None-Match} is answered with
+     * {@code 304 Not Modified} by Spring MVC.
+     * <p>
+     * {@code titleStartsWith}, {@code titleContains} and {@code descriptionContains} filter
+     * case-insensitively; {@code sort} takes comma-separated fields ({@code title}, {@code id},
+     * {@code description}), each prefixed with {@code -} for descending order.
+     */
+    @GetMapping
+    public ResponseEntity<?> getCakes(@RequestParam(required = false) Integer limit,
+                                      @RequestParam(required = false) String after,
+                                      @RequestParam(required = false) String titleStartsWith,
+                                      @RequestParam(required = false) String titleContains,
+                                      @RequestParam(required = false) String descriptionContains,
+                                      @RequestParam(required = false) List<String> sort,
+                                      @RequestHeader(value = ACCEPT, required = false) String accept) {
+        CakeQuery query = CakeQuery.builder()
+                .titleStartsWith(titleStartsWith)
+                .titleContains(titleContains)
+                .descriptionContains(descriptionContains)
+                .sort(CakeQuery.parseSort(sort))
+                .build();
+        if (query.isFiltered() || !query.getSort().isEmpty()) {
+            log.info("finding cakes {}, limit {}, after {}", query, limit, after);
+
+            return ResponseEntity.ok(cakeService.findCakes(query,
+                    limit == null ? CakeService.DEFAULT_PAGE_SIZE : limit, after));
+        }
+
+        if (limit == null && after == null) {
+            log.info("getting all cakes");
+
+            CakeCatalogSnapshot.Snapshot snapshot = catalogSnapshot.current(snapshotFormat(accept));
+            return ResponseEntity.ok()
+                    .eTag(snapshot.getEtag())
+                    .varyBy(ACCEPT)
+                    .contentType(snapshot.getContentType())
+                    .body(snapshot.getBody());
+        }
+
+        log.info("getting cakes page, limit {}, after {}", limit, after);
+
+        return ResponseEntity.ok(cakeService.getCakes(limit == null ? CakeService.DEFAULT_PAGE_SIZE : limit, after));
+    }
+
+    @GetMapping(path = "/export", produces = APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportCakes() {
+        log.info("exporting all cakes");
+        cakeService.checkExportAvailable();
+
+        return ResponseEntity.ok()
+                .contentType(APPLICATION_NDJSON)
+                .body(cakeService::exportCakes);
+    }
+
+    /**
+     * Server-Sent Events stream of committed creates, updates and deletes, for clients that would
+     * otherwise poll {@code GET /cakes}. See {@link CakeChangeFeed} for buffering and heartbeats.
+     */
+    @GetMapping(path = "/changes", produces = TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter getChanges() {
+        log.info("subscribing to cake changes");
 
-    @GetMapping(produces = APPLICATION_JSON_VALUE)
-    public CakesResponse getCakes() {
-        log.info("getting all cakes");
+        return changeFeed.subscribe();
+    }
+
+    /**
+     * Changes since catalog revision {@code since} (0 for everything), with the revision to ask
+     * from next time. {@code 410 Gone} when the delta can no longer be computed; the client then
+     * starts over from 0.
+     */
+    @GetMapping(path = "/delta")
+    public CakeDeltaResponse getDelta(@RequestParam(defaultValue = "0") long since) {
+        log.info("getting cake changes since revision {}", since);
+
+        return cakeService.getDelta(since);
+    }
+
+    @GetMapping(path = "/search")
+    public CakesResponse searchCakes(@RequestParam("q") String query,
+                                     @RequestParam(required = false) Integer limit) {
+        log.info("searching cakes for '{}'", query);
+
+        return cakeService.searchCakes(query, limit == null ? CakeService.DEFAULT_SEARCH_LIMIT : limit);
+    }
+
+    @GetMapping(path = "/by-title/{title}")
+    public ResponseEntity<CakeResponse> getCakeByTitle(@PathVariable String title) {
+        log.info("getting cake with title {}", title);
 
-        return cakeService.getCakes();
+        return ResponseEntity.ok(cakeService.getCakeByTitle(title));
     }
 
-    @GetMapping(path = "/{id}", produces = APPLICATION_JSON_VALUE)
+    /**
+     * The cake version is sent as {@code ETag}; pass it back in {@code If-Match} on {@code PUT} to
+     * update only that version.
+     */
+    @GetMapping(path = "/{id}")
     public ResponseEntity<CakeResponse> getCakeById(@PathVariable long id) {
         log.info("getting cake with id {}", id);
 
-        return ResponseEntity.ok(cakeService.getCakeById(id));
+        CakeResponse cake = cakeService.getCakeById(id);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (cake.getVersion() != null) {
+            response.eTag(String.valueOf(cake.getVersion()));
+        }
+        return response.body(cake);
     }
 
-    @PostMapping(consumes = APPLICATION_JSON_VALUE, produces = APPLICATION_JSON_VALUE)
+    @PostMapping(consumes = {APPLICATION_JSON_VALUE, APPLICATION_CBOR_VALUE, APPLICATION_SMILE_VALUE})
     @ResponseStatus(CREATED)
     public CakeResponse createCake(@RequestBody CreateCakeRequest createCakeRequest) {
         log.info("creating cake {}", createCakeRequest);
 
-        CakeResponse cake = cakeService.createCake(createCakeRequest);
+        CakeResponse cake = groupCommitter.isPresent()
+                ? groupCommitter.get().createCake(createCakeRequest)
+                : cakeService.createCake(createCakeRequest);
 
         log.info("cake created, cake id {}", cake.getId());
 
         return cake;
     }
 
-    @PutMapping(path = "/{id}", consumes = APPLICATION_JSON_VALUE)
-    public ResponseEntity<Void> updateCake(@PathVariable long id, @RequestBody UpdateCakeRequest updateCakeRequest) {
+    @PostMapping(path = "/batch", consumes = {APPLICATION_JSON_VALUE, APPLICATION_CBOR_VALUE, APPLICATION_SMILE_VALUE})
+    public CakeBatchResponse applyBatch(@RequestBody CakeBatchRequest batchRequest) {
+        log.info("applying cake batch of {} operations",
+                batchRequest.getOperations() == null ? 0 : batchRequest.getOperations().size());
+
+        CakeBatchResponse batchResponse = cakeService.applyBatch(batchRequest);
+
+        log.info("cake batch applied");
+        return batchResponse;
+    }
+
+    @PutMapping(path = "/{id}", consumes = {APPLICATION_JSON_VALUE, APPLICATION_CBOR_VALUE, APPLICATION_SMILE_VALUE})
+    public ResponseEntity<Void> updateCake(@PathVariable long id, @RequestBody UpdateCakeRequest updateCakeRequest,
+                                           @RequestHeader(value = IF_MATCH, required = false) String ifMatch) {
         log.info("updating cake with id {}: {}", id, updateCakeRequest);
 
-        cakeService.updateCake(id, updateCakeRequest);
+        long version = cakeService.updateCake(id, updateCakeRequest, expectedVersion(ifMatch));
 
         log.info("cake updated, cake id {}", id);
-        return ResponseEntity.status(NO_CONTENT).build();
+        return ResponseEntity.status(NO_CONTENT).eTag(String.valueOf(version)).build();
     }
 
     @DeleteMapping(path = "/{id}")
@@ -79,9 +234,100 @@ public class CakeController {
         return ResponseEntity.status(NO_CONTENT).build();
     }
 
+    /**
+     * The snapshot format for an {@code Accept} header: the first of {@link CakeCatalogSnapshot#FORMATS}
+     * matching the most specific, highest-quality accepted type. JSON when there is no header or it
+     * only holds wildcards.
+     */
+    private static MediaType snapshotFormat(String accept) {
+        List<MediaType> accepted;
+        try {
+            accepted = MediaType.parseMediaTypes(accept);
+            MimeTypeUtils.sortBySpecificity(accepted);
+        } catch (InvalidMediaTypeException | InvalidMimeTypeException e) {
+            return APPLICATION_JSON;
+        }
+        for (MediaType acceptedType : accepted) {
+            for (MediaType format : CakeCatalogSnapshot.FORMATS) {
+                if (acceptedType.isCompatibleWith(format)) {
+                    return format;
+                }
+            }
+        }
+        return APPLICATION_JSON;
+    }
+
+    /**
+     * The version named by an {@code If-Match} header ({@code "3"} or {@code W/"3"}), or null when
+     * the header is absent or {@code *}. Anything else cannot match a version.
+     */
+    private static Long expectedVersion(String ifMatch) {
+        if (ifMatch == null || ifMatch.trim().equals("*")) {
+            return null;
+        }
+        String etag = ifMatch.trim();
+        if (etag.startsWith("W/")) {
+            etag = etag.substring(2);
+        }
+        if (etag.length() >= 2 && etag.startsWith("\"") && etag.endsWith("\"")) {
+            etag = etag.substring(1, etag.length() - 1);
+        }
+        try {
+            return Long.parseLong(etag);
+        } catch (NumberFormatException e) {
+            log.error("If-Match {} does not name a cake version", ifMatch);
+            throw new CakeVersionConflictException();
+        }
+    }
+
     @ExceptionHandler(CakeNotFoundException.class)
     @ResponseStatus(value = NOT_FOUND)
     private void cakeNotFoundException() {
     }
+
+    @ExceptionHandler(CakeBatchTooLargeException.class)
+    @ResponseStatus(value = PAYLOAD_TOO_LARGE)
+    private void cakeBatchTooLargeException() {
+    }
+
+    @ExceptionHandler(CakeOperationNotSupportedException.class)
+    @ResponseStatus(value = NOT_IMPLEMENTED)
+    private void cakeOperationNotSupportedException() {
+    }
+
+    @ExceptionHandler(CakeTitleConflictException.class)
+    @ResponseStatus(value = CONFLICT)
+    private void cakeTitleConflictException() {
+    }
+
+    @ExceptionHandler(CakeVersionConflictException.class)
+    @ResponseStatus(value = PRECONDITION_FAILED)
+    private void cakeVersionConflictException() {
+    }
+
+    @ExceptionHandler(CakeCommitTimeoutException.class)
+    @ResponseStatus(value = SERVICE_UNAVAILABLE)
+    private void cakeCommitTimeoutException() {
+    }
+
+    @ExceptionHandler(QueryTimeoutException.class)
+    @ResponseStatus(value = SERVICE_UNAVAILABLE)
+    private void queryTimeoutException() {
+    }
+
+    @ExceptionHandler(CatalogRevisionExpiredException.class)
+    @ResponseStatus(value = GONE)
+    private void catalogRevisionExpiredException() {
+    }
+
+    @ExceptionHandler(InvalidCakeCursorException.class)
+    @ResponseStatus(value = BAD_REQUEST)
+    private void invalidCakeCursorException() {
+    }
+
+    @ExceptionHandler(InvalidCakeQueryException.class)
+    @ResponseStatus(value = BAD_REQUEST)
+    private void invalidCakeQueryException() {
+    }
     
 }
@@ -0,0 +1,138 @@
+package epn.edu.ec.controller;
+
+import static epn.edu.ec.config.BinaryFormatsConfig.APPLICATION_SMILE_VALUE;
+import static org.springframework.http.HttpStatus.BAD_REQUEST;
+import static org.springframework.http.HttpStatus.CONFLICT;
+import static org.springframework.http.HttpStatus.CREATED;
+import static org.springframework.http.HttpStatus.NOT_FOUND;
+import static org.springframework.http.HttpStatus.NO_CONTENT;
+import static org.springframework.http.HttpStatus.SERVICE_UNAVAILABLE;
+import static org.springframework.http.MediaType.APPLICATION_CBOR_VALUE;
+import static org.springframework.http.MediaType.APPLICATION_JSON_VALUE;
+import static org.springframework.http.MediaType.APPLICATION_NDJSON_VALUE;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RestController;
+
+import epn.edu.ec.exception.CakeNotFoundException;
+import epn.edu.ec.exception.CakeTitleConflictException;
+import epn.edu.ec.exception.InvalidCakeCursorException;
+import epn.edu.ec.model.cake.CakeResponse;
+import epn.edu.ec.model.cake.CakesResponse;
+import epn.edu.ec.model.cake.CreateCakeRequest;
+import epn.edu.ec.model.cake.UpdateCakeRequest;
+import epn.edu.ec.service.CakeService;
+import epn.edu.ec.service.ReactiveCakeService;
+import io.r2dbc.spi.R2dbcTransientException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * The cake API of {@link CakeController} backed by R2DBC. Handlers return {@link Mono}/{@link Flux}
+ * and the request thread is released while the database works; {@code application/x-ndjson}
+ * listings are written one cake at a time as the client consumes them.
+ */
+@RequiredArgsConstructor
+@Slf4j
+@RestController
+@ConditionalOnExpression("'${cakes.store.type:jpa}' != 'sharded'")
+@RequestMapping(path = "/reactive/cakes", produces = {APPLICATION_JSON_VALUE, APPLICATION_CBOR_VALUE, APPLICATION_SMILE_VALUE})
+public class ReactiveCakeController {
+        private final ReactiveCakeService cakeService;
+
+    @GetMapping
+    public Mono<CakesResponse> getCakes(@RequestParam(required = false) Integer limit,
+                                        @RequestParam(required = false) String after) {
+        if (limit == null && after == null) {
+            log.info("getting all cakes, reactive");
+
+            return cakeService.getCakes().collectList().map(CakesResponse::new);
+        }
+
+        log.info("getting cakes page, reactive, limit {}, after {}", limit, after);
+
+        return cakeService.getCakes(limit == null ? CakeService.DEFAULT_PAGE_SIZE : limit, after);
+    }
+
+    @GetMapping(produces = APPLICATION_NDJSON_VALUE)
+    public Flux<CakeResponse> streamCakes() {
+        log.info("streaming all cakes, reactive");
+
+        return cakeService.getCakes();
+    }
+
+    @GetMapping(path = "/{id}")
+    public Mono<CakeResponse> getCakeById(@PathVariable long id) {
+        log.info("getting cake with id {}, reactive", id);
+
+        return cakeService.getCakeById(id);
+    }
+
+    @PostMapping(consumes = {APPLICATION_JSON_VALUE, APPLICATION_CBOR_VALUE, APPLICATION_SMILE_VALUE})
+    @ResponseStatus(CREATED)
+    public Mono<CakeResponse> createCake(@RequestBody CreateCakeRequest createCakeRequest) {
+        log.info("creating cake {}, reactive", createCakeRequest);
+
+        return cakeService.createCake(createCakeRequest)
+                .doOnNext(cake -> log.info("cake created, cake id {}", cake.getId()));
+    }
+
+    @PutMapping(path = "/{id}", consumes = {APPLICATION_JSON_VALUE, APPLICATION_CBOR_VALUE, APPLICATION_SMILE_VALUE})
+    public Mono<ResponseEntity<Void>> updateCake(@PathVariable long id, @RequestBody UpdateCakeRequest updateCakeRequest) {
+        log.info("updating cake with id {}, reactive: {}", id, updateCakeRequest);
+
+        return cakeService.updateCake(id, updateCakeRequest)
+                .then(Mono.fromSupplier(() -> {
+                    log.info("cake updated, cake id {}", id);
+                    return ResponseEntity.status(NO_CONTENT).<Void>build();
+                }));
+    }
+
+    @DeleteMapping(path = "/{id}")
+    public Mono<ResponseEntity<Void>> deleteCake(@PathVariable long id) {
+        log.info("deleting cake with id {}, reactive", id);
+
+        return cakeService.deleteCake(id)
+                .then(Mono.fromSupplier(() -> {
+                    log.info("cake deleted, cake id {}", id);
+                    return ResponseEntity.status(NO_CONTENT).<Void>build();
+                }));
+    }
+
+    @ExceptionHandler(CakeNotFoundException.class)
+    @ResponseStatus(value = NOT_FOUND)
+    private void cakeNotFoundException() {
+    }
+
+    @ExceptionHandler(CakeTitleConflictException.class)
+    @ResponseStatus(value = CONFLICT)
+    private void cakeTitleConflictException() {
+    }
+
+    @ExceptionHandler(InvalidCakeCursorException.class)
+    @ResponseStatus(value = BAD_REQUEST)
+    private void invalidCakeCursorException() {
+    }
+
+    /**
+     * No pooled connection became free within {@code cakes.reactive.pool.max-acquire-time}.
+     */
+    @ExceptionHandler({TransientDataAccessException.class, R2dbcTransientException.class})
+    @ResponseStatus(value = SERVICE_UNAVAILABLE)
+    private void connectionUnavailableException() {
+    }
+}
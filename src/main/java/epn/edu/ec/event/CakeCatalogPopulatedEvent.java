@@ -0,0 +1,11 @@
+package epn.edu.ec.event;
+
+import lombok.Data;
+
+/**
+ * Published once the cake database populator has finished loading the catalog.
+ */
+@Data
+public class CakeCatalogPopulatedEvent {
+    private final long populatedCakes;
+}
@@ -0,0 +1,26 @@
+package epn.edu.ec.event;
+
+import epn.edu.ec.model.cake.CakeResponse;
+import lombok.Data;
+
+/**
+ * Published by the service after a cake has been created, updated or deleted. Listeners that
+ * keep derived views of the catalog should use {@code @TransactionalEventListener} so they only
+ * see committed changes.
+ * <p>
+ * After-commit listeners of concurrent transactions may run in any order; the catalog revision
+ * of the change, taken under the revision row lock, tells which of two changes committed last.
+ */
+@Data
+public class CakeChangedEvent {
+    public enum Type {
+        CREATED, UPDATED, DELETED
+    }
+
+    private final Type type;
+    private final long cakeId;
+    /** state of the cake after the change, version included, {@code null} for deletions */
+    private final CakeResponse cake;
+    /** catalog revision of the change */
+    private final long revision;
+}
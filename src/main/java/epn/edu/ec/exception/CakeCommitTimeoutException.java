@@ -0,0 +1,4 @@
+package epn.edu.ec.exception;
+
+public class CakeCommitTimeoutException extends RuntimeException {
+}
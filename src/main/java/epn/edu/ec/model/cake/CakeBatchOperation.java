@@ -0,0 +1,22 @@
+package epn.edu.ec.model.cake;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class CakeBatchOperation {
+    public enum Type {
+        CREATE, UPDATE, DELETE
+    }
+
+    private Type type;
+    /** target of an update or delete, ignored for creates */
+    private Long id;
+    private String title;
+    private String description;
+}
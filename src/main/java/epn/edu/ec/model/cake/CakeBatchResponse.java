@@ -0,0 +1,15 @@
+package epn.edu.ec.model.cake;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CakeBatchResponse {
+
+    private List<CakeBatchResult> results;
+}
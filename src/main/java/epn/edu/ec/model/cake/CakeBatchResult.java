@@ -0,0 +1,20 @@
+package epn.edu.ec.model.cake;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CakeBatchResult {
+    public enum Status {
+        CREATED, UPDATED, DELETED, NOT_FOUND, CONFLICT, INVALID
+    }
+
+    /** position of the operation in the request */
+    private int index;
+    private CakeBatchOperation.Type type;
+    private Long id;
+    private Status status;
+}
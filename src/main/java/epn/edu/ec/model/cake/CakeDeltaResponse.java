@@ -0,0 +1,24 @@
+package epn.edu.ec.model.cake;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CakeDeltaResponse {
+
+    /**
+     * Catalog revision this delta brings the client to, to be passed back as {@code since}.
+     */
+    private long revision;
+
+    /** cakes created or updated since the requested revision, in their current state */
+    private List<CakeResponse> cakes;
+
+    /** ids of the cakes deleted since the requested revision */
+    private List<Long> deletedCakeIds;
+}
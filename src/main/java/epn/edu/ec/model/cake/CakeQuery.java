@@ -0,0 +1,186 @@
+package epn.edu.ec.model.cake;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Predicate;
+
+import epn.edu.ec.exception.InvalidCakeQueryException;
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * Filters and ordering of a {@code GET /cakes} listing. Title filters match the case-insensitive
+ * title key, the description filter the lower-cased description; blank filters are ignored. Cakes
+ * are ordered by the {@link #getSort() sort} keys, then by id, with the ordering of the database:
+ * strings compared by code unit and {@code NULL} before any value, after it when descending.
+ */
+@Data
+@Builder(toBuilder = true)
+public class CakeQuery {
+    private static final Comparator<String> NULLS_FIRST = Comparator.nullsFirst(Comparator.naturalOrder());
+    private static final Comparator<CakeResponse> TITLE_ID_ORDER = Comparator
+            .comparing(CakeResponse::getTitle, NULLS_FIRST)
+            .thenComparingLong(CakeResponse::getId);
+
+    public enum SortField {
+        TITLE("title"), ID("id"), DESCRIPTION("description");
+
+        private final String property;
+
+        SortField(String property) {
+            this.property = property;
+        }
+
+        /**
+         * Name of the sort key in requests, of the {@code Cake} property and of its column.
+         */
+        public String property() {
+            return property;
+        }
+    }
+
+    @Data
+    public static class Order {
+        private final SortField field;
+        private final boolean descending;
+    }
+
+    private static final List<Order> TITLE_ORDER = List.of(
+            new Order(SortField.TITLE, false), new Order(SortField.ID, false));
+
+    private String titleStartsWith;
+    private String titleContains;
+    private String descriptionContains;
+    @Builder.Default
+    private List<Order> sort = List.of();
+    /**
+     * Keyset position in {@code (title, id)} order, only used with that order.
+     */
+    private String afterTitle;
+    private Long afterId;
+
+    /**
+     * Parses sort keys such as {@code title} or {@code -id} (descending).
+     *
+     * @throws InvalidCakeQueryException for an unknown field
+     */
+    public static List<Order> parseSort(List<String> keys) {
+        if (keys == null) {
+            return List.of();
+        }
+        List<Order> orders = new ArrayList<>(keys.size());
+        for (String key : keys) {
+            boolean descending = key.startsWith("-");
+            String property = descending ? key.substring(1) : key;
+            SortField field = null;
+            for (SortField candidate : SortField.values()) {
+                if (candidate.property().equals(property)) {
+                    field = candidate;
+                }
+            }
+            if (field == null) {
+                throw new InvalidCakeQueryException();
+            }
+            orders.add(new Order(field, descending));
+        }
+        return orders;
+    }
+
+    public boolean isFiltered() {
+        return titleKeyPrefix() != null || titleKeyPart() != null || descriptionPart() != null;
+    }
+
+    /**
+     * The lower-cased title prefix; leading spaces are dropped, as from the title key.
+     */
+    public String titleKeyPrefix() {
+        return isBlank(titleStartsWith) ? null : titleStartsWith.stripLeading().toLowerCase(Locale.ROOT);
+    }
+
+    public String titleKeyPart() {
+        return isBlank(titleContains) ? null : titleContains.toLowerCase(Locale.ROOT);
+    }
+
+    public String descriptionPart() {
+        return isBlank(descriptionContains) ? null : descriptionContains.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * The sort keys without repeated fields, ending with the id when it is not among them;
+     * {@code (title, id)} without sort keys.
+     */
+    public List<Order> ordering() {
+        if (sort.isEmpty()) {
+            return TITLE_ORDER;
+        }
+        List<Order> ordering = new ArrayList<>(sort.size() + 1);
+        for (Order order : sort) {
+            if (ordering.stream().noneMatch(previous -> previous.getField() == order.getField())) {
+                ordering.add(order);
+            }
+        }
+        if (ordering.stream().noneMatch(order -> order.getField() == SortField.ID)) {
+            ordering.add(new Order(SortField.ID, false));
+        }
+        return ordering;
+    }
+
+    /**
+     * Whether cakes come in the {@code (title, id)} order of the unfiltered listing, which cursors
+     * can continue.
+     */
+    public boolean isTitleOrder() {
+        return ordering().equals(TITLE_ORDER);
+    }
+
+    /**
+     * The effective ordering as a comparator, for stores that sort or merge in memory.
+     */
+    public Comparator<CakeResponse> comparator() {
+        if (isTitleOrder()) {
+            return TITLE_ID_ORDER;
+        }
+        Comparator<CakeResponse> comparator = null;
+        for (Order order : ordering()) {
+            Comparator<CakeResponse> key = switch (order.getField()) {
+                case TITLE -> Comparator.comparing(CakeResponse::getTitle, NULLS_FIRST);
+                case ID -> Comparator.comparingLong(CakeResponse::getId);
+                case DESCRIPTION -> Comparator.comparing(CakeResponse::getDescription, NULLS_FIRST);
+            };
+            key = order.isDescending() ? key.reversed() : key;
+            comparator = comparator == null ? key : comparator.thenComparing(key);
+        }
+        return comparator;
+    }
+
+    /**
+     * The filters and the cursor position as a predicate, for stores that filter in memory.
+     */
+    public Predicate<CakeResponse> filter() {
+        String titleKeyPrefix = titleKeyPrefix();
+        String titleKeyPart = titleKeyPart();
+        String descriptionPart = descriptionPart();
+        CakeResponse after = afterId == null ? null : new CakeResponse(afterId, afterTitle, null);
+        return cake -> {
+            String titleKey = titleKey(cake.getTitle());
+            return (titleKeyPrefix == null || titleKey != null && titleKey.startsWith(titleKeyPrefix))
+                    && (titleKeyPart == null || titleKey != null && titleKey.contains(titleKeyPart))
+                    && (descriptionPart == null || cake.getDescription() != null
+                            && cake.getDescription().toLowerCase(Locale.ROOT).contains(descriptionPart))
+                    && (after == null || TITLE_ID_ORDER.compare(cake, after) > 0);
+        };
+    }
+
+    /**
+     * The title as stored in the title key column: stripped and lower-cased.
+     */
+    private static String titleKey(String title) {
+        return title == null ? null : title.strip().toLowerCase(Locale.ROOT);
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.isBlank();
+    }
+}
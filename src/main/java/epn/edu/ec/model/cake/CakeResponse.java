@@ -1,5 +1,7 @@
 package epn.edu.ec.model.cake;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -13,4 +15,14 @@ public class CakeResponse {
     private long id;
     private String title;
     private String description;
+    /**
+     * Optimistic lock version, sent back in {@code If-Match} to update only this version. Absent
+     * when the version is not known.
+     */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Long version;
+
+    public CakeResponse(long id, String title, String description) {
+        this(id, title, description, null);
+    }
 }
@@ -2,6 +2,8 @@ package epn.edu.ec.model.cake;
 
 import java.util.List;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -12,4 +14,15 @@ import lombok.NoArgsConstructor;
 public class CakesResponse {
     
     private List<CakeResponse> cakes;
+
+    /**
+     * Opaque keyset cursor of the last cake in this page, to be passed back as {@code after}.
+     * Absent on the last page and on unpaginated responses.
+     */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String nextCursor;
+
+    public CakesResponse(List<CakeResponse> cakes) {
+        this.cakes = cakes;
+    }
 }
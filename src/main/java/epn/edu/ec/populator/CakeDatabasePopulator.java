@@ -1,53 +1,310 @@
 package epn.edu.ec.populator;
 
-import java.net.URL;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashSet;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.context.event.ContextRefreshedEvent;
 import org.springframework.context.event.EventListener;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.core.task.TaskExecutor;
 import org.springframework.stereotype.Component;
 
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
-import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
-import epn.edu.ec.repository.CakeRepository;
+import epn.edu.ec.event.CakeCatalogPopulatedEvent;
+import epn.edu.ec.repository.CatalogMetadataRepository;
 import epn.edu.ec.repository.model.Cake;
+import epn.edu.ec.repository.model.CatalogMetadata;
+import epn.edu.ec.service.CatalogRevisionService;
+import epn.edu.ec.store.CakeStore;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.AllArgsConstructor;
 import lombok.Data;
-import lombok.NoArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
+/**
+ * Loads the initial catalog from {@code cakes.populator.url}, which may be an {@code http(s):},
+ * {@code file:} or {@code classpath:} location. The JSON array is parsed one cake at a time and
+ * inserted into the {@link CakeStore} in chunks of {@code cakes.populator.chunk-size}, so memory
+ * use does not depend on the size of the source. With {@code cakes.populator.async=true}
+ * population runs in the background and its progress is reported by
+ * {@link CakePopulatorHealthIndicator}.
+ * <p>
+ * After a successful run the source location and a digest of its content are stored as
+ * {@link CatalogMetadata}, and for a file source its size and modification time. When the database
+ * outlives the application (the {@code persistent} profile) and the source has not changed, the
+ * stored catalog is kept and population is skipped. A file whose size and modification time are
+ * the stored ones is taken as unchanged without being read; any other source is read and digested
+ * again.
+ * Otherwise the stored cakes are replaced by the source, including those created or edited through
+ * the API; a warning with their number is logged first.
+ */
 @Slf4j
 @Component
 public class CakeDatabasePopulator {
+    public enum State {
+        PENDING, RUNNING, COMPLETED, FAILED
+    }
+
+    static final String SOURCE_METADATA = "populator.source";
+    static final String CHECKSUM_METADATA = "populator.checksum";
+    static final String FILE_STAT_METADATA = "populator.file-stat";
+    static final String DURATION_METRIC = "cakes.populator.duration";
+    static final String CAKES_METRIC = "cakes.populator.cakes";
+
     private final String cakesUrl;
-    private final CakeRepository cakeRepository;
+    private final int chunkSize;
+    private final boolean async;
+    private final CakeStore cakeStore;
+    private final CatalogMetadataRepository catalogMetadataRepository;
+    private final ResourceLoader resourceLoader;
+    private final ObjectMapper objectMapper;
+    private final TaskExecutor taskExecutor;
+    private final ApplicationEventPublisher eventPublisher;
+    private final CatalogRevisionService revisionService;
+    private final MeterRegistry meterRegistry;
 
-    public CakeDatabasePopulator(@Value("${cakes.populator.url}") String cakesUrl, CakeRepository cakeRepository) {
+    private final AtomicBoolean started = new AtomicBoolean();
+    private final AtomicLong populatedCakes = new AtomicLong();
+    private final AtomicLong skippedCakes = new AtomicLong();
+    private volatile State state = State.PENDING;
+
+    public CakeDatabasePopulator(@Value("${cakes.populator.url}") String cakesUrl,
+                                 @Value("${cakes.populator.chunk-size:500}") int chunkSize,
+                                 @Value("${cakes.populator.async:false}") boolean async,
+                                 CakeStore cakeStore,
+                                 CatalogMetadataRepository catalogMetadataRepository,
+                                 ResourceLoader resourceLoader,
+                                 ObjectMapper objectMapper,
+                                 @Qualifier("applicationTaskExecutor") TaskExecutor taskExecutor,
+                                 ApplicationEventPublisher eventPublisher,
+                                 CatalogRevisionService revisionService,
+                                 MeterRegistry meterRegistry) {
         this.cakesUrl = cakesUrl;
-        this.cakeRepository = cakeRepository;
+        this.chunkSize = chunkSize;
+        this.async = async;
+        this.cakeStore = cakeStore;
+        this.catalogMetadataRepository = catalogMetadataRepository;
+        this.resourceLoader = resourceLoader;
+        this.objectMapper = objectMapper;
+        this.taskExecutor = taskExecutor;
+        this.eventPublisher = eventPublisher;
+        this.revisionService = revisionService;
+        this.meterRegistry = meterRegistry;
     }
 
     @EventListener(ContextRefreshedEvent.class)
     public void populateCakeDatabase() throws Exception {
-        log.info("populating cake database from {}", cakesUrl);
+        if (!started.compareAndSet(false, true)) {
+            return;
+        }
+
+        if (async) {
+            log.info("populating cake database from {} in the background", cakesUrl);
+            taskExecutor.execute(() -> {
+                try {
+                    populate();
+                } catch (Exception e) {
+                    log.error("cake database population from {} failed", cakesUrl, e);
+                }
+            });
+        } else {
+            populate();
+        }
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    public long getPopulatedCakes() {
+        return populatedCakes.get();
+    }
+
+    private void populate() throws IOException {
+        state = State.RUNNING;
+        long start = System.nanoTime();
+
+        try {
+            Resource resource = resourceLoader.getResource(cakesUrl);
+            if (isStoredCatalogCurrent(resource)) {
+                populatedCakes.set(cakeStore.count());
+                state = State.COMPLETED;
+                recordDuration("restored", start);
+                log.info("cake database restored with {} cakes from {} in {} ms, population skipped",
+                        populatedCakes.get(), cakesUrl, (System.nanoTime() - start) / 1_000_000);
+                eventPublisher.publishEvent(new CakeCatalogPopulatedEvent(populatedCakes.get()));
+                return;
+            }
+
+            log.info("populating cake database from {}", cakesUrl);
+            long storedCakes = cakeStore.count();
+            if (storedCakes > 0) {
+                log.warn("source {} is not the one the {} stored cakes were loaded from, replacing them "
+                        + "including changes made through the API", cakesUrl, storedCakes);
+            }
+            // the previous catalog and its marker go first, so an interrupted run is never taken as valid
+            catalogMetadataRepository.deleteAllById(List.of(SOURCE_METADATA, CHECKSUM_METADATA, FILE_STAT_METADATA));
+            cakeStore.deleteAll();
+            // a replaced catalog cannot be described as a delta, clients have to start over
+            long revision = revisionService.reset();
+
+            MessageDigest digest = newDigest();
+            try (InputStream inputStream = new DigestInputStream(resource.getInputStream(), digest);
+                 JsonParser parser = objectMapper.getFactory().createParser(inputStream)) {
+                if (parser.nextToken() != JsonToken.START_ARRAY) {
+                    throw new IOException("expected a JSON array of cakes at " + cakesUrl);
+                }
+
+                List<Cake> chunk = new ArrayList<>(chunkSize);
+                while (parser.nextToken() == JsonToken.START_OBJECT) {
+                    CakePopulatorResponse cake = objectMapper.readValue(parser, CakePopulatorResponse.class);
+                    chunk.add(Cake.builder()
+                            .title(cake.title)
+                            .description(cake.desc)
+                            .revision(revision)
+                            .build());
 
-        List<CakePopulatorResponse> cakesToPopulate = new ObjectMapper().readValue(new URL(cakesUrl), new TypeReference<>() {
-        });
+                    if (chunk.size() == chunkSize) {
+                        saveChunk(chunk);
+                        chunk = new ArrayList<>(chunkSize);
+                    }
+                }
+                saveChunk(chunk);
 
-        List<Cake> cakes = cakesToPopulate.stream()
-                .map(cake -> Cake.builder()
-                        .title(cake.title)
-                        .description(cake.desc)
-                        .build())
-                .collect(Collectors.toList());                
+                // the parser may stop before the end of the input; the digest has to cover all of it
+                inputStream.transferTo(OutputStream.nullOutputStream());
+            }
 
-        cakeRepository.saveAll(cakes);
+            List<CatalogMetadata> metadata = new ArrayList<>(List.of(
+                    new CatalogMetadata(SOURCE_METADATA, cakesUrl),
+                    new CatalogMetadata(CHECKSUM_METADATA, Base64.getEncoder().encodeToString(digest.digest()))));
+            fileStat(resource).ifPresent(fileStat -> metadata.add(new CatalogMetadata(FILE_STAT_METADATA, fileStat)));
+            catalogMetadataRepository.saveAll(metadata);
+        } catch (IOException | RuntimeException e) {
+            state = State.FAILED;
+            recordDuration("failed", start);
+            throw e;
+        }
+
+        state = State.COMPLETED;
+        recordDuration("populated", start);
+        log.info("cake database populated with {} cakes in {} ms, {} duplicate titles skipped",
+                populatedCakes.get(), (System.nanoTime() - start) / 1_000_000, skippedCakes.get());
+        eventPublisher.publishEvent(new CakeCatalogPopulatedEvent(populatedCakes.get()));
+    }
+
+    /**
+     * @param outcome {@code populated}, {@code restored} (population skipped) or {@code failed}
+     */
+    private void recordDuration(String outcome, long start) {
+        meterRegistry.timer(DURATION_METRIC, "outcome", outcome).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+
+    private boolean isStoredCatalogCurrent(Resource resource) throws IOException {
+        Optional<String> storedSource = catalogMetadataRepository.findById(SOURCE_METADATA).map(CatalogMetadata::getValue);
+        Optional<String> storedChecksum = catalogMetadataRepository.findById(CHECKSUM_METADATA).map(CatalogMetadata::getValue);
+        if (storedSource.isEmpty() || storedChecksum.isEmpty() || !storedSource.get().equals(cakesUrl)) {
+            return false;
+        }
+
+        Optional<String> fileStat = fileStat(resource);
+        if (fileStat.isPresent() && fileStat.equals(catalogMetadataRepository.findById(FILE_STAT_METADATA)
+                .map(CatalogMetadata::getValue))) {
+            log.debug("{} has the size and modification time it was loaded with", cakesUrl);
+            return true;
+        }
+
+        boolean unchanged;
+        try (InputStream inputStream = resource.getInputStream()) {
+            unchanged = storedChecksum.get().equals(checksum(inputStream));
+        }
+        // touched but not changed: the next start can skip reading it
+        if (unchanged && fileStat.isPresent()) {
+            catalogMetadataRepository.save(new CatalogMetadata(FILE_STAT_METADATA, fileStat.get()));
+        }
+        return unchanged;
+    }
+
+    /**
+     * Size and modification time of a file source, empty for other sources.
+     */
+    private static Optional<String> fileStat(Resource resource) throws IOException {
+        if (!resource.isFile()) {
+            return Optional.empty();
+        }
+        File file = resource.getFile();
+        return Optional.of(file.length() + "@" + file.lastModified());
+    }
+
+    static String checksum(InputStream inputStream) throws IOException {
+        MessageDigest digest = newDigest();
+        new DigestInputStream(inputStream, digest).transferTo(OutputStream.nullOutputStream());
+        return Base64.getEncoder().encodeToString(digest.digest());
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private void saveChunk(List<Cake> chunk) {
+        if (chunk.isEmpty()) {
+            return;
+        }
+
+        // titles are unique ignoring case; the first occurrence in the source wins
+        Set<String> titleKeys = new HashSet<>();
+        for (Cake cake : chunk) {
+            String titleKey = Cake.titleKey(cake.getTitle());
+            if (titleKey != null) {
+                titleKeys.add(titleKey);
+            }
+        }
+        Set<String> seenTitleKeys = titleKeys.isEmpty()
+                ? new HashSet<>()
+                : new HashSet<>(cakeStore.findExistingTitleKeys(titleKeys));
+        List<Cake> uniqueCakes = new ArrayList<>(chunk.size());
+        for (Cake cake : chunk) {
+            String titleKey = Cake.titleKey(cake.getTitle());
+            if (titleKey == null || seenTitleKeys.add(titleKey)) {
+                uniqueCakes.add(cake);
+            } else {
+                skippedCakes.incrementAndGet();
+                meterRegistry.counter(CAKES_METRIC, "result", "skipped").increment();
+                log.warn("skipping cake with duplicate title {}", cake.getTitle());
+            }
+        }
 
-        log.info("cake database populated with {} cakes", cakes.size());
+        // every chunk is its own transaction, so its entities are released once it commits
+        cakeStore.insertAll(uniqueCakes);
+        long populated = populatedCakes.addAndGet(uniqueCakes.size());
+        meterRegistry.counter(CAKES_METRIC, "result", "saved").increment(uniqueCakes.size());
+        log.debug("{} cakes populated so far", populated);
     }
 
     @JsonIgnoreProperties(ignoreUnknown = true)
@@ -0,0 +1,37 @@
+package epn.edu.ec.populator;
+
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.stereotype.Component;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Reports the cake database population as {@code cakePopulator} health. It is part of the
+ * readiness group, so the instance only reports ready once the catalog is loaded.
+ */
+@RequiredArgsConstructor
+@Component
+public class CakePopulatorHealthIndicator implements HealthIndicator {
+    private final CakeDatabasePopulator cakeDatabasePopulator;
+
+    @Override
+    public Health health() {
+        Health.Builder health;
+        switch (cakeDatabasePopulator.getState()) {
+            case COMPLETED:
+                health = Health.up();
+                break;
+            case FAILED:
+                health = Health.down();
+                break;
+            default:
+                health = Health.outOfService();
+                break;
+        }
+        return health
+                .withDetail("state", cakeDatabasePopulator.getState())
+                .withDetail("populatedCakes", cakeDatabasePopulator.getPopulatedCakes())
+                .build();
+    }
+}
@@ -0,0 +1,78 @@
+package epn.edu.ec.populator;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import epn.edu.ec.model.cake.CakeResponse;
+import epn.edu.ec.repository.CakeRepository;
+import epn.edu.ec.repository.model.Cake;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Fills in the title key of cakes stored before it existed: in the file database of the
+ * {@code persistent} profile, {@code ddl-auto=update} adds the column empty, and such cakes would be
+ * skipped by title lookups and by the unique index. Runs before {@link CakeDatabasePopulator}
+ * decides whether to keep the stored catalog, in chunks of {@value #CHUNK_SIZE} cakes, each its own
+ * transaction. When two stored titles only differ in case, the cake with the lowest id gets the key
+ * and the others are logged and left without one.
+ */
+@Slf4j
+@Component
+public class CakeTitleKeyBackfill {
+    static final int CHUNK_SIZE = 500;
+
+    private final CakeRepository cakeRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    public CakeTitleKeyBackfill(CakeRepository cakeRepository, PlatformTransactionManager transactionManager) {
+        this.cakeRepository = cakeRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @EventListener(ContextRefreshedEvent.class)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void backfill() {
+        long after = Long.MIN_VALUE;
+        int filled = 0;
+        List<CakeResponse> cakes;
+        do {
+            long from = after;
+            cakes = transactionTemplate.execute(status -> cakeRepository.findWithoutTitleKey(from, PageRequest.of(0, CHUNK_SIZE)));
+            if (cakes.isEmpty()) {
+                break;
+            }
+            List<CakeResponse> chunk = cakes;
+            filled += transactionTemplate.execute(status -> fill(chunk));
+            after = cakes.get(cakes.size() - 1).getId();
+        } while (cakes.size() == CHUNK_SIZE);
+        if (filled > 0) {
+            log.info("filled in the title key of {} stored cakes", filled);
+        }
+    }
+
+    private int fill(List<CakeResponse> cakes) {
+        Set<String> titleKeys = new HashSet<>();
+        cakes.forEach(cake -> titleKeys.add(Cake.titleKey(cake.getTitle())));
+        Set<String> takenTitleKeys = new HashSet<>(cakeRepository.findExistingTitleKeys(titleKeys));
+        int filled = 0;
+        for (CakeResponse cake : cakes) {
+            String titleKey = Cake.titleKey(cake.getTitle());
+            if (takenTitleKeys.add(titleKey)) {
+                filled += cakeRepository.updateTitleKey(cake.getId(), titleKey);
+            } else {
+                log.warn("cake {} keeps no title key, title {} is taken by another cake", cake.getId(), cake.getTitle());
+            }
+        }
+        return filled;
+    }
+}
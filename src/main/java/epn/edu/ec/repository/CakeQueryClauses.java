@@ -0,0 +1,108 @@
+package epn.edu.ec.repository;
+
+import static java.util.stream.Collectors.joining;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.UnaryOperator;
+
+import epn.edu.ec.model.cake.CakeQuery;
+
+/**
+ * The {@code where} and {@code order by} clauses of a {@link CakeQuery} with their parameters,
+ * shared by the JPQL of {@link CakeQueryRepositoryImpl} and the SQL of the sharded store, which
+ * only differ in how they name columns. Title filters compare the title key, substring filters are
+ * {@code LIKE} patterns with {@code \} as escape character, and the cursor position becomes a
+ * keyset condition on {@code (title, id)}.
+ */
+public final class CakeQueryClauses {
+    private static final char LIKE_ESCAPE = '\\';
+
+    private final List<String> conditions = new ArrayList<>();
+    private final Map<String, Object> parameters = new HashMap<>();
+    private final String orderBy;
+
+    private CakeQueryClauses(CakeQuery query, UnaryOperator<String> column) {
+        if (query.titleKeyPrefix() != null) {
+            conditions.add(column.apply("titleKey") + " like :titlePrefix escape '\\'");
+            parameters.put("titlePrefix", likePattern(query.titleKeyPrefix(), false));
+        }
+        if (query.titleKeyPart() != null) {
+            conditions.add(column.apply("titleKey") + " like :titlePart escape '\\'");
+            parameters.put("titlePart", likePattern(query.titleKeyPart(), true));
+        }
+        if (query.descriptionPart() != null) {
+            conditions.add("lower(" + column.apply("description") + ") like :descriptionPart escape '\\'");
+            parameters.put("descriptionPart", likePattern(query.descriptionPart(), true));
+        }
+        if (query.getAfterId() != null) {
+            conditions.add(afterCondition(query.getAfterTitle(), column.apply("title"), column.apply("id")));
+            if (query.getAfterTitle() != null) {
+                parameters.put("afterTitle", query.getAfterTitle());
+            }
+            parameters.put("afterId", query.getAfterId());
+        }
+        orderBy = "order by " + query.ordering().stream()
+                .map(order -> column.apply(order.getField().property()) + (order.isDescending() ? " desc" : ""))
+                .collect(joining(", "));
+    }
+
+    /**
+     * Clauses over the properties of the {@code Cake} entity selected as {@code alias}.
+     */
+    public static CakeQueryClauses jpql(CakeQuery query, String alias) {
+        return new CakeQueryClauses(query, property -> alias + "." + property);
+    }
+
+    /**
+     * Clauses over the columns of the {@code cakes} table.
+     */
+    public static CakeQueryClauses sql(CakeQuery query) {
+        return new CakeQueryClauses(query, property -> property.equals("titleKey") ? "title_key" : property);
+    }
+
+    /**
+     * {@code where} and the conditions followed by a space, or nothing without conditions.
+     */
+    public String where() {
+        return conditions.isEmpty() ? "" : "where " + String.join(" and ", conditions) + " ";
+    }
+
+    public String orderBy() {
+        return orderBy;
+    }
+
+    public Map<String, Object> parameters() {
+        return parameters;
+    }
+
+    /**
+     * Cakes after the cursor position. {@code NULL} titles come first and never compare equal, so a
+     * position without a title has its own condition.
+     */
+    private static String afterCondition(String afterTitle, String title, String id) {
+        return afterTitle == null
+                ? "((" + title + " is null and " + id + " > :afterId) or " + title + " is not null)"
+                : "(" + title + " > :afterTitle or (" + title + " = :afterTitle and " + id + " > :afterId))";
+    }
+
+    /**
+     * A {@code LIKE} pattern for values that start with the given one or, when {@code anywhere},
+     * contain it.
+     */
+    static String likePattern(String value, boolean anywhere) {
+        StringBuilder pattern = new StringBuilder(value.length() + 2);
+        if (anywhere) {
+            pattern.append('%');
+        }
+        for (char character : value.toCharArray()) {
+            if (character == '%' || character == '_' || character == LIKE_ESCAPE) {
+                pattern.append(LIKE_ESCAPE);
+            }
+            pattern.append(character);
+        }
+        return pattern.append('%').toString();
+    }
+}
@@ -0,0 +1,18 @@
+package epn.edu.ec.repository;
+
+import java.util.List;
+
+import epn.edu.ec.model.cake.CakeQuery;
+import epn.edu.ec.model.cake.CakeResponse;
+
+/**
+ * Queries of {@link CakeRepository} built at runtime, implemented by {@link CakeQueryRepositoryImpl}.
+ */
+public interface CakeQueryRepository {
+
+    /**
+     * At most {@code limit} cakes matching the filters of the query, in its order. Filters, ordering
+     * and limit are all part of the single select.
+     */
+    List<CakeResponse> findResponses(CakeQuery query, int limit);
+}
@@ -0,0 +1,30 @@
+package epn.edu.ec.repository;
+
+import java.util.List;
+
+import epn.edu.ec.model.cake.CakeQuery;
+import epn.edu.ec.model.cake.CakeResponse;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.TypedQuery;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Runs a {@link CakeQuery} as JPQL, with the clauses of {@link CakeQueryClauses}. The title filters compare the title key, so a prefix is a
+ * range of the {@code uk_cakes_title_key} index; the orderings are served by the
+ * {@code (title, id)} and {@code (description, id)} indexes. Substring filters are {@code LIKE}
+ * patterns with a leading wildcard, checked on every row the ordering reads.
+ */
+@RequiredArgsConstructor
+public class CakeQueryRepositoryImpl implements CakeQueryRepository {
+    private final EntityManager entityManager;
+
+    @Override
+    public List<CakeResponse> findResponses(CakeQuery query, int limit) {
+        CakeQueryClauses clauses = CakeQueryClauses.jpql(query, "c");
+        TypedQuery<CakeResponse> typedQuery = entityManager
+                .createQuery(CakeRepository.CAKE_RESPONSE + clauses.where() + clauses.orderBy(), CakeResponse.class)
+                .setMaxResults(limit);
+        clauses.parameters().forEach(typedQuery::setParameter);
+        return typedQuery.getResultList();
+    }
+}
@@ -1,11 +1,122 @@
 package epn.edu.ec.repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import epn.edu.ec.model.cake.CakeResponse;
 import epn.edu.ec.repository.model.Cake;
+import jakarta.persistence.QueryHint;
+
+public interface CakeRepository extends JpaRepository<Cake, Long>, CakeQueryRepository {
+    /**
+     * Selects cakes straight into {@link CakeResponse}: no entity is hydrated, registered in the
+     * persistence context or snapshotted for dirty checking.
+     */
+    String CAKE_RESPONSE = "select new epn.edu.ec.model.cake.CakeResponse(c.id, c.title, c.description, c.version) "
+            + "from Cake c ";
 
-public interface CakeRepository extends JpaRepository<Cake, Long>{
     Optional<Cake> findByTitle(String title);
+
+    @Query(CAKE_RESPONSE + "where c.titleKey = :titleKey")
+    Optional<CakeResponse> findByTitleKey(@Param("titleKey") String titleKey);
+
+    @Query(CAKE_RESPONSE + "where c.id = :id")
+    Optional<CakeResponse> findResponseById(@Param("id") long id);
+
+    @Query(CAKE_RESPONSE + "order by c.title, c.id")
+    List<CakeResponse> findAllResponses();
+
+    /**
+     * Cakes created or updated after the given catalog revision, served by the revision index.
+     */
+    @Query(CAKE_RESPONSE + "where c.revision > :since order by c.revision, c.id")
+    List<CakeResponse> findChangedSince(@Param("since") long since);
+
+    List<Cake> findByTitleKeyIn(Collection<String> titleKeys);
+
+    /**
+     * Cakes with a title but no title key, stored before the key existed, in id order after
+     * {@code after}.
+     */
+    @Query(CAKE_RESPONSE + "where c.titleKey is null and c.title is not null and c.id > :after order by c.id")
+    List<CakeResponse> findWithoutTitleKey(@Param("after") long after, Pageable pageable);
+
+    /**
+     * Sets the title key alone: the title does not change, so neither do the version and revision.
+     */
+    @Modifying
+    @Transactional
+    @Query("update Cake c set c.titleKey = :titleKey where c.id = :id")
+    int updateTitleKey(@Param("id") long id, @Param("titleKey") String titleKey);
+
+    @Query("select c.titleKey from Cake c where c.titleKey in :titleKeys")
+    List<String> findExistingTitleKeys(@Param("titleKeys") Collection<String> titleKeys);
+
+    /**
+     * Updates a cake in a single statement, without loading it first, and returns the new version
+     * from the updated row through an H2 data change delta table ({@code FINAL TABLE}).
+     *
+     * @return the new version, empty when there is no cake with that id
+     */
+    @Transactional
+    @Query(value = "select version from final table (update cakes set title = :title, description = :description, "
+            + "title_key = :titleKey, version = version + 1, revision = :revision where id = :id)", nativeQuery = true)
+    Optional<Long> updateById(@Param("id") long id, @Param("title") String title, @Param("description") String description,
+                              @Param("titleKey") String titleKey, @Param("revision") long revision);
+
+    /**
+     * Like {@link #updateById} but only while the cake is still at {@code version}.
+     *
+     * @return the number of updated rows, 0 when there is no cake with that id and version
+     */
+    @Modifying
+    @Transactional
+    @Query("update Cake c set c.title = :title, c.description = :description, c.titleKey = :titleKey, "
+            + "c.version = c.version + 1, c.revision = :revision where c.id = :id and c.version = :version")
+    int updateByIdAndVersion(@Param("id") long id, @Param("version") long version, @Param("title") String title,
+                             @Param("description") String description, @Param("titleKey") String titleKey,
+                             @Param("revision") long revision);
+
+    /**
+     * @return the number of deleted rows, 0 when there is no cake with that id
+     */
+    @Modifying
+    @Transactional
+    @Query("delete from Cake c where c.id = :id")
+    int deleteCakeById(@Param("id") long id);
+
+    @Query(CAKE_RESPONSE + "order by c.title, c.id")
+    List<CakeResponse> findFirstPage(Pageable pageable);
+
+    @Query(CAKE_RESPONSE + "where c.title > :title or (c.title = :title and c.id > :id) order by c.title, c.id")
+    List<CakeResponse> findPageAfter(@Param("title") String title, @Param("id") long id, Pageable pageable);
+
+    /**
+     * Page after a cake without a title: {@code NULL} titles sort first and never compare equal,
+     * so they need their own condition.
+     */
+    @Query(CAKE_RESPONSE + "where (c.title is null and c.id > :id) or c.title is not null order by c.title, c.id")
+    List<CakeResponse> findPageAfterNullTitle(@Param("id") long id, Pageable pageable);
+
+    /**
+     * Streams every cake in id order, fetching rows from the driver in blocks. Must be consumed
+     * inside a transaction and closed afterwards.
+     */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("select c from Cake c order by c.id")
+    Stream<Cake> streamAll();
 }
@@ -0,0 +1,24 @@
+package epn.edu.ec.repository;
+
+import java.time.Instant;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import epn.edu.ec.repository.model.CakeTombstone;
+
+public interface CakeTombstoneRepository extends JpaRepository<CakeTombstone, Long> {
+
+    @Query("select t.cakeId from CakeTombstone t where t.revision > :since order by t.revision")
+    List<Long> findCakeIdsDeletedSince(@Param("since") long since);
+
+    @Query("select max(t.revision) from CakeTombstone t where t.deletedAt < :before")
+    Long findMaxRevisionDeletedBefore(@Param("before") Instant before);
+
+    @Modifying
+    @Query("delete from CakeTombstone t where t.deletedAt < :before")
+    int deleteDeletedBefore(@Param("before") Instant before);
+}
@@ -0,0 +1,8 @@
+package epn.edu.ec.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import epn.edu.ec.repository.model.CatalogMetadata;
+
+public interface CatalogMetadataRepository extends JpaRepository<CatalogMetadata, String> {
+}
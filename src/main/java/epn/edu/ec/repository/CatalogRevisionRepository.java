@@ -0,0 +1,28 @@
+package epn.edu.ec.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import epn.edu.ec.repository.model.CatalogRevision;
+
+public interface CatalogRevisionRepository extends JpaRepository<CatalogRevision, Integer> {
+
+    /**
+     * Takes the next revision; the row stays locked until the calling transaction ends.
+     *
+     * @return the number of updated rows, 0 when the counter row does not exist yet
+     */
+    @Modifying
+    @Query("update CatalogRevision r set r.revision = r.revision + 1 where r.id = :id")
+    int increment(@Param("id") int id);
+
+    @Query("select r.revision from CatalogRevision r where r.id = :id")
+    long findRevision(@Param("id") int id);
+
+    @Modifying
+    @Query("update CatalogRevision r set r.compactedRevision = :compactedRevision "
+            + "where r.id = :id and r.compactedRevision < :compactedRevision")
+    int advanceCompactedRevision(@Param("id") int id, @Param("compactedRevision") long compactedRevision);
+}
@@ -0,0 +1,218 @@
+package epn.edu.ec.repository;
+
+import java.time.Duration;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.metrics.r2dbc.ConnectionPoolMetrics;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.r2dbc.connection.R2dbcTransactionManager;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.reactive.TransactionalOperator;
+
+import epn.edu.ec.model.cake.CakeResponse;
+import epn.edu.ec.repository.model.Cake;
+import epn.edu.ec.repository.model.CatalogRevision;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.r2dbc.h2.H2ConnectionConfiguration;
+import io.r2dbc.h2.H2ConnectionFactory;
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.ConnectionPoolConfiguration;
+import io.r2dbc.spi.Readable;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * R2DBC access to the {@code cakes} table for the reactive API. It opens the same H2 database as the
+ * JPA {@code DataSource} (derived from {@code spring.datasource.url}) through its own bounded pool of
+ * {@code cakes.reactive.pool.max-size} connections. The pool is deliberately not a
+ * {@code ConnectionFactory} bean: Spring Boot would otherwise back off from creating the JPA
+ * {@code DataSource}.
+ * <p>
+ * Writes take a catalog revision from {@code catalog_revision} in the same R2DBC transaction, like
+ * the JPA writes do, so {@code GET /cakes/delta} sees them too.
+ */
+@Slf4j
+@Component
+@ConditionalOnExpression("'${cakes.store.type:jpa}' != 'sharded'")
+public class ReactiveCakeRepository implements DisposableBean, MeterBinder {
+    private static final String JDBC_H2_PREFIX = "jdbc:h2:";
+    private static final String CAKE_COLUMNS = "select id, title, description, version from cakes ";
+
+    private final ConnectionPool connectionPool;
+    private final DatabaseClient databaseClient;
+    private final TransactionalOperator transactionalOperator;
+
+    public ReactiveCakeRepository(@Value("${spring.datasource.url}") String jdbcUrl,
+                                  @Value("${spring.datasource.username:sa}") String username,
+                                  @Value("${spring.datasource.password:}") String password,
+                                  @Value("${cakes.reactive.pool.max-size:10}") int maxSize,
+                                  @Value("${cakes.reactive.pool.max-acquire-time:PT5S}") Duration maxAcquireTime) {
+        if (!jdbcUrl.startsWith(JDBC_H2_PREFIX)) {
+            throw new IllegalStateException("the reactive API needs an H2 database, found " + jdbcUrl);
+        }
+
+        H2ConnectionFactory connectionFactory = new H2ConnectionFactory(H2ConnectionConfiguration.builder()
+                .url(jdbcUrl.substring(JDBC_H2_PREFIX.length()))
+                .username(username)
+                .password(password)
+                .build());
+        this.connectionPool = new ConnectionPool(ConnectionPoolConfiguration.builder(connectionFactory)
+                .initialSize(1)
+                .maxSize(maxSize)
+                .maxAcquireTime(maxAcquireTime)
+                .build());
+        this.databaseClient = DatabaseClient.create(connectionPool);
+        this.transactionalOperator = TransactionalOperator.create(new R2dbcTransactionManager(connectionPool));
+    }
+
+    public Flux<CakeResponse> findAll() {
+        return databaseClient.sql(CAKE_COLUMNS + "order by title, id")
+                .map(ReactiveCakeRepository::cakeResponse)
+                .all();
+    }
+
+    public Flux<CakeResponse> findFirstPage(int limit) {
+        return databaseClient.sql(CAKE_COLUMNS + "order by title, id limit :limit")
+                .bind("limit", limit)
+                .map(ReactiveCakeRepository::cakeResponse)
+                .all();
+    }
+
+    public Flux<CakeResponse> findPageAfter(String title, long id, int limit) {
+        if (title == null) {
+            return databaseClient.sql(CAKE_COLUMNS
+                            + "where (title is null and id > :id) or title is not null order by title, id limit :limit")
+                    .bind("id", id)
+                    .bind("limit", limit)
+                    .map(ReactiveCakeRepository::cakeResponse)
+                    .all();
+        }
+        return databaseClient.sql(CAKE_COLUMNS
+                        + "where title > :title or (title = :title and id > :id) order by title, id limit :limit")
+                .bind("title", title)
+                .bind("id", id)
+                .bind("limit", limit)
+                .map(ReactiveCakeRepository::cakeResponse)
+                .all();
+    }
+
+    public Mono<CakeResponse> findById(long id) {
+        return databaseClient.sql(CAKE_COLUMNS + "where id = :id")
+                .bind("id", id)
+                .map(ReactiveCakeRepository::cakeResponse)
+                .one();
+    }
+
+    /**
+     * Inserts a cake with an id drawn from {@code cakes_seq}. Hibernate's pooled optimizer treats
+     * every sequence value as the top of a block it has not handed out yet, so an id taken here
+     * never collides with one allocated by JPA.
+     */
+    public Mono<Write> insert(String title, String description) {
+        return nextRevision()
+                .flatMap(revision -> databaseClient.sql("select next value for cakes_seq")
+                        .map(row -> row.get(0, Long.class))
+                        .one()
+                        .flatMap(id -> bindCake(databaseClient.sql(
+                                        "insert into cakes (id, title, description, title_key, version, revision) "
+                                                + "values (:id, :title, :description, :titleKey, 0, :revision)")
+                                        .bind("id", id)
+                                        .bind("revision", revision), title, description)
+                                .fetch()
+                                .rowsUpdated()
+                                .thenReturn(new Write(revision, new CakeResponse(id, title, description, 0L)))))
+                .as(transactionalOperator::transactional);
+    }
+
+    /**
+     * The updated cake is read back in the same transaction, for its new version.
+     *
+     * @return empty when there is no cake with that id
+     */
+    public Mono<Write> update(long id, String title, String description) {
+        return nextRevision()
+                .flatMap(revision -> bindCake(databaseClient.sql(
+                                "update cakes set title = :title, description = :description, title_key = :titleKey, "
+                                        + "version = version + 1, revision = :revision where id = :id")
+                                .bind("id", id)
+                                .bind("revision", revision), title, description)
+                        .fetch()
+                        .rowsUpdated()
+                        .flatMap(updated -> updated == 0
+                                ? Mono.<Write>empty()
+                                : findById(id).map(cake -> new Write(revision, cake))))
+                .as(transactionalOperator::transactional);
+    }
+
+    /**
+     * @return the catalog revision of the deletion, empty when there is no cake with that id
+     */
+    public Mono<Long> deleteById(long id) {
+        return nextRevision()
+                .flatMap(revision -> databaseClient.sql("delete from cakes where id = :id")
+                        .bind("id", id)
+                        .fetch()
+                        .rowsUpdated()
+                        .flatMap(deleted -> deleted == 0
+                                ? Mono.<Long>empty()
+                                : databaseClient.sql("insert into cake_tombstones (cake_id, revision, deleted_at) "
+                                                + "values (:id, :revision, current_timestamp)")
+                                        .bind("id", id)
+                                        .bind("revision", revision)
+                                        .fetch()
+                                        .rowsUpdated()
+                                        .thenReturn(revision)))
+                .as(transactionalOperator::transactional);
+    }
+
+    /**
+     * Must run in the caller's transaction: the counter row stays locked until it commits.
+     */
+    private Mono<Long> nextRevision() {
+        return databaseClient.sql("update catalog_revision set revision = revision + 1 where id = :id")
+                .bind("id", CatalogRevision.CATALOG)
+                .fetch()
+                .rowsUpdated()
+                .then(databaseClient.sql("select revision from catalog_revision where id = :id")
+                        .bind("id", CatalogRevision.CATALOG)
+                        .map(row -> row.get(0, Long.class))
+                        .one());
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        new ConnectionPoolMetrics(connectionPool, "reactiveCakes", Tags.empty()).bindTo(registry);
+    }
+
+    @Override
+    public void destroy() {
+        connectionPool.dispose();
+    }
+
+    private static DatabaseClient.GenericExecuteSpec bindCake(DatabaseClient.GenericExecuteSpec spec,
+                                                              String title, String description) {
+        return bindNullable(bindNullable(bindNullable(spec, "title", title), "description", description),
+                "titleKey", Cake.titleKey(title));
+    }
+
+    private static DatabaseClient.GenericExecuteSpec bindNullable(DatabaseClient.GenericExecuteSpec spec,
+                                                                  String name, String value) {
+        return value == null ? spec.bindNull(name, String.class) : spec.bind(name, value);
+    }
+
+    /**
+     * A written cake and the catalog revision of the write.
+     */
+    public record Write(long revision, CakeResponse cake) {
+    }
+
+    private static CakeResponse cakeResponse(Readable row) {
+        return new CakeResponse(row.get("id", Long.class), row.get("title", String.class),
+                row.get("description", String.class), row.get("version", Long.class));
+    }
+}
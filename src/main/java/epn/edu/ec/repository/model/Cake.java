@@ -1,10 +1,19 @@
 package epn.edu.ec.repository.model;
 
+import java.util.Locale;
+
+import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.PreUpdate;
+import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+import jakarta.persistence.Version;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -13,17 +22,56 @@ import lombok.Data;
 @Builder(toBuilder = true)
 @AllArgsConstructor
 @Entity
-@Table(name = "cakes")
+@Table(name = "cakes",
+        indexes = {
+                @Index(name = "idx_cakes_title_id", columnList = "title, id"),
+                @Index(name = "idx_cakes_description_id", columnList = "description, id"),
+                @Index(name = "idx_cakes_revision", columnList = "revision")
+        },
+        uniqueConstraints = @UniqueConstraint(name = "uk_cakes_title_key", columnNames = "title_key"))
 public class Cake {
     
     public Cake() {
     }
 
+    /**
+     * Allocated in blocks of 50 by Hibernate's pooled optimizer, so inserts only hit the sequence
+     * once per block.
+     */
     @Id
-    @GeneratedValue(strategy = GenerationType.AUTO)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "cakes_seq")
+    @SequenceGenerator(name = "cakes_seq", sequenceName = "cakes_seq", allocationSize = 50)
     private long id;
 
     private String title;
 
     private String description;
+
+    /**
+     * Incremented on every update; conditional updates only apply to the version the client read.
+     */
+    @Version
+    private long version;
+
+    /**
+     * Catalog revision of the last create or update, see {@code GET /cakes/delta}.
+     */
+    private long revision;
+
+    /**
+     * Case-insensitive form of the title, kept in sync on every insert and update. Its unique index
+     * makes title lookups an index seek and rejects titles differing only in case.
+     */
+    @Column(name = "title_key")
+    private String titleKey;
+
+    @PrePersist
+    @PreUpdate
+    void updateTitleKey() {
+        titleKey = titleKey(title);
+    }
+
+    public static String titleKey(String title) {
+        return title == null ? null : title.strip().toLowerCase(Locale.ROOT);
+    }
 }
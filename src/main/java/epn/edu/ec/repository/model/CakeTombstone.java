@@ -0,0 +1,33 @@
+package epn.edu.ec.repository.model;
+
+import java.time.Instant;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Left behind by a deleted cake so delta clients learn about the deletion; removed by compaction
+ * once older than {@code cakes.delta.tombstone-retention}.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "cake_tombstones", indexes = @Index(name = "idx_cake_tombstones_revision", columnList = "revision"))
+public class CakeTombstone {
+
+    @Id
+    @Column(name = "cake_id")
+    private long cakeId;
+
+    private long revision;
+
+    @Column(name = "deleted_at")
+    private Instant deletedAt;
+}
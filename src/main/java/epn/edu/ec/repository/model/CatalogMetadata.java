@@ -0,0 +1,26 @@
+package epn.edu.ec.repository.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Named value describing the state of the stored catalog, such as the source it was populated from.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "catalog_metadata")
+public class CatalogMetadata {
+
+    @Id
+    private String name;
+
+    @Column(name = "metadata_value")
+    private String value;
+}
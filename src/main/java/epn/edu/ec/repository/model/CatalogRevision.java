@@ -0,0 +1,32 @@
+package epn.edu.ec.repository.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Single-row counter of catalog changes. Writers increment it in their own transaction, so the row
+ * lock orders revisions by commit: once a revision is visible, every smaller one is committed too.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "catalog_revision")
+public class CatalogRevision {
+    public static final int CATALOG = 1;
+
+    @Id
+    private int id;
+
+    /** revision of the last committed change */
+    private long revision;
+
+    /** deltas from before this revision are no longer complete, their tombstones were compacted */
+    @Column(name = "compacted_revision")
+    private long compactedRevision;
+}
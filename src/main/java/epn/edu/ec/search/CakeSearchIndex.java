@@ -0,0 +1,210 @@
+package epn.edu.ec.search;
+
+import static java.util.stream.Collectors.toList;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.regex.Pattern;
+
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import epn.edu.ec.event.CakeCatalogPopulatedEvent;
+import epn.edu.ec.event.CakeChangedEvent;
+import epn.edu.ec.model.cake.CakeResponse;
+import epn.edu.ec.service.CatalogRevisionService;
+import epn.edu.ec.store.CakeStore;
+import lombok.Data;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * In-process inverted index over the tokenized title and description of every cake. It is built
+ * once after the catalog has been populated and then kept up to date from committed
+ * {@link CakeChangedEvent}s, so searches never touch the database.
+ * <p>
+ * Every query token must match the beginning of an indexed term. Cakes are ranked by the sum, over
+ * the query tokens, of the best matching term weight: title terms weigh more than description terms
+ * and whole-term matches more than prefix matches.
+ * <p>
+ * Listeners of concurrent transactions may deliver changes out of order. Like the compact catalog,
+ * the index keeps the revision of the last change applied to every cake and a tombstone for every
+ * deleted one, and ignores changes older than those or than the revision it was built at.
+ */
+@RequiredArgsConstructor
+@Slf4j
+@Component
+public class CakeSearchIndex {
+    static final int TITLE_WEIGHT = 3;
+    static final int DESCRIPTION_WEIGHT = 1;
+    static final int EXACT_MATCH_FACTOR = 2;
+
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private final CakeStore cakeStore;
+    private final CatalogRevisionService revisionService;
+
+    /** term -> (cake id -> weight of the term in that cake) */
+    private final ConcurrentSkipListMap<String, Map<Long, Integer>> postings = new ConcurrentSkipListMap<>();
+    private final Map<Long, IndexedCake> indexedCakes = new ConcurrentHashMap<>();
+    private final Map<Long, Long> appliedRevisions = new HashMap<>();
+    private final Set<Long> removedIds = new HashSet<>();
+    private long builtRevision;
+
+    @EventListener
+    public void onCatalogPopulated(CakeCatalogPopulatedEvent event) {
+        rebuild();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onCakeChanged(CakeChangedEvent event) {
+        long cakeId = event.getCakeId();
+        long revision = event.getRevision();
+        if (revision <= builtRevision || removedIds.contains(cakeId)
+                || appliedRevisions.getOrDefault(cakeId, Long.MIN_VALUE) > revision) {
+            log.debug("ignoring stale {} of cake {} at revision {}", event.getType(), cakeId, revision);
+            return;
+        }
+
+        if (event.getType() == CakeChangedEvent.Type.DELETED) {
+            appliedRevisions.remove(cakeId);
+            removedIds.add(cakeId);
+            remove(cakeId);
+        } else {
+            appliedRevisions.put(cakeId, revision);
+            index(event.getCake());
+        }
+    }
+
+    public synchronized void rebuild() {
+        long start = System.nanoTime();
+        postings.clear();
+        indexedCakes.clear();
+        appliedRevisions.clear();
+        removedIds.clear();
+        // read before the cakes, so every change up to it is already in them
+        builtRevision = revisionService.current().getRevision();
+        cakeStore.findAll().forEach(this::index);
+        log.info("cake search index built with {} cakes and {} terms in {} ms",
+                indexedCakes.size(), postings.size(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    public synchronized void index(CakeResponse cake) {
+        remove(cake.getId());
+
+        Map<String, Integer> terms = new HashMap<>();
+        tokenize(cake.getTitle()).forEach(term -> terms.merge(term, TITLE_WEIGHT, Integer::sum));
+        tokenize(cake.getDescription()).forEach(term -> terms.merge(term, DESCRIPTION_WEIGHT, Integer::sum));
+
+        terms.forEach((term, weight) ->
+                postings.computeIfAbsent(term, key -> new ConcurrentHashMap<>()).put(cake.getId(), weight));
+        indexedCakes.put(cake.getId(), new IndexedCake(cake, List.copyOf(terms.keySet())));
+    }
+
+    public synchronized void remove(long cakeId) {
+        IndexedCake indexedCake = indexedCakes.remove(cakeId);
+        if (indexedCake == null) {
+            return;
+        }
+        for (String term : indexedCake.getTerms()) {
+            Map<Long, Integer> cakes = postings.get(term);
+            if (cakes != null) {
+                cakes.remove(cakeId);
+                if (cakes.isEmpty()) {
+                    postings.remove(term);
+                }
+            }
+        }
+    }
+
+    public List<CakeResponse> search(String query, int limit) {
+        List<String> queryTokens = tokenize(query);
+        if (queryTokens.isEmpty()) {
+            return List.of();
+        }
+
+        Map<Long, Integer> scores = null;
+        for (String queryToken : queryTokens) {
+            Map<Long, Integer> tokenScores = scoreToken(queryToken);
+            if (scores == null) {
+                scores = tokenScores;
+            } else {
+                // every query token has to match
+                Map<Long, Integer> matchingScores = tokenScores;
+                scores.keySet().retainAll(matchingScores.keySet());
+                scores.replaceAll((cakeId, score) -> score + matchingScores.get(cakeId));
+            }
+            if (scores.isEmpty()) {
+                return List.of();
+            }
+        }
+
+        List<ScoredCake> results = new ArrayList<>(scores.size());
+        scores.forEach((cakeId, score) -> {
+            IndexedCake indexedCake = indexedCakes.get(cakeId);
+            if (indexedCake != null) {
+                results.add(new ScoredCake(indexedCake.getCake(), score));
+            }
+        });
+
+        return results.stream()
+                .sorted(Comparator.comparingInt(ScoredCake::getScore).reversed()
+                        .thenComparing(scored -> scored.getCake().getTitle(), Comparator.nullsLast(Comparator.naturalOrder()))
+                        .thenComparingLong(scored -> scored.getCake().getId()))
+                .limit(limit)
+                .map(ScoredCake::getCake)
+                .collect(toList());
+    }
+
+    private Map<Long, Integer> scoreToken(String queryToken) {
+        Map<Long, Integer> tokenScores = new LinkedHashMap<>();
+        ConcurrentNavigableMap<String, Map<Long, Integer>> matchingTerms =
+                postings.subMap(queryToken, true, queryToken + Character.MAX_VALUE, true);
+        matchingTerms.forEach((term, cakes) -> {
+            int factor = term.equals(queryToken) ? EXACT_MATCH_FACTOR : 1;
+            cakes.forEach((cakeId, weight) -> tokenScores.merge(cakeId, weight * factor, Math::max));
+        });
+        return tokenScores;
+    }
+
+    static List<String> tokenize(String text) {
+        if (text == null || text.isBlank()) {
+            return List.of();
+        }
+        String normalized = DIACRITICS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD))
+                .replaceAll("")
+                .toLowerCase(Locale.ROOT);
+        List<String> tokens = new ArrayList<>();
+        for (String token : SEPARATORS.split(normalized)) {
+            if (!token.isEmpty()) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+
+    @Data
+    private static class IndexedCake {
+        private final CakeResponse cake;
+        private final List<String> terms;
+    }
+
+    @Data
+    private static class ScoredCake {
+        private final CakeResponse cake;
+        private final int score;
+    }
+}
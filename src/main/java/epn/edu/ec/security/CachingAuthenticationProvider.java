@@ -0,0 +1,100 @@
+package epn.edu.ec.security;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.nio.ByteBuffer;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.Base64;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.springframework.security.authentication.AuthenticationProvider;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.AuthenticationException;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+/**
+ * Remembers successful username/password authentications for a short time, so repeated Basic-auth
+ * requests with the same credentials skip the deliberately slow password hash check of the
+ * delegate. Entries are keyed by an HMAC of the presented credentials under a random per-process
+ * key, so the cache never holds passwords or values that can be checked offline. Failed
+ * authentications are never cached. A cache hit answers with a new token for the cached principal
+ * and authorities, carrying the details (remote address, session) of the request at hand.
+ */
+public class CachingAuthenticationProvider implements AuthenticationProvider, MeterBinder {
+    private static final String HMAC_ALGORITHM = "HmacSHA256";
+
+    private final AuthenticationProvider delegate;
+    private final Cache<String, Authentication> verifiedCredentials;
+    private final SecretKeySpec key;
+
+    public CachingAuthenticationProvider(AuthenticationProvider delegate, Duration ttl, long maximumSize) {
+        this.delegate = delegate;
+        this.verifiedCredentials = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+
+        byte[] secret = new byte[32];
+        new SecureRandom().nextBytes(secret);
+        this.key = new SecretKeySpec(secret, HMAC_ALGORITHM);
+    }
+
+    @Override
+    public Authentication authenticate(Authentication authentication) throws AuthenticationException {
+        if (!(authentication.getCredentials() instanceof String)) {
+            return delegate.authenticate(authentication);
+        }
+
+        String cacheKey = cacheKey(authentication.getName(), (String) authentication.getCredentials());
+        Authentication verified = verifiedCredentials.getIfPresent(cacheKey);
+        if (verified != null) {
+            UsernamePasswordAuthenticationToken result = UsernamePasswordAuthenticationToken.authenticated(
+                    verified.getPrincipal(), null, verified.getAuthorities());
+            result.setDetails(authentication.getDetails());
+            return result;
+        }
+
+        Authentication result = delegate.authenticate(authentication);
+        if (result != null && result.isAuthenticated()) {
+            verifiedCredentials.put(cacheKey, result);
+        }
+        return result;
+    }
+
+    @Override
+    public boolean supports(Class<?> authentication) {
+        return delegate.supports(authentication);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, verifiedCredentials, "basicAuthCredentials");
+    }
+
+    private String cacheKey(String username, String password) {
+        try {
+            Mac mac = Mac.getInstance(HMAC_ALGORITHM);
+            mac.init(key);
+            byte[] usernameBytes = username.getBytes(UTF_8);
+            // length prefix so that no two (username, password) pairs produce the same input
+            mac.update(ByteBuffer.allocate(Integer.BYTES).putInt(usernameBytes.length).array());
+            mac.update(usernameBytes);
+            mac.update(password.getBytes(UTF_8));
+            return Base64.getEncoder().encodeToString(mac.doFinal());
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(HMAC_ALGORITHM + " is not available", e);
+        }
+    }
+}
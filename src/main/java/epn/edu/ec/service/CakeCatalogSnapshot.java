@@ -0,0 +1,132 @@
+package epn.edu.ec.service;
+
+import static org.springframework.http.MediaType.APPLICATION_CBOR;
+import static org.springframework.http.MediaType.APPLICATION_JSON;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.context.event.EventListener;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.util.DigestUtils;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import epn.edu.ec.config.BinaryFormatsConfig;
+import epn.edu.ec.event.CakeCatalogPopulatedEvent;
+import epn.edu.ec.event.CakeChangedEvent;
+import epn.edu.ec.model.cake.CakesResponse;
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Serialized, versioned copy of the sorted cake catalog, one per response format. Every committed
+ * write bumps the version; the snapshots are rebuilt lazily by the first reader that sees a stale
+ * one, so unchanged polls neither query the database nor serialize anything. A rebuild reads the
+ * catalog once and serializes it in the requested format and in every format served before; only
+ * the bytes are kept, never the cakes they were written from.
+ */
+@Slf4j
+@Component
+public class CakeCatalogSnapshot {
+    /**
+     * The formats a snapshot can be built in, JSON first.
+     */
+    public static final List<MediaType> FORMATS = List.of(APPLICATION_JSON, APPLICATION_CBOR,
+            BinaryFormatsConfig.APPLICATION_SMILE);
+
+    private final CakeService cakeService;
+    private final Map<MediaType, ObjectMapper> objectMappers;
+
+    private final AtomicLong version = new AtomicLong();
+    private final Map<MediaType, Snapshot> snapshots = new ConcurrentHashMap<>();
+
+    public CakeCatalogSnapshot(CakeService cakeService, ObjectMapper objectMapper,
+                               MappingJackson2CborHttpMessageConverter cborConverter,
+                               MappingJackson2SmileHttpMessageConverter smileConverter) {
+        this.cakeService = cakeService;
+        this.objectMappers = Map.of(APPLICATION_JSON, objectMapper,
+                APPLICATION_CBOR, cborConverter.getObjectMapper(),
+                BinaryFormatsConfig.APPLICATION_SMILE, smileConverter.getObjectMapper());
+    }
+
+    public Snapshot current() {
+        return current(APPLICATION_JSON);
+    }
+
+    /**
+     * @param format one of {@link #FORMATS}
+     */
+    public Snapshot current(MediaType format) {
+        Snapshot current = snapshots.get(format);
+        if (current != null && current.getVersion() == version.get()) {
+            return current;
+        }
+        return rebuild(format);
+    }
+
+    public void invalidate() {
+        version.incrementAndGet();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCakeChanged(CakeChangedEvent event) {
+        invalidate();
+    }
+
+    @EventListener
+    public void onCatalogPopulated(CakeCatalogPopulatedEvent event) {
+        invalidate();
+    }
+
+    private synchronized Snapshot rebuild(MediaType format) {
+        if (!objectMappers.containsKey(format)) {
+            throw new IllegalArgumentException("no cake catalog snapshot in " + format);
+        }
+
+        // the version is read before the catalog, so a write racing with the rebuild leaves the
+        // new snapshot already stale and the next reader builds it again
+        long currentVersion = version.get();
+        Snapshot current = snapshots.get(format);
+        if (current != null && current.getVersion() == currentVersion) {
+            return current;
+        }
+
+        CakesResponse cakes = cakeService.getCakes();
+        for (MediaType otherFormat : FORMATS) {
+            Snapshot other = snapshots.get(otherFormat);
+            if (!otherFormat.equals(format) && other != null && other.getVersion() != currentVersion) {
+                snapshots.put(otherFormat, serialize(currentVersion, otherFormat, cakes));
+            }
+        }
+        current = serialize(currentVersion, format, cakes);
+        snapshots.put(format, current);
+        return current;
+    }
+
+    private Snapshot serialize(long version, MediaType format, CakesResponse cakes) {
+        byte[] body;
+        try {
+            body = objectMappers.get(format).writeValueAsBytes(cakes);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("cannot serialize cake catalog", e);
+        }
+        log.debug("cake catalog snapshot rebuilt, version {}, {}, {} bytes", version, format, body.length);
+        return new Snapshot(version, format, body, "\"" + DigestUtils.md5DigestAsHex(body) + "\"");
+    }
+
+    @Data
+    public static class Snapshot {
+        private final long version;
+        private final MediaType contentType;
+        private final byte[] body;
+        private final String etag;
+    }
+}
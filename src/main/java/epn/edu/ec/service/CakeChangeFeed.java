@@ -0,0 +1,255 @@
+package epn.edu.ec.service;
+
+import static org.springframework.http.MediaType.APPLICATION_JSON;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import epn.edu.ec.config.DedicatedExecutors;
+import epn.edu.ec.event.CakeChangedEvent;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Fans committed cake changes out to {@code GET /cakes/changes} subscribers as Server-Sent Events.
+ * <p>
+ * An idle subscriber is an {@link SseEmitter} plus an empty buffer: no thread is held while there
+ * is nothing to send. Events are written by a drain task, at most one per subscriber at a time,
+ * so a slow client never blocks the writer that published the change. Each drain runs on a virtual
+ * thread of its own: a write to a slow client blocks only that thread, never a worker other
+ * subscribers or background tasks wait for. A subscriber whose write has not returned after
+ * {@code cakes.changes.send-timeout} is dropped by the next heartbeat run.
+ * <p>
+ * Changes of concurrent transactions may be published out of order; a change older than the last
+ * one published for its cake is ignored. While a subscriber is behind, its buffer keeps only the
+ * newest change of each cake; once more than {@code cakes.changes.buffer-size} cakes are pending
+ * it is dropped at once, sent a {@code resync} event and disconnected, and should reload
+ * {@code GET /cakes} before subscribing again.
+ */
+@Slf4j
+@Component
+public class CakeChangeFeed {
+    public static final String SUBSCRIBERS_METRIC = "cakes.changes.subscribers";
+    static final String RESYNC_EVENT = "resync";
+
+    private final TaskExecutor taskExecutor;
+    private final int bufferSize;
+    private final long timeoutMillis;
+    private final long heartbeatIntervalNanos;
+    private final long sendTimeoutNanos;
+
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private final AtomicLong sequence = new AtomicLong();
+    // revision of the last change published for each cake; guarded by this
+    private final Map<Long, Long> publishedRevisions = new HashMap<>();
+
+    @Autowired
+    public CakeChangeFeed(@Value("${cakes.changes.buffer-size:256}") int bufferSize,
+                          @Value("${cakes.changes.timeout:PT30M}") Duration timeout,
+                          @Value("${cakes.changes.heartbeat-interval:PT15S}") Duration heartbeatInterval,
+                          @Value("${cakes.changes.send-timeout:PT30S}") Duration sendTimeout,
+                          MeterRegistry meterRegistry) {
+        this(DedicatedExecutors.virtualThreads("cake-changes"), bufferSize, timeout, heartbeatInterval, sendTimeout,
+                meterRegistry);
+    }
+
+    CakeChangeFeed(TaskExecutor taskExecutor, int bufferSize, Duration timeout, Duration heartbeatInterval,
+                   Duration sendTimeout, MeterRegistry meterRegistry) {
+        this.taskExecutor = taskExecutor;
+        this.bufferSize = bufferSize;
+        this.timeoutMillis = timeout.toMillis();
+        this.heartbeatIntervalNanos = heartbeatInterval.toNanos();
+        this.sendTimeoutNanos = sendTimeout.toNanos();
+        Gauge.builder(SUBSCRIBERS_METRIC, subscribers, Set::size).register(meterRegistry);
+    }
+
+    public SseEmitter subscribe() {
+        return subscribe(new SseEmitter(timeoutMillis));
+    }
+
+    SseEmitter subscribe(SseEmitter emitter) {
+        Subscriber subscriber = new Subscriber(emitter);
+        subscribers.add(subscriber);
+        emitter.onCompletion(() -> subscribers.remove(subscriber));
+        emitter.onError(e -> subscribers.remove(subscriber));
+        emitter.onTimeout(emitter::complete);
+        return emitter;
+    }
+
+    public int getSubscriberCount() {
+        return subscribers.size();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onCakeChanged(CakeChangedEvent event) {
+        Long published = publishedRevisions.get(event.getCakeId());
+        if (published != null && published > event.getRevision()) {
+            log.debug("ignoring stale {} of cake {} at revision {}", event.getType(), event.getCakeId(),
+                    event.getRevision());
+            return;
+        }
+        publishedRevisions.put(event.getCakeId(), event.getRevision());
+
+        // offers only buffer, so publishing under the lock keeps every subscriber in revision order
+        Change change = new Change(sequence.incrementAndGet(), event);
+        subscribers.forEach(subscriber -> subscriber.offer(change));
+    }
+
+    /**
+     * Keeps idle streams (and the proxies in front of them) open with an SSE comment; subscribers
+     * that received anything during the last interval are skipped, and subscribers stuck in a write
+     * for longer than the send timeout are dropped.
+     */
+    @Scheduled(fixedDelayString = "${cakes.changes.heartbeat-interval:PT15S}")
+    public void sendHeartbeats() {
+        long now = System.nanoTime();
+        subscribers.forEach(subscriber -> subscriber.heartbeatIfIdle(now));
+    }
+
+    private record Change(long id, CakeChangedEvent event) {
+        long revision() {
+            return event.getRevision();
+        }
+    }
+
+    private class Subscriber {
+        private final SseEmitter emitter;
+        // latest pending change of each cake, oldest first; guarded by this
+        private final LinkedHashMap<Long, Change> pending = new LinkedHashMap<>();
+        private boolean heartbeat;
+        private boolean draining;
+        private boolean closed;
+        private volatile long lastSentNanos = System.nanoTime();
+        // start of the write in progress, 0 between writes
+        private volatile long sendStartedNanos;
+
+        Subscriber(SseEmitter emitter) {
+            this.emitter = emitter;
+        }
+
+        synchronized void offer(Change change) {
+            if (closed) {
+                return;
+            }
+            Change current = pending.get(change.event().getCakeId());
+            if (current != null && current.revision() > change.revision()) {
+                return;
+            }
+            // re-inserted so the cake moves behind changes that happened before this one
+            pending.remove(change.event().getCakeId());
+            pending.put(change.event().getCakeId(), change);
+            if (pending.size() > bufferSize) {
+                log.info("cake change subscriber fell more than {} cakes behind, disconnected", bufferSize);
+                disconnect(SseEmitter.event().name(RESYNC_EVENT).data(""));
+                return;
+            }
+            scheduleDrain();
+        }
+
+        synchronized void heartbeatIfIdle(long now) {
+            if (closed) {
+                return;
+            }
+            long sendStarted = sendStartedNanos;
+            if (sendStarted != 0 && now - sendStarted >= sendTimeoutNanos) {
+                log.info("cake change subscriber did not take an event for {} ms, disconnected",
+                        (now - sendStarted) / 1_000_000);
+                disconnect(null);
+            } else if (now - lastSentNanos >= heartbeatIntervalNanos) {
+                heartbeat = true;
+                scheduleDrain();
+            }
+        }
+
+        private void scheduleDrain() {
+            if (!draining) {
+                draining = true;
+                taskExecutor.execute(this::drain);
+            }
+        }
+
+        private void drain() {
+            try {
+                while (true) {
+                    SseEmitter.SseEventBuilder next;
+                    synchronized (this) {
+                        if (closed) {
+                            return;
+                        } else if (!pending.isEmpty()) {
+                            Iterator<Change> oldest = pending.values().iterator();
+                            next = event(oldest.next());
+                            oldest.remove();
+                            heartbeat = false;
+                        } else if (heartbeat) {
+                            next = SseEmitter.event().comment("heartbeat");
+                            heartbeat = false;
+                        } else {
+                            draining = false;
+                            return;
+                        }
+                    }
+
+                    sendStartedNanos = System.nanoTime();
+                    try {
+                        emitter.send(next);
+                    } finally {
+                        sendStartedNanos = 0;
+                    }
+                    lastSentNanos = System.nanoTime();
+                }
+            } catch (IOException | IllegalStateException e) {
+                // the client went away or the stream already completed
+                log.debug("cake change subscriber disconnected: {}", e.getMessage());
+                close();
+            }
+        }
+
+        /**
+         * Drops the subscriber now and completes its stream on a thread of its own, after the
+         * given last event if any: both wait for a write still in progress.
+         */
+        private void disconnect(SseEmitter.SseEventBuilder lastEvent) {
+            close();
+            taskExecutor.execute(() -> {
+                try {
+                    if (lastEvent != null) {
+                        emitter.send(lastEvent);
+                    }
+                    emitter.complete();
+                } catch (IOException | IllegalStateException e) {
+                    log.debug("cake change subscriber disconnected: {}", e.getMessage());
+                }
+            });
+        }
+
+        private synchronized void close() {
+            closed = true;
+            pending.clear();
+            subscribers.remove(this);
+        }
+
+        private SseEmitter.SseEventBuilder event(Change change) {
+            return SseEmitter.event()
+                    .id(String.valueOf(change.id()))
+                    .name(change.event().getType().name().toLowerCase(Locale.ROOT))
+                    .data(change.event(), APPLICATION_JSON);
+        }
+    }
+}
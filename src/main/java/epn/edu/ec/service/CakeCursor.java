@@ -0,0 +1,37 @@
+package epn.edu.ec.service;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.util.Base64;
+
+import epn.edu.ec.exception.InvalidCakeCursorException;
+import lombok.Data;
+
+/**
+ * Keyset position in the {@code (title, id)} ordering of the cake catalog, encoded as an
+ * opaque url-safe string so clients never depend on its layout. Cakes without a title come first;
+ * their cursor has a {@code null} title, encoded without the separator.
+ */
+@Data
+public class CakeCursor {
+    private final String title;
+    private final long id;
+
+    public String encode() {
+        String position = title == null ? String.valueOf(id) : id + ":" + title;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(position.getBytes(UTF_8));
+    }
+
+    public static CakeCursor decode(String cursor) {
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(cursor), UTF_8);
+            int separator = decoded.indexOf(':');
+            if (separator < 0) {
+                return new CakeCursor(null, Long.parseLong(decoded));
+            }
+            return new CakeCursor(decoded.substring(separator + 1), Long.parseLong(decoded.substring(0, separator)));
+        } catch (IllegalArgumentException e) {
+            throw new InvalidCakeCursorException();
+        }
+    }
+}
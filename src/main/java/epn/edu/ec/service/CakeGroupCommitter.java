@@ -0,0 +1,238 @@
+package epn.edu.ec.service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+
+import epn.edu.ec.config.DedicatedExecutors;
+import epn.edu.ec.exception.CakeCommitTimeoutException;
+import epn.edu.ec.exception.CakeTitleConflictException;
+import epn.edu.ec.model.cake.CakeResponse;
+import epn.edu.ec.model.cake.CreateCakeRequest;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Group commit for {@code POST /cakes}, enabled with {@code cakes.group-commit.enabled=true}.
+ * <p>
+ * Concurrent creates wait in a queue of {@code cakes.group-commit.queue-capacity} requests and are
+ * committed together through {@link CakeService#createCakes}: one transaction, one catalog revision
+ * and batched inserts for up to {@code cakes.group-commit.max-batch-size} cakes. A group is flushed
+ * once it is full or once its oldest request has waited {@code cakes.group-commit.window}; with a
+ * zero window it holds whatever arrived while the previous group was being committed. The flush
+ * runs on a thread of its own, only while requests are waiting, so it never waits for a thread
+ * that is itself waiting for it. Every caller blocks until its own cake is committed, at most
+ * {@code cakes.group-commit.timeout}, and gets its own result: a taken title fails only that
+ * caller, and a group that loses a title to a concurrent writer is retried one create at a time.
+ * When the queue is full the create runs on its own, without waiting. A flush that stops on an
+ * unexpected error fails the group it was committing and every queued request.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "cakes.group-commit.enabled", havingValue = "true")
+public class CakeGroupCommitter {
+    public static final String BATCH_SIZE_METRIC = "cakes.group-commit.batch.size";
+    public static final String QUEUED_METRIC = "cakes.group-commit.queued";
+
+    private final CakeService cakeService;
+    private final TaskExecutor taskExecutor;
+    private final int maxBatchSize;
+    private final long windowNanos;
+    private final long timeoutNanos;
+    private final BlockingQueue<PendingCreate> queue;
+    private final AtomicBoolean flushing = new AtomicBoolean();
+    private final DistributionSummary batchSizes;
+
+    @Autowired
+    public CakeGroupCommitter(CakeService cakeService,
+                              @Value("${cakes.group-commit.max-batch-size:64}") int maxBatchSize,
+                              @Value("${cakes.group-commit.window:PT0.002S}") Duration window,
+                              @Value("${cakes.group-commit.timeout:PT10S}") Duration timeout,
+                              @Value("${cakes.group-commit.queue-capacity:1024}") int queueCapacity,
+                              MeterRegistry meterRegistry) {
+        // a single flush runs or is queued at a time
+        this(cakeService, DedicatedExecutors.threadPool("cake-group-commit", 1, 1), maxBatchSize, window, timeout,
+                queueCapacity, meterRegistry);
+    }
+
+    CakeGroupCommitter(CakeService cakeService, TaskExecutor taskExecutor, int maxBatchSize, Duration window,
+                       Duration timeout, int queueCapacity, MeterRegistry meterRegistry) {
+        this.cakeService = cakeService;
+        this.taskExecutor = taskExecutor;
+        this.maxBatchSize = maxBatchSize;
+        this.windowNanos = window.toNanos();
+        this.timeoutNanos = timeout.toNanos();
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.batchSizes = DistributionSummary.builder(BATCH_SIZE_METRIC)
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+        Gauge.builder(QUEUED_METRIC, queue, BlockingQueue::size).register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void close() {
+        if (taskExecutor instanceof ThreadPoolTaskExecutor pool) {
+            pool.shutdown();
+        }
+    }
+
+    public CakeResponse createCake(CreateCakeRequest createCakeRequest) {
+        PendingCreate pending = new PendingCreate(createCakeRequest, new CompletableFuture<>(), System.nanoTime());
+        if (!queue.offer(pending)) {
+            return cakeService.createCake(createCakeRequest);
+        }
+        scheduleFlush();
+
+        try {
+            return pending.result().get(timeoutNanos, TimeUnit.NANOSECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (TimeoutException e) {
+            // still queued: it will not be committed; otherwise it is being committed and may be
+            if (queue.remove(pending)) {
+                log.error("cake {} was not committed within {} ms", createCakeRequest.getTitle(), timeoutNanos / 1_000_000);
+            } else {
+                log.error("cake {} is still being committed after {} ms", createCakeRequest.getTitle(), timeoutNanos / 1_000_000);
+            }
+            throw new CakeCommitTimeoutException();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            // the cake may still be committed by the running flush
+            throw new IllegalStateException("interrupted while waiting for the cake to be committed", e);
+        }
+    }
+
+    private void scheduleFlush() {
+        if (flushing.compareAndSet(false, true)) {
+            try {
+                taskExecutor.execute(this::flush);
+            } catch (RuntimeException e) {
+                abandon(new ArrayList<>(), new IllegalStateException("group commit unavailable", e));
+            }
+        }
+    }
+
+    private void flush() {
+        List<PendingCreate> group = new ArrayList<>(maxBatchSize);
+        boolean stopped = true;
+        Throwable failure = null;
+        try {
+            while (true) {
+                group.clear();
+                nextGroup(group);
+                if (group.isEmpty()) {
+                    flushing.set(false);
+                    // a request queued after the last poll but before the flag was cleared
+                    if (queue.isEmpty() || !flushing.compareAndSet(false, true)) {
+                        stopped = false;
+                        return;
+                    }
+                    continue;
+                }
+                commit(group);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            failure = e;
+        } catch (RuntimeException | Error e) {
+            log.error("group commit stopped", e);
+            failure = e;
+            throw e;
+        } finally {
+            if (stopped) {
+                abandon(group, new IllegalStateException("group commit stopped", failure));
+            }
+        }
+    }
+
+    /**
+     * Fails the group being committed and every queued request, then lets the next create start
+     * a new flush.
+     */
+    private void abandon(List<PendingCreate> group, RuntimeException failure) {
+        queue.drainTo(group);
+        flushing.set(false);
+        group.forEach(pending -> pending.result().completeExceptionally(failure));
+    }
+
+    /**
+     * Adds queued requests to the group until the oldest is {@code window} old or the group is
+     * full; requests already taken stay in the group if the wait is interrupted.
+     */
+    private void nextGroup(List<PendingCreate> group) throws InterruptedException {
+        PendingCreate oldest = queue.poll();
+        if (oldest == null) {
+            return;
+        }
+        group.add(oldest);
+
+        long deadline = oldest.queuedNanos() + windowNanos;
+        while (group.size() < maxBatchSize) {
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                queue.drainTo(group, maxBatchSize - group.size());
+                break;
+            }
+            PendingCreate next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+            if (next == null) {
+                break;
+            }
+            group.add(next);
+        }
+    }
+
+    private void commit(List<PendingCreate> group) {
+        batchSizes.record(group.size());
+        List<CakeResponse> created;
+        try {
+            created = cakeService.createCakes(group.stream().map(PendingCreate::request).toList());
+        } catch (CakeTitleConflictException e) {
+            log.info("group of {} cakes lost a title to a concurrent writer, creating them one by one", group.size());
+            group.forEach(this::commitAlone);
+            return;
+        } catch (RuntimeException e) {
+            group.forEach(pending -> pending.result().completeExceptionally(e));
+            return;
+        }
+
+        for (int i = 0; i < group.size(); i++) {
+            CakeResponse cake = created.get(i);
+            if (cake == null) {
+                group.get(i).result().completeExceptionally(new CakeTitleConflictException());
+            } else {
+                group.get(i).result().complete(cake);
+            }
+        }
+    }
+
+    private void commitAlone(PendingCreate pending) {
+        try {
+            pending.result().complete(cakeService.createCake(pending.request()));
+        } catch (RuntimeException e) {
+            pending.result().completeExceptionally(e);
+        }
+    }
+
+    private record PendingCreate(CreateCakeRequest request, CompletableFuture<CakeResponse> result, long queuedNanos) {
+    }
+}
@@ -1,72 +1,572 @@
 package epn.edu.ec.service;
 
 
-import static java.util.stream.Collectors.toList;
+import static java.util.function.Function.identity;
+import static java.util.stream.Collectors.toMap;
+import static java.util.stream.Collectors.toSet;
 
-import java.util.Comparator;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
 
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.CachePut;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import epn.edu.ec.event.CakeChangedEvent;
+import epn.edu.ec.exception.CakeBatchTooLargeException;
 import epn.edu.ec.exception.CakeNotFoundException;
+import epn.edu.ec.exception.CakeOperationNotSupportedException;
+import epn.edu.ec.exception.CakeTitleConflictException;
+import epn.edu.ec.exception.CakeVersionConflictException;
+import epn.edu.ec.exception.CatalogRevisionExpiredException;
+import epn.edu.ec.exception.InvalidCakeQueryException;
+import epn.edu.ec.model.cake.CakeBatchOperation;
+import epn.edu.ec.model.cake.CakeBatchRequest;
+import epn.edu.ec.model.cake.CakeBatchResponse;
+import epn.edu.ec.model.cake.CakeBatchResult;
+import epn.edu.ec.model.cake.CakeDeltaResponse;
+import epn.edu.ec.model.cake.CakeQuery;
 import epn.edu.ec.model.cake.CakeResponse;
 import epn.edu.ec.model.cake.CakesResponse;
 import epn.edu.ec.model.cake.CreateCakeRequest;
 import epn.edu.ec.model.cake.UpdateCakeRequest;
 import epn.edu.ec.repository.CakeRepository;
+import epn.edu.ec.repository.CakeTombstoneRepository;
 import epn.edu.ec.repository.model.Cake;
+import epn.edu.ec.repository.model.CakeTombstone;
+import epn.edu.ec.repository.model.CatalogRevision;
+import epn.edu.ec.search.CakeSearchIndex;
+import epn.edu.ec.store.CakeStore;
+import io.micrometer.core.annotation.Timed;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManager;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
 @RequiredArgsConstructor
 @Slf4j
 @Service
+@Timed("cakes.service")
 public class CakeService {
+    public static final int DEFAULT_PAGE_SIZE = 100;
+    public static final int MAX_PAGE_SIZE = 1000;
+    public static final String CAKE_CACHE = "cake";
+    public static final int MAX_BATCH_SIZE = 1000;
+    public static final int DEFAULT_SEARCH_LIMIT = 20;
+    public static final int MAX_SEARCH_LIMIT = 100;
+    public static final String NOT_FOUND_METRIC = "cakes.not.found";
+    private static final int EXPORT_FLUSH_INTERVAL = 1000;
+    private static final long NEW_CAKE_OWNER = -1L;
+
     private final CakeRepository cakeRepository;
+    private final CakeStore cakeStore;
+    private final EntityManager entityManager;
+    private final ObjectMapper objectMapper;
+    private final ApplicationEventPublisher eventPublisher;
+    private final CakeSearchIndex searchIndex;
+    private final CatalogRevisionService revisionService;
+    private final CakeTombstoneRepository tombstoneRepository;
+    private final MeterRegistry meterRegistry;
 
+    /**
+     * Loads the whole catalog sorted by title from the {@link CakeStore}. The controller serves it
+     * through {@link CakeCatalogSnapshot}, which keeps the serialized result until the next write.
+     */
     public CakesResponse getCakes() {
-        return new CakesResponse(cakeRepository.findAll().stream()
-                .map(this::cakeResponse)
-                .sorted(Comparator.comparing(CakeResponse::getTitle))
-                .collect(toList()));
+        return new CakesResponse(cakeStore.findAll());
+    }
+
+    /**
+     * Returns at most {@code limit} cakes ordered by {@code (title, id)}, starting right after the
+     * given cursor. The ordering and the limit are applied by the {@link CakeStore}, so only one
+     * page of cakes is ever loaded.
+     */
+    public CakesResponse getCakes(int limit, String after) {
+        int pageSize = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        // one extra cake tells whether there is a next page without a count query
+        List<CakeResponse> cakes;
+        if (after == null) {
+            cakes = cakeStore.findFirstPage(pageSize + 1);
+        } else {
+            CakeCursor cursor = CakeCursor.decode(after);
+            cakes = cakeStore.findPageAfter(cursor.getTitle(), cursor.getId(), pageSize + 1);
+        }
+        return page(cakes, pageSize, true);
+    }
+
+    /**
+     * Returns at most {@code limit} cakes matching the filters of the query, in its order. Filters,
+     * ordering and limit are applied by the {@link CakeStore}. Pages can only be continued with a
+     * cursor in the default {@code (title, id)} order.
+     */
+    public CakesResponse findCakes(CakeQuery query, int limit, String after) {
+        int pageSize = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        CakeQuery pageQuery = query;
+        if (after != null) {
+            if (!query.isTitleOrder()) {
+                log.error("cursor {} used with sort {}", after, query.getSort());
+                throw new InvalidCakeQueryException();
+            }
+            CakeCursor cursor = CakeCursor.decode(after);
+            pageQuery = query.toBuilder()
+                    .afterTitle(cursor.getTitle())
+                    .afterId(cursor.getId())
+                    .build();
+        }
+        return page(cakeStore.find(pageQuery, pageSize + 1), pageSize, query.isTitleOrder());
+    }
+
+    private static CakesResponse page(List<CakeResponse> cakes, int pageSize, boolean withCursor) {
+        boolean hasNext = cakes.size() > pageSize;
+        List<CakeResponse> pageCakes = hasNext ? cakes.subList(0, pageSize) : cakes;
+
+        String nextCursor = null;
+        if (hasNext && withCursor) {
+            CakeResponse last = pageCakes.get(pageCakes.size() - 1);
+            nextCursor = new CakeCursor(last.getTitle(), last.getId()).encode();
+        }
+        return new CakesResponse(pageCakes, nextCursor);
+    }
+
+    /**
+     * Writes the whole catalog to the given stream as newline-delimited JSON, one cake per line,
+     * while rows are still being read. Each entity is detached once written so the persistence
+     * context does not grow with the table. Only available while the cakes are in the primary
+     * database.
+     */
+    @Transactional(readOnly = true)
+    public void exportCakes(OutputStream outputStream) throws IOException {
+        checkExportAvailable();
+        ObjectWriter writer = objectMapper.writerFor(CakeResponse.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+
+        try (Stream<Cake> cakes = cakeRepository.streamAll();
+             JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            generator.setRootValueSeparator(null);
+
+            long exported = 0;
+            for (Iterator<Cake> iterator = cakes.iterator(); iterator.hasNext(); ) {
+                Cake cake = iterator.next();
+                writer.writeValue(generator, cakeResponse(cake));
+                generator.writeRaw('\n');
+                entityManager.detach(cake);
+
+                // push the first line out immediately, then in blocks
+                if (++exported == 1 || exported % EXPORT_FLUSH_INTERVAL == 0) {
+                    generator.flush();
+                }
+            }
+            log.info("exported {} cakes", exported);
+        }
     }
 
+    /**
+     * Lets callers that stream the export reject it before the response is committed.
+     *
+     * @throws CakeOperationNotSupportedException when the cakes are not in the primary database
+     */
+    public void checkExportAvailable() {
+        requirePrimaryDatabase("export");
+    }
+
+    /**
+     * Searches titles and descriptions through the in-memory {@link CakeSearchIndex}; every query
+     * word has to prefix a word of the cake. Best matches come first.
+     */
+    public CakesResponse searchCakes(String query, int limit) {
+        return new CakesResponse(searchIndex.search(query, Math.max(1, Math.min(limit, MAX_SEARCH_LIMIT))));
+    }
+
+    /**
+     * Cakes created, updated and deleted after catalog revision {@code since}, which is 0 for a
+     * client without any state. The revision is read first: every change up to it is committed, and
+     * changes committed meanwhile are simply sent again next time.
+     */
+    @Transactional(readOnly = true)
+    public CakeDeltaResponse getDelta(long since) {
+        CatalogRevision current = revisionService.current();
+        if (since < 0 || since > current.getRevision() || (since > 0 && since < current.getCompactedRevision())) {
+            log.error("cannot compute delta since revision {}, catalog at {} compacted up to {}",
+                    since, current.getRevision(), current.getCompactedRevision());
+            throw new CatalogRevisionExpiredException();
+        }
+
+        return new CakeDeltaResponse(current.getRevision(),
+                cakeStore.findChangedSince(since),
+                tombstoneRepository.findCakeIdsDeletedSince(since));
+    }
+
+    @Cacheable(cacheNames = CAKE_CACHE, key = "#cakeId")
     public CakeResponse getCakeById(long cakeId) {
-        return cakeResponse(findExistingCake(cakeId));
+        return cakeStore.findById(cakeId)
+                .orElseThrow(() -> {
+                    log.error("cake with id not found {}", cakeId);
+                    countNotFound("get");
+                    throw new CakeNotFoundException();
+                });
     }
 
+    /**
+     * Looks a cake up by title, ignoring case, through the title key index of the {@link CakeStore}.
+     */
+    public CakeResponse getCakeByTitle(String title) {
+        return cakeStore.findByTitleKey(Cake.titleKey(title))
+                .orElseThrow(() -> {
+                    log.error("cake with title not found {}", title);
+                    countNotFound("get-by-title");
+                    throw new CakeNotFoundException();
+                });
+    }
+
+    @Transactional
+    @CachePut(cacheNames = CAKE_CACHE, key = "#result.id")
     public CakeResponse createCake(CreateCakeRequest createCakeRequest) {
-        Cake cake = cakeRepository.save(Cake.builder()
+        long revision = revisionService.next();
+        CakeResponse cakeResponse = insertUniqueTitle(Cake.builder()
                 .title(createCakeRequest.getTitle())
                 .description(createCakeRequest.getDescription())
+                .revision(revision)
                 .build());
-        return cakeResponse(cake);
+        eventPublisher.publishEvent(new CakeChangedEvent(CakeChangedEvent.Type.CREATED, cakeResponse.getId(), cakeResponse,
+                revision));
+        return cakeResponse;
     }
 
-    public CakeResponse updateCake(long cakeId, UpdateCakeRequest updateCakeRequest) {
-        Cake existingCake = findExistingCake(cakeId);
+    /**
+     * Creates several cakes in one transaction with a single catalog revision, inserted in JDBC
+     * batches; used by {@link CakeGroupCommitter} to commit concurrent creates together. The result
+     * holds the created cake of every request, in order, or {@code null} where the title is already
+     * taken, by the catalog or by an earlier request of the list. A title taken concurrently by
+     * another transaction fails the whole call with {@link CakeTitleConflictException}. Created
+     * cakes are not put in the cache; they are loaded on their first read by id.
+     */
+    @Transactional
+    public List<CakeResponse> createCakes(List<CreateCakeRequest> createCakeRequests) {
+        Set<String> titleKeys = createCakeRequests.stream()
+                .map(request -> Cake.titleKey(request.getTitle()))
+                .filter(Objects::nonNull)
+                .collect(toSet());
+        Set<String> takenTitleKeys = titleKeys.isEmpty()
+                ? new HashSet<>()
+                : new HashSet<>(cakeStore.findExistingTitleKeys(titleKeys));
+
+        List<Cake> cakes = new ArrayList<>();
+        List<Integer> indexes = new ArrayList<>();
+        for (int index = 0; index < createCakeRequests.size(); index++) {
+            CreateCakeRequest request = createCakeRequests.get(index);
+            String titleKey = Cake.titleKey(request.getTitle());
+            if (titleKey != null && !takenTitleKeys.add(titleKey)) {
+                log.error("cake title already exists {}", request.getTitle());
+                continue;
+            }
+            cakes.add(Cake.builder()
+                    .title(request.getTitle())
+                    .description(request.getDescription())
+                    .build());
+            indexes.add(index);
+        }
 
-        Cake updateCake = cakeRepository.save(
-                existingCake.toBuilder()
-                        .title(updateCakeRequest.getTitle())
-                        .description(updateCakeRequest.getDescription())
-                        .build()
-        );
+        CakeResponse[] results = new CakeResponse[createCakeRequests.size()];
+        if (cakes.isEmpty()) {
+            return Arrays.asList(results);
+        }
 
-        return cakeResponse(updateCake);
+        long revision = revisionService.next();
+        cakes.forEach(cake -> cake.setRevision(revision));
+        List<CakeResponse> createdCakes;
+        try {
+            createdCakes = cakeStore.insertAll(cakes);
+        } catch (DataIntegrityViolationException e) {
+            log.error("cake group rejected, a title was taken concurrently", e);
+            throw new CakeTitleConflictException();
+        }
+
+        for (int created = 0; created < createdCakes.size(); created++) {
+            CakeResponse cakeResponse = createdCakes.get(created);
+            results[indexes.get(created)] = cakeResponse;
+            eventPublisher.publishEvent(new CakeChangedEvent(CakeChangedEvent.Type.CREATED, cakeResponse.getId(), cakeResponse,
+                    revision));
+        }
+        return Arrays.asList(results);
     }
 
-    public void deleteCake(long cakeId) {
-        cakeRepository.delete(findExistingCake(cakeId));
+    /**
+     * Updates the cake with a single {@code UPDATE} statement, which also yields the new version.
+     * With an {@code expectedVersion} the update only applies while the cake is still at that
+     * version; otherwise the last writer wins. Taking the catalog revision adds an {@code UPDATE}
+     * and a {@code SELECT} of the revision row, so a successful update runs three statements; a
+     * failed conditional update pays for a fourth, to tell a missing cake from a stale version.
+     *
+     * @return the version of the updated cake
+     */
+    @Transactional
+    @CacheEvict(cacheNames = CAKE_CACHE, key = "#cakeId")
+    public long updateCake(long cakeId, UpdateCakeRequest updateCakeRequest, Long expectedVersion) {
+        String title = updateCakeRequest.getTitle();
+        String description = updateCakeRequest.getDescription();
+        long revision = revisionService.next();
+
+        Optional<Long> version;
+        try {
+            version = cakeStore.update(cakeId, expectedVersion, title, description, revision);
+        } catch (DataIntegrityViolationException e) {
+            log.error("cake title already exists {}", title);
+            throw new CakeTitleConflictException();
+        }
+
+        if (version.isEmpty()) {
+            if (expectedVersion != null && cakeStore.exists(cakeId)) {
+                log.error("cake with id {} is no longer at version {}", cakeId, expectedVersion);
+                throw new CakeVersionConflictException();
+            }
+            log.error("cake with id not found {}", cakeId);
+            countNotFound("update");
+            throw new CakeNotFoundException();
+        }
+
+        eventPublisher.publishEvent(new CakeChangedEvent(CakeChangedEvent.Type.UPDATED, cakeId,
+                new CakeResponse(cakeId, title, description, version.get()), revision));
+        return version.get();
     }
 
-    private Cake findExistingCake(long cakeId) {
-        return cakeRepository.findById(cakeId).orElseThrow(() -> {
+    /**
+     * Deletes the cake and leaves a tombstone for delta clients.
+     */
+    @Transactional
+    @CacheEvict(cacheNames = CAKE_CACHE, key = "#cakeId")
+    public void deleteCake(long cakeId) {
+        long revision = revisionService.next();
+        if (!cakeStore.delete(cakeId)) {
             log.error("cake with id not found {}", cakeId);
+            countNotFound("delete");
             throw new CakeNotFoundException();
+        }
+        tombstoneRepository.save(new CakeTombstone(cakeId, revision, Instant.now()));
+        eventPublisher.publishEvent(new CakeChangedEvent(CakeChangedEvent.Type.DELETED, cakeId, null, revision));
+    }
+
+    /**
+     * Applies a mixed list of creates, updates and deletes in one transaction. Update and delete
+     * targets are loaded with a single query, and the resulting deletes, updates and inserts are
+     * sent to the database in JDBC batches, in that order, so titles freed by earlier operations
+     * can be reused. Operations whose target does not exist are reported as {@code NOT_FOUND} and
+     * operations that would duplicate a title as {@code CONFLICT}; neither aborts the batch. Only
+     * available while the cakes are in the primary database, whose transaction the batch relies on.
+     */
+    @Transactional
+    @CacheEvict(cacheNames = CAKE_CACHE, allEntries = true)
+    public CakeBatchResponse applyBatch(CakeBatchRequest batchRequest) {
+        requirePrimaryDatabase("batch");
+        List<CakeBatchOperation> operations = batchRequest.getOperations() == null
+                ? List.of()
+                : batchRequest.getOperations();
+        if (operations.size() > MAX_BATCH_SIZE) {
+            throw new CakeBatchTooLargeException();
+        }
+
+        Set<Long> targetIds = operations.stream()
+                .filter(operation -> operation.getType() != null
+                        && operation.getType() != CakeBatchOperation.Type.CREATE
+                        && operation.getId() != null)
+                .map(CakeBatchOperation::getId)
+                .collect(toSet());
+        Map<Long, Cake> targets = cakeRepository.findAllById(targetIds).stream()
+                .collect(toMap(Cake::getId, identity()));
+
+        // owner of every title key the batch touches, as it evolves while the operations are applied
+        Map<String, Long> titleOwners = new HashMap<>();
+        Map<Long, String> targetTitleKeys = new HashMap<>();
+        targets.values().forEach(cake -> {
+            String titleKey = Cake.titleKey(cake.getTitle());
+            targetTitleKeys.put(cake.getId(), titleKey);
+            if (titleKey != null) {
+                titleOwners.put(titleKey, cake.getId());
+            }
         });
+        Set<String> batchTitleKeys = operations.stream()
+                .filter(operation -> operation.getType() == CakeBatchOperation.Type.CREATE
+                        || operation.getType() == CakeBatchOperation.Type.UPDATE)
+                .map(operation -> Cake.titleKey(operation.getTitle()))
+                .filter(Objects::nonNull)
+                .collect(toSet());
+        if (!batchTitleKeys.isEmpty()) {
+            cakeRepository.findByTitleKeyIn(batchTitleKeys)
+                    .forEach(cake -> titleOwners.putIfAbsent(Cake.titleKey(cake.getTitle()), cake.getId()));
+        }
+
+        CakeBatchResult[] results = new CakeBatchResult[operations.size()];
+        List<Cake> createdCakes = new ArrayList<>();
+        List<Integer> createdIndexes = new ArrayList<>();
+        Map<Long, CakeBatchOperation> updates = new LinkedHashMap<>();
+        List<Cake> deletedCakes = new ArrayList<>();
+        List<CakeChangedEvent> events = new ArrayList<>();
+
+        for (int index = 0; index < operations.size(); index++) {
+            CakeBatchOperation operation = operations.get(index);
+            if (operation.getType() == null) {
+                results[index] = new CakeBatchResult(index, null, operation.getId(), CakeBatchResult.Status.INVALID);
+                continue;
+            }
+
+            String titleKey = Cake.titleKey(operation.getTitle());
+            switch (operation.getType()) {
+                case CREATE:
+                    if (titleKey != null && titleOwners.containsKey(titleKey)) {
+                        results[index] = conflict(index, operation);
+                        break;
+                    }
+                    if (titleKey != null) {
+                        titleOwners.put(titleKey, NEW_CAKE_OWNER);
+                    }
+                    createdCakes.add(Cake.builder()
+                            .title(operation.getTitle())
+                            .description(operation.getDescription())
+                            .build());
+                    createdIndexes.add(index);
+                    break;
+                case UPDATE:
+                    Cake updatedCake = operation.getId() == null ? null : targets.get(operation.getId());
+                    if (updatedCake == null) {
+                        results[index] = notFound(index, operation);
+                        break;
+                    }
+                    Long titleOwner = titleKey == null ? null : titleOwners.get(titleKey);
+                    if (titleOwner != null && !titleOwner.equals(updatedCake.getId())) {
+                        results[index] = conflict(index, operation);
+                        break;
+                    }
+                    String previousTitleKey = targetTitleKeys.put(updatedCake.getId(), titleKey);
+                    if (previousTitleKey != null) {
+                        titleOwners.remove(previousTitleKey);
+                    }
+                    if (titleKey != null) {
+                        titleOwners.put(titleKey, updatedCake.getId());
+                    }
+                    updates.put(updatedCake.getId(), operation);
+                    results[index] = new CakeBatchResult(index, operation.getType(), updatedCake.getId(), CakeBatchResult.Status.UPDATED);
+                    break;
+                case DELETE:
+                    // removed from the targets so later operations on the same id are not found
+                    Cake deletedCake = operation.getId() == null ? null : targets.remove(operation.getId());
+                    if (deletedCake == null) {
+                        results[index] = notFound(index, operation);
+                        break;
+                    }
+                    String deletedTitleKey = targetTitleKeys.remove(deletedCake.getId());
+                    if (deletedTitleKey != null) {
+                        titleOwners.remove(deletedTitleKey);
+                    }
+                    updates.remove(deletedCake.getId());
+                    deletedCakes.add(deletedCake);
+                    results[index] = new CakeBatchResult(index, operation.getType(), deletedCake.getId(), CakeBatchResult.Status.DELETED);
+                    break;
+            }
+        }
+
+        // the whole batch is a single catalog revision; a batch that changes nothing does not take one
+        long revision = deletedCakes.isEmpty() && updates.isEmpty() && createdCakes.isEmpty() ? 0 : revisionService.next();
+        deletedCakes.forEach(cake -> events.add(new CakeChangedEvent(CakeChangedEvent.Type.DELETED, cake.getId(), null, revision)));
+        List<Cake> savedCakes;
+        try {
+            cakeRepository.deleteAll(deletedCakes);
+            cakeRepository.flush();
+            Instant deletedAt = Instant.now();
+            tombstoneRepository.saveAll(deletedCakes.stream()
+                    .map(cake -> new CakeTombstone(cake.getId(), revision, deletedAt))
+                    .toList());
+
+            // managed entities, sent as one batched update
+            updates.forEach((cakeId, operation) -> {
+                Cake updatedCake = targets.get(cakeId);
+                updatedCake.setTitle(operation.getTitle());
+                updatedCake.setDescription(operation.getDescription());
+                updatedCake.setRevision(revision);
+            });
+            cakeRepository.flush();
+            // after the flush, so the events carry the incremented versions
+            updates.keySet().forEach(cakeId -> events.add(
+                    new CakeChangedEvent(CakeChangedEvent.Type.UPDATED, cakeId, cakeResponse(targets.get(cakeId)), revision)));
+
+            createdCakes.forEach(cake -> cake.setRevision(revision));
+            savedCakes = cakeRepository.saveAll(createdCakes);
+            cakeRepository.flush();
+        } catch (DataIntegrityViolationException e) {
+            // only titles swapped between cakes of the same batch get here
+            log.error("cake batch rejected, conflicting titles", e);
+            throw new CakeTitleConflictException();
+        }
+
+        for (int created = 0; created < savedCakes.size(); created++) {
+            Cake savedCake = savedCakes.get(created);
+            int index = createdIndexes.get(created);
+            results[index] = new CakeBatchResult(index, CakeBatchOperation.Type.CREATE, savedCake.getId(), CakeBatchResult.Status.CREATED);
+            events.add(new CakeChangedEvent(CakeChangedEvent.Type.CREATED, savedCake.getId(), cakeResponse(savedCake), revision));
+        }
+
+        events.forEach(eventPublisher::publishEvent);
+        log.info("applied batch of {} operations: {} created, {} updated, {} deleted",
+                operations.size(), savedCakes.size(), updates.size(), deletedCakes.size());
+        return new CakeBatchResponse(List.of(results));
+    }
+
+    private CakeBatchResult notFound(int index, CakeBatchOperation operation) {
+        return new CakeBatchResult(index, operation.getType(), operation.getId(), CakeBatchResult.Status.NOT_FOUND);
+    }
+
+    private CakeBatchResult conflict(int index, CakeBatchOperation operation) {
+        return new CakeBatchResult(index, operation.getType(), operation.getId(), CakeBatchResult.Status.CONFLICT);
+    }
+
+    private CakeResponse insertUniqueTitle(Cake cake) {
+        try {
+            return cakeStore.insertAll(List.of(cake)).get(0);
+        } catch (DataIntegrityViolationException e) {
+            log.error("cake title already exists {}", cake.getTitle());
+            throw new CakeTitleConflictException();
+        }
+    }
+
+    private void requirePrimaryDatabase(String operation) {
+        if (!cakeStore.isPrimaryDatabase()) {
+            log.error("cake {} is not supported by the configured cake store", operation);
+            throw new CakeOperationNotSupportedException();
+        }
+    }
+
+    /**
+     * Counts {@link CakeNotFoundException}s by operation; the cake id is only logged, never used as a tag.
+     */
+    private void countNotFound(String operation) {
+        meterRegistry.counter(NOT_FOUND_METRIC, "operation", operation).increment();
     }
 
-    private CakeResponse cakeResponse(Cake cake) {
-        return new CakeResponse(cake.getId(), cake.getTitle(), cake.getDescription());
+    /**
+     * Entity to API model mapping, shared by every read and write path.
+     */
+    public static CakeResponse cakeResponse(Cake cake) {
+        return new CakeResponse(cake.getId(), cake.getTitle(), cake.getDescription(), cake.getVersion());
     }
 }
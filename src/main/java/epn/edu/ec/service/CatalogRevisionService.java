@@ -0,0 +1,92 @@
+package epn.edu.ec.service;
+
+import java.time.Duration;
+import java.time.Instant;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import epn.edu.ec.repository.CakeTombstoneRepository;
+import epn.edu.ec.repository.CatalogRevisionRepository;
+import epn.edu.ec.repository.model.CatalogRevision;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Owns the catalog revision stamped on every changed cake and tombstone, and compacts tombstones
+ * older than {@code cakes.delta.tombstone-retention}. Deltas starting before the newest compacted
+ * tombstone can no longer report every deletion, so {@link #current()} exposes that bound.
+ */
+@Slf4j
+@Service
+public class CatalogRevisionService {
+    private final CatalogRevisionRepository revisionRepository;
+    private final CakeTombstoneRepository tombstoneRepository;
+    private final Duration tombstoneRetention;
+
+    public CatalogRevisionService(CatalogRevisionRepository revisionRepository,
+                                  CakeTombstoneRepository tombstoneRepository,
+                                  @Value("${cakes.delta.tombstone-retention:P7D}") Duration tombstoneRetention) {
+        this.revisionRepository = revisionRepository;
+        this.tombstoneRepository = tombstoneRepository;
+        this.tombstoneRetention = tombstoneRetention;
+    }
+
+    /**
+     * Creates the counter before the populator and the API can write.
+     */
+    @EventListener(ContextRefreshedEvent.class)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @Transactional
+    public void createCounter() {
+        if (!revisionRepository.existsById(CatalogRevision.CATALOG)) {
+            revisionRepository.save(new CatalogRevision(CatalogRevision.CATALOG, 0, 0));
+        }
+    }
+
+    /**
+     * Takes the revision of a change made in the calling transaction. The counter row stays locked
+     * until that transaction ends, so concurrent writers commit in revision order.
+     */
+    @Transactional
+    public long next() {
+        revisionRepository.increment(CatalogRevision.CATALOG);
+        return revisionRepository.findRevision(CatalogRevision.CATALOG);
+    }
+
+    /**
+     * Takes a revision for a catalog replaced as a whole, which no earlier delta can describe.
+     */
+    @Transactional
+    public long reset() {
+        long revision = next();
+        revisionRepository.advanceCompactedRevision(CatalogRevision.CATALOG, revision);
+        tombstoneRepository.deleteAllInBatch();
+        return revision;
+    }
+
+    @Transactional(readOnly = true)
+    public CatalogRevision current() {
+        return revisionRepository.findById(CatalogRevision.CATALOG)
+                .orElseGet(() -> new CatalogRevision(CatalogRevision.CATALOG, 0, 0));
+    }
+
+    @Scheduled(fixedDelayString = "${cakes.delta.compaction-interval:PT1H}")
+    @Transactional
+    public void compactTombstones() {
+        Instant before = Instant.now().minus(tombstoneRetention);
+        Long compactedRevision = tombstoneRepository.findMaxRevisionDeletedBefore(before);
+        if (compactedRevision == null) {
+            return;
+        }
+
+        int compacted = tombstoneRepository.deleteDeletedBefore(before);
+        revisionRepository.advanceCompactedRevision(CatalogRevision.CATALOG, compactedRevision);
+        log.info("compacted {} cake tombstones, deltas now start at revision {}", compacted, compactedRevision);
+    }
+}
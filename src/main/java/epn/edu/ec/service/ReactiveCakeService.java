@@ -0,0 +1,122 @@
+package epn.edu.ec.service;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+
+import epn.edu.ec.event.CakeChangedEvent;
+import epn.edu.ec.exception.CakeNotFoundException;
+import epn.edu.ec.exception.CakeTitleConflictException;
+import epn.edu.ec.model.cake.CakeResponse;
+import epn.edu.ec.model.cake.CakesResponse;
+import epn.edu.ec.model.cake.CreateCakeRequest;
+import epn.edu.ec.model.cake.UpdateCakeRequest;
+import epn.edu.ec.repository.ReactiveCakeRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Non-blocking counterpart of {@link CakeService} over {@link ReactiveCakeRepository}. Writes publish
+ * the same {@link CakeChangedEvent}s and evict the same cache entries, so the catalog snapshot,
+ * the search index and the blocking API see them as well.
+ */
+@RequiredArgsConstructor
+@Slf4j
+@Service
+@ConditionalOnExpression("'${cakes.store.type:jpa}' != 'sharded'")
+public class ReactiveCakeService {
+    private final ReactiveCakeRepository cakeRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final CacheManager cacheManager;
+    private final MeterRegistry meterRegistry;
+
+    public Flux<CakeResponse> getCakes() {
+        return cakeRepository.findAll();
+    }
+
+    public Mono<CakesResponse> getCakes(int limit, String after) {
+        int pageSize = Math.max(1, Math.min(limit, CakeService.MAX_PAGE_SIZE));
+        // one extra row tells whether there is a next page without a count query
+        Flux<CakeResponse> cakes;
+        if (after == null) {
+            cakes = cakeRepository.findFirstPage(pageSize + 1);
+        } else {
+            CakeCursor cursor;
+            try {
+                cursor = CakeCursor.decode(after);
+            } catch (RuntimeException e) {
+                return Mono.error(e);
+            }
+            cakes = cakeRepository.findPageAfter(cursor.getTitle(), cursor.getId(), pageSize + 1);
+        }
+
+        return cakes.collectList().map(pageCakes -> {
+            if (pageCakes.size() <= pageSize) {
+                return new CakesResponse(pageCakes);
+            }
+            CakeResponse last = pageCakes.get(pageSize - 1);
+            return new CakesResponse(pageCakes.subList(0, pageSize), new CakeCursor(last.getTitle(), last.getId()).encode());
+        });
+    }
+
+    public Mono<CakeResponse> getCakeById(long cakeId) {
+        return cakeRepository.findById(cakeId)
+                .switchIfEmpty(notFound(cakeId, "get"));
+    }
+
+    public Mono<CakeResponse> createCake(CreateCakeRequest createCakeRequest) {
+        return cakeRepository.insert(createCakeRequest.getTitle(), createCakeRequest.getDescription())
+                .onErrorMap(DataIntegrityViolationException.class, e -> titleConflict(createCakeRequest.getTitle()))
+                .doOnNext(write -> eventPublisher.publishEvent(new CakeChangedEvent(CakeChangedEvent.Type.CREATED,
+                        write.cake().getId(), write.cake(), write.revision())))
+                .map(ReactiveCakeRepository.Write::cake);
+    }
+
+    public Mono<Void> updateCake(long cakeId, UpdateCakeRequest updateCakeRequest) {
+        return cakeRepository.update(cakeId, updateCakeRequest.getTitle(), updateCakeRequest.getDescription())
+                .onErrorMap(DataIntegrityViolationException.class, e -> titleConflict(updateCakeRequest.getTitle()))
+                .switchIfEmpty(notFound(cakeId, "update"))
+                .doOnNext(write -> {
+                    evict(cakeId);
+                    eventPublisher.publishEvent(new CakeChangedEvent(CakeChangedEvent.Type.UPDATED, cakeId,
+                            write.cake(), write.revision()));
+                })
+                .then();
+    }
+
+    public Mono<Void> deleteCake(long cakeId) {
+        return cakeRepository.deleteById(cakeId)
+                .switchIfEmpty(notFound(cakeId, "delete"))
+                .doOnNext(revision -> {
+                    evict(cakeId);
+                    eventPublisher.publishEvent(new CakeChangedEvent(CakeChangedEvent.Type.DELETED, cakeId, null, revision));
+                })
+                .then();
+    }
+
+    private <T> Mono<T> notFound(long cakeId, String operation) {
+        return Mono.error(() -> {
+            log.error("cake with id not found {}", cakeId);
+            meterRegistry.counter(CakeService.NOT_FOUND_METRIC, "operation", operation).increment();
+            return new CakeNotFoundException();
+        });
+    }
+
+    private CakeTitleConflictException titleConflict(String title) {
+        log.error("cake title already exists {}", title);
+        return new CakeTitleConflictException();
+    }
+
+    private void evict(long cakeId) {
+        Cache cache = cacheManager.getCache(CakeService.CAKE_CACHE);
+        if (cache != null) {
+            cache.evict(cakeId);
+        }
+    }
+}
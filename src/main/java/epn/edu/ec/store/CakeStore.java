@@ -0,0 +1,87 @@
+package epn.edu.ec.store;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+import epn.edu.ec.model.cake.CakeQuery;
+import epn.edu.ec.model.cake.CakeResponse;
+import epn.edu.ec.repository.model.Cake;
+
+/**
+ * Where {@code CakeService} and the populator keep cakes, selected with {@code cakes.store.type}:
+ * <ul>
+ * <li>{@code jpa} ({@link JpaCakeStore}, the default) - the cakes table of the primary database</li>
+ * <li>{@code compact} ({@link CompactCakeStore}) - writes go to the primary database, reads are
+ * answered from an in-process copy of the catalog</li>
+ * <li>{@code sharded} ({@link ShardedCakeStore}) - cakes are spread over several databases</li>
+ * </ul>
+ * Title conflicts surface as {@link org.springframework.dao.DataIntegrityViolationException}.
+ */
+public interface CakeStore {
+
+    /**
+     * Every cake ordered by {@code (title, id)}.
+     */
+    List<CakeResponse> findAll();
+
+    List<CakeResponse> findFirstPage(int limit);
+
+    /**
+     * At most {@code limit} cakes ordered by {@code (title, id)}, starting right after the given one.
+     * Cakes without a title come first, so a {@code null} title continues with the rest of them.
+     */
+    List<CakeResponse> findPageAfter(String title, long id, int limit);
+
+    /**
+     * At most {@code limit} cakes matching the filters of the query, in its order.
+     */
+    List<CakeResponse> find(CakeQuery query, int limit);
+
+    Optional<CakeResponse> findById(long id);
+
+    Optional<CakeResponse> findByTitleKey(String titleKey);
+
+    /**
+     * Cakes created or updated after the given catalog revision.
+     */
+    List<CakeResponse> findChangedSince(long since);
+
+    /**
+     * The given title keys that some cake already has.
+     */
+    List<String> findExistingTitleKeys(Collection<String> titleKeys);
+
+    long count();
+
+    /**
+     * Inserts new cakes, with their title, description and revision, and returns them with their
+     * generated ids, in order.
+     */
+    List<CakeResponse> insertAll(List<Cake> cakes);
+
+    /**
+     * Replaces the title and description of a cake and increments its version; with an
+     * {@code expectedVersion} only while the cake is still at that version.
+     *
+     * @return the new version, empty when there is no such cake, or not at that version
+     */
+    Optional<Long> update(long id, Long expectedVersion, String title, String description, long revision);
+
+    boolean exists(long id);
+
+    /**
+     * @return false when there is no cake with that id
+     */
+    boolean delete(long id);
+
+    void deleteAll();
+
+    /**
+     * Whether the cakes are rows of the primary database, which the batch and export endpoints and
+     * the reactive API work on directly.
+     */
+    default boolean isPrimaryDatabase() {
+        return true;
+    }
+}
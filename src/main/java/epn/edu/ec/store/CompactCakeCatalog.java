@@ -0,0 +1,625 @@
+package epn.edu.ec.store;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.function.Predicate;
+
+import epn.edu.ec.model.cake.CakeResponse;
+import epn.edu.ec.repository.model.Cake;
+
+/**
+ * The cake catalog in primitive arrays: one record of five {@code long}s per cake (id, version,
+ * catalog revision of its last change and references to its title and description in a
+ * {@link Utf8Arena}), an open-addressing id table
+ * ({@code long} keys, no boxing), a title key table and the record order by {@code (title, id)}.
+ * <p>
+ * Readers never lock: every operation reads one immutable {@link Generation}. The single writer
+ * ({@link #apply}, {@link #load}) copies the tables it changes, appends new records and strings
+ * past the ones published, and publishes the next generation through a volatile field. Changing
+ * {@code k} cakes costs {@code O(n)} array copies plus {@code O(k log n)} title comparisons, which
+ * suits a read-mostly catalog. Records and strings of replaced cakes are garbage until the catalog
+ * is rebuilt, which happens once there are more of them than live cakes.
+ * <p>
+ * Changes carry their catalog revision and may arrive out of order. A change older than the one
+ * already applied to a cake is ignored, as is any change up to the revision the catalog was loaded
+ * at. Removed ids stay in the id table as tombstones until the next {@link #load}, so a late update
+ * cannot bring a removed cake back; ids are never reused.
+ * <p>
+ * Ids must be positive, as generated by the database.
+ */
+public class CompactCakeCatalog {
+    private static final int RECORD_LONGS = 5;
+    private static final int ID = 0;
+    private static final int VERSION = 1;
+    private static final int REVISION = 2;
+    private static final int TITLE = 3;
+    private static final int DESCRIPTION = 4;
+    private static final long NO_VERSION = Long.MIN_VALUE;
+    // id table slot of a removed cake
+    private static final int TOMBSTONE = -2;
+    private static final int MIN_REBUILD_GARBAGE = 1024;
+
+    private static final int SNAPSHOT_MAGIC = 0x43414B45;
+    private static final int SNAPSHOT_FORMAT = 1;
+
+    // the ordering of the database: ORDER BY title, id with NULL titles first
+    private static final Comparator<String> TITLE_ORDER = Comparator.nullsFirst(Comparator.naturalOrder());
+    private static final Comparator<CakeResponse> CAKE_ORDER = Comparator
+            .comparing(CakeResponse::getTitle, TITLE_ORDER)
+            .thenComparingLong(CakeResponse::getId);
+
+    private final boolean offHeap;
+    private volatile Generation generation;
+
+    // writer state, guarded by this
+    private Utf8Arena arena;
+    private int garbageRecords;
+    private int tombstones;
+    private long loadedRevision;
+
+    public CompactCakeCatalog(boolean offHeap) {
+        this.offHeap = offHeap;
+        load(List.of(), 0);
+    }
+
+    public int size() {
+        return generation.order.length;
+    }
+
+    /**
+     * Bytes of every array and string chunk of the current generation, garbage included.
+     */
+    public long memoryBytes() {
+        return generation.memoryBytes;
+    }
+
+    public Optional<CakeResponse> findById(long id) {
+        Generation current = generation;
+        int slot = current.slotOf(id);
+        return slot < 0 ? Optional.empty() : Optional.of(current.cake(slot));
+    }
+
+    public Optional<CakeResponse> findByTitleKey(String titleKey) {
+        Generation current = generation;
+        int slot = current.slotOfTitleKey(titleKey);
+        return slot < 0 ? Optional.empty() : Optional.of(current.cake(slot));
+    }
+
+    /**
+     * Every cake ordered by {@code (title, id)}.
+     */
+    public List<CakeResponse> findAll() {
+        Generation current = generation;
+        return current.cakes(0, current.order.length);
+    }
+
+    public List<CakeResponse> findFirstPage(int limit) {
+        Generation current = generation;
+        return current.cakes(0, Math.min(limit, current.order.length));
+    }
+
+    /**
+     * At most {@code limit} cakes ordered by {@code (title, id)}, starting right after the given one.
+     */
+    public List<CakeResponse> findPageAfter(String title, long id, int limit) {
+        Generation current = generation;
+        int from = current.upperBound(title, id);
+        return current.cakes(from, Math.min(from + limit, current.order.length));
+    }
+
+    /**
+     * At most {@code limit} cakes accepted by the filter, ordered by {@code (title, id)}, starting
+     * right after the given cake when {@code afterId} is set. Only accepted cakes are kept.
+     */
+    public List<CakeResponse> findMatching(String afterTitle, Long afterId, Predicate<CakeResponse> filter, int limit) {
+        Generation current = generation;
+        List<CakeResponse> cakes = new ArrayList<>(Math.min(limit, 1024));
+        for (int i = afterId == null ? 0 : current.upperBound(afterTitle, afterId);
+             i < current.order.length && cakes.size() < limit; i++) {
+            CakeResponse cake = current.cake(current.order[i]);
+            if (filter.test(cake)) {
+                cakes.add(cake);
+            }
+        }
+        return cakes;
+    }
+
+    /**
+     * The first {@code limit} cakes accepted by the filter in the given order. Matches go through a
+     * heap bounded to {@code limit} cakes, so a query holds no more than the page it returns.
+     */
+    public List<CakeResponse> findFirstMatching(Predicate<CakeResponse> filter, Comparator<CakeResponse> order, int limit) {
+        if (limit <= 0) {
+            return List.of();
+        }
+        Generation current = generation;
+        // the largest of the kept cakes on top, the first to give way to a smaller match
+        PriorityQueue<CakeResponse> first = new PriorityQueue<>(Math.min(limit, 1024) + 1, order.reversed());
+        for (int i = 0; i < current.order.length; i++) {
+            CakeResponse cake = current.cake(current.order[i]);
+            if (!filter.test(cake)) {
+                continue;
+            }
+            if (first.size() < limit) {
+                first.add(cake);
+            } else if (order.compare(cake, first.peek()) < 0) {
+                first.poll();
+                first.add(cake);
+            }
+        }
+        List<CakeResponse> cakes = new ArrayList<>(first);
+        cakes.sort(order);
+        return cakes;
+    }
+
+    /**
+     * Replaces the whole catalog with the cakes read at the given catalog revision; changes up to
+     * that revision are already in them and ignored from now on.
+     */
+    public synchronized void load(Collection<CakeResponse> cakes, long revision) {
+        List<CakeResponse> sorted = new ArrayList<>(cakes);
+        sorted.sort(CAKE_ORDER);
+        long[] revisions = new long[sorted.size()];
+        Arrays.fill(revisions, revision);
+        build(sorted, revisions, new long[0]);
+        loadedRevision = revision;
+    }
+
+    public void put(CakeResponse cake, long revision) {
+        apply(List.of(cake), List.of(), revision);
+    }
+
+    public void remove(long id, long revision) {
+        apply(List.of(), List.of(id), revision);
+    }
+
+    /**
+     * Removes and then creates or replaces cakes, all changed at the given catalog revision, in one
+     * new generation. Changes older than the ones already applied are ignored.
+     */
+    public synchronized void apply(Collection<CakeResponse> upserts, Collection<Long> removedIds, long revision) {
+        if (revision <= loadedRevision) {
+            return;
+        }
+        Generation current = generation;
+        int live = current.order.length;
+        int capacity = tableCapacity(live + tombstones + removedIds.size() + upserts.size());
+        Tables tables = capacity > current.tables.ids.length
+                ? current.tables.rehash(capacity)
+                : current.tables.copy();
+        long[] records = current.records;
+        int recordCount = current.recordCount;
+        BitSet dropped = new BitSet(recordCount);
+
+        for (long id : removedIds) {
+            int slot = tables.slotOf(id);
+            if (slot == TOMBSTONE || slot >= 0 && records[slot * RECORD_LONGS + REVISION] > revision) {
+                continue;
+            }
+            tables.putId(id, TOMBSTONE);
+            tombstones++;
+            if (slot >= 0) {
+                tables.removeTitle(titleKey(records, slot), slot);
+                dropped.set(slot);
+                garbageRecords++;
+            }
+        }
+
+        List<CakeResponse> inserted = new ArrayList<>(upserts.size());
+        int[] insertedSlots = new int[upserts.size()];
+        for (CakeResponse cake : upserts) {
+            int previous = tables.slotOf(cake.getId());
+            if (previous == TOMBSTONE) {
+                continue;
+            }
+            if (previous >= 0) {
+                if (records[previous * RECORD_LONGS + REVISION] > revision) {
+                    continue;
+                }
+                tables.removeTitle(titleKey(records, previous), previous);
+                dropped.set(previous);
+                garbageRecords++;
+            }
+
+            if ((recordCount + 1) * RECORD_LONGS > records.length) {
+                // older generations keep reading the array they were published with
+                records = Arrays.copyOf(records, records.length * 2);
+            }
+            int slot = recordCount++;
+            writeRecord(records, slot, arena, cake, revision);
+            tables.putId(cake.getId(), slot);
+            tables.putTitle(Cake.titleKey(cake.getTitle()), slot);
+            insertedSlots[inserted.size()] = slot;
+            inserted.add(cake);
+        }
+
+        // records replaced again within this batch are dropped too
+        List<int[]> kept = new ArrayList<>(inserted.size());
+        for (int i = 0; i < inserted.size(); i++) {
+            if (!dropped.get(insertedSlots[i])) {
+                kept.add(new int[] {i, insertedSlots[i]});
+            }
+        }
+        kept.sort((a, b) -> CAKE_ORDER.compare(inserted.get(a[0]), inserted.get(b[0])));
+
+        Generation next = new Generation(arena, records, recordCount, tables,
+                merge(current, records, dropped, kept));
+        generation = next;
+
+        if (garbageRecords > Math.max(MIN_REBUILD_GARBAGE, next.order.length)) {
+            rebuild();
+        }
+    }
+
+    /**
+     * Writes every cake, in {@code (title, id)} order, for {@link #readFrom}.
+     */
+    public void writeTo(DataOutput out) throws IOException {
+        Generation current = generation;
+        out.writeInt(SNAPSHOT_MAGIC);
+        out.writeInt(SNAPSHOT_FORMAT);
+        out.writeInt(current.order.length);
+        for (int slot : current.order) {
+            int base = slot * RECORD_LONGS;
+            out.writeLong(current.records[base + ID]);
+            out.writeLong(current.records[base + VERSION]);
+            writeString(out, current.chunks, current.records[base + TITLE]);
+            writeString(out, current.chunks, current.records[base + DESCRIPTION]);
+        }
+    }
+
+    /**
+     * Replaces the catalog with one written by {@link #writeTo} at the given catalog revision.
+     */
+    public void readFrom(DataInput in, long revision) throws IOException {
+        if (in.readInt() != SNAPSHOT_MAGIC || in.readInt() != SNAPSHOT_FORMAT) {
+            throw new IOException("not a cake catalog snapshot");
+        }
+        int count = in.readInt();
+        List<CakeResponse> cakes = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            long id = in.readLong();
+            long version = in.readLong();
+            cakes.add(new CakeResponse(id, readString(in), readString(in), version == NO_VERSION ? null : version));
+        }
+        load(cakes, revision);
+    }
+
+    /**
+     * Drops the garbage records and strings, keeping the revisions and tombstones.
+     */
+    private void rebuild() {
+        Generation current = generation;
+        long[] revisions = new long[current.order.length];
+        for (int i = 0; i < revisions.length; i++) {
+            revisions[i] = current.records[current.order[i] * RECORD_LONGS + REVISION];
+        }
+        long[] ids = current.tables.ids;
+        long[] removedIds = new long[tombstones];
+        for (int i = 0, removed = 0; i < ids.length; i++) {
+            if (ids[i] != 0 && current.tables.idSlots[i] == TOMBSTONE) {
+                removedIds[removed++] = ids[i];
+            }
+        }
+        build(current.cakes(0, current.order.length), revisions, removedIds);
+    }
+
+    /**
+     * Publishes a new generation with fresh arrays and strings.
+     *
+     * @param sorted the live cakes, ordered by {@code (title, id)}
+     */
+    private void build(List<CakeResponse> sorted, long[] revisions, long[] removedIds) {
+        Utf8Arena newArena = new Utf8Arena(offHeap);
+        Tables tables = new Tables(tableCapacity(sorted.size() + removedIds.length));
+        long[] records = new long[(sorted.size() + sorted.size() / 8 + 16) * RECORD_LONGS];
+        int[] order = new int[sorted.size()];
+        for (int slot = 0; slot < sorted.size(); slot++) {
+            CakeResponse cake = sorted.get(slot);
+            writeRecord(records, slot, newArena, cake, revisions[slot]);
+            tables.putId(cake.getId(), slot);
+            tables.putTitle(Cake.titleKey(cake.getTitle()), slot);
+            order[slot] = slot;
+        }
+        for (long id : removedIds) {
+            tables.putId(id, TOMBSTONE);
+        }
+
+        arena = newArena;
+        garbageRecords = 0;
+        tombstones = removedIds.length;
+        generation = new Generation(newArena, records, sorted.size(), tables, order);
+    }
+
+    private int[] merge(Generation current, long[] records, BitSet dropped, List<int[]> inserted) {
+        int[] order = current.order;
+        int[] merged = new int[order.length - countDropped(order, dropped) + inserted.size()];
+        int next = 0;
+        int from = 0;
+        for (int[] entry : inserted) {
+            int slot = entry[1];
+            int at = Generation.upperBound(order, records, arena.chunks(), title(records, arena.chunks(), slot),
+                    records[slot * RECORD_LONGS + ID]);
+            next = copyLive(order, from, at, dropped, merged, next);
+            merged[next++] = slot;
+            from = at;
+        }
+        copyLive(order, from, order.length, dropped, merged, next);
+        return merged;
+    }
+
+    private static int copyLive(int[] order, int from, int to, BitSet dropped, int[] merged, int next) {
+        for (int i = from; i < to; i++) {
+            if (!dropped.get(order[i])) {
+                merged[next++] = order[i];
+            }
+        }
+        return next;
+    }
+
+    private static int countDropped(int[] order, BitSet dropped) {
+        int count = 0;
+        for (int slot : order) {
+            if (dropped.get(slot)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private String titleKey(long[] records, int slot) {
+        return Cake.titleKey(title(records, arena.chunks(), slot));
+    }
+
+    private static String title(long[] records, ByteBuffer[] chunks, int slot) {
+        return Utf8Arena.decode(chunks, records[slot * RECORD_LONGS + TITLE]);
+    }
+
+    private static void writeRecord(long[] records, int slot, Utf8Arena arena, CakeResponse cake, long revision) {
+        if (cake.getId() <= 0) {
+            throw new IllegalArgumentException("cake ids must be positive: " + cake.getId());
+        }
+        int base = slot * RECORD_LONGS;
+        records[base + ID] = cake.getId();
+        records[base + VERSION] = cake.getVersion() == null ? NO_VERSION : cake.getVersion();
+        records[base + REVISION] = revision;
+        records[base + TITLE] = arena.add(cake.getTitle());
+        records[base + DESCRIPTION] = arena.add(cake.getDescription());
+    }
+
+    private static void writeString(DataOutput out, ByteBuffer[] chunks, long ref) throws IOException {
+        String value = Utf8Arena.decode(chunks, ref);
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInput in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, UTF_8);
+    }
+
+    /**
+     * Power of two keeping the tables at most half full.
+     */
+    private static int tableCapacity(int entries) {
+        int capacity = 16;
+        while (capacity < entries * 2) {
+            capacity <<= 1;
+        }
+        return capacity;
+    }
+
+    /**
+     * The id and title key tables, mutable while the writer prepares a generation.
+     */
+    private static final class Tables {
+        final long[] ids;
+        final int[] idSlots;
+        // hash of the title key and record slot + 1 (0 = empty) of every cake with a title
+        final int[] titleHashes;
+        final int[] titleSlots;
+
+        Tables(int capacity) {
+            this(new long[capacity], new int[capacity], new int[capacity], new int[capacity]);
+        }
+
+        Tables(long[] ids, int[] idSlots, int[] titleHashes, int[] titleSlots) {
+            this.ids = ids;
+            this.idSlots = idSlots;
+            this.titleHashes = titleHashes;
+            this.titleSlots = titleSlots;
+        }
+
+        Tables copy() {
+            return new Tables(ids.clone(), idSlots.clone(), titleHashes.clone(), titleSlots.clone());
+        }
+
+        Tables rehash(int capacity) {
+            Tables tables = new Tables(capacity);
+            for (int i = 0; i < ids.length; i++) {
+                if (ids[i] != 0) {
+                    tables.putId(ids[i], idSlots[i]);
+                }
+                if (titleSlots[i] != 0) {
+                    tables.insertTitle(titleHashes[i], titleSlots[i] - 1);
+                }
+            }
+            return tables;
+        }
+
+        /**
+         * @return the record slot, {@link #TOMBSTONE} for a removed id, -1 for an unknown one
+         */
+        int slotOf(long id) {
+            int mask = ids.length - 1;
+            for (int i = Utf8Arena.mix(id) & mask; ids[i] != 0; i = (i + 1) & mask) {
+                if (ids[i] == id) {
+                    return idSlots[i];
+                }
+            }
+            return -1;
+        }
+
+        void putId(long id, int slot) {
+            int mask = ids.length - 1;
+            int i = Utf8Arena.mix(id) & mask;
+            while (ids[i] != 0 && ids[i] != id) {
+                i = (i + 1) & mask;
+            }
+            ids[i] = id;
+            idSlots[i] = slot;
+        }
+
+        void putTitle(String titleKey, int slot) {
+            if (titleKey != null) {
+                insertTitle(titleKey.hashCode(), slot);
+            }
+        }
+
+        void insertTitle(int hash, int slot) {
+            int mask = titleSlots.length - 1;
+            int i = Utf8Arena.mix(hash) & mask;
+            while (titleSlots[i] != 0) {
+                i = (i + 1) & mask;
+            }
+            titleHashes[i] = hash;
+            titleSlots[i] = slot + 1;
+        }
+
+        void removeTitle(String titleKey, int slot) {
+            if (titleKey == null) {
+                return;
+            }
+            int mask = titleSlots.length - 1;
+            int gap = Utf8Arena.mix(titleKey.hashCode()) & mask;
+            while (titleSlots[gap] != slot + 1) {
+                if (titleSlots[gap] == 0) {
+                    return;
+                }
+                gap = (gap + 1) & mask;
+            }
+            for (int i = (gap + 1) & mask; titleSlots[i] != 0; i = (i + 1) & mask) {
+                int home = Utf8Arena.mix(titleHashes[i]) & mask;
+                if (((i - home) & mask) >= ((i - gap) & mask)) {
+                    titleHashes[gap] = titleHashes[i];
+                    titleSlots[gap] = titleSlots[i];
+                    gap = i;
+                }
+            }
+            titleHashes[gap] = 0;
+            titleSlots[gap] = 0;
+        }
+    }
+
+    /**
+     * A published, never modified state of the catalog. The record array and string chunks may be
+     * shared with later generations, which only append past {@link #recordCount}.
+     */
+    private static final class Generation {
+        final ByteBuffer[] chunks;
+        final long[] records;
+        final int recordCount;
+        final Tables tables;
+        // record slots of the live cakes, ordered by (title, id)
+        final int[] order;
+        final long memoryBytes;
+
+        Generation(Utf8Arena arena, long[] records, int recordCount, Tables tables, int[] order) {
+            this.chunks = arena.chunks();
+            this.records = records;
+            this.recordCount = recordCount;
+            this.tables = tables;
+            this.order = order;
+            this.memoryBytes = (long) records.length * Long.BYTES
+                    + (long) tables.ids.length * (Long.BYTES + 3 * Integer.BYTES)
+                    + (long) order.length * Integer.BYTES
+                    + arena.memoryBytes();
+        }
+
+        int slotOf(long id) {
+            return tables.slotOf(id);
+        }
+
+        int slotOfTitleKey(String titleKey) {
+            if (titleKey == null) {
+                return -1;
+            }
+            int hash = titleKey.hashCode();
+            int[] titleHashes = tables.titleHashes;
+            int[] titleSlots = tables.titleSlots;
+            int mask = titleSlots.length - 1;
+            for (int i = Utf8Arena.mix(hash) & mask; titleSlots[i] != 0; i = (i + 1) & mask) {
+                int slot = titleSlots[i] - 1;
+                if (titleHashes[i] == hash && titleKey.equals(Cake.titleKey(title(records, chunks, slot)))) {
+                    return slot;
+                }
+            }
+            return -1;
+        }
+
+        CakeResponse cake(int slot) {
+            int base = slot * RECORD_LONGS;
+            long version = records[base + VERSION];
+            return new CakeResponse(records[base + ID],
+                    Utf8Arena.decode(chunks, records[base + TITLE]),
+                    Utf8Arena.decode(chunks, records[base + DESCRIPTION]),
+                    version == NO_VERSION ? null : version);
+        }
+
+        List<CakeResponse> cakes(int from, int to) {
+            List<CakeResponse> cakes = new ArrayList<>(Math.max(0, to - from));
+            for (int i = from; i < to; i++) {
+                cakes.add(cake(order[i]));
+            }
+            return cakes;
+        }
+
+        int upperBound(String title, long id) {
+            return upperBound(order, records, chunks, title, id);
+        }
+
+        /**
+         * Index of the first entry of {@code order} after {@code (title, id)}.
+         */
+        static int upperBound(int[] order, long[] records, ByteBuffer[] chunks, String title, long id) {
+            int low = 0;
+            int high = order.length;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                int slot = order[middle];
+                int comparison = TITLE_ORDER.compare(title(records, chunks, slot), title);
+                if (comparison == 0) {
+                    comparison = Long.compare(records[slot * RECORD_LONGS + ID], id);
+                }
+                if (comparison <= 0) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            return low;
+        }
+    }
+}
@@ -0,0 +1,280 @@
+package epn.edu.ec.store;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import epn.edu.ec.event.CakeCatalogPopulatedEvent;
+import epn.edu.ec.event.CakeChangedEvent;
+import epn.edu.ec.model.cake.CakeQuery;
+import epn.edu.ec.model.cake.CakeResponse;
+import epn.edu.ec.repository.CakeRepository;
+import epn.edu.ec.repository.CatalogMetadataRepository;
+import epn.edu.ec.repository.model.Cake;
+import epn.edu.ec.repository.model.CatalogMetadata;
+import epn.edu.ec.service.CatalogRevisionService;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Serves reads from a {@link CompactCakeCatalog}, loaded once the catalog has been populated and
+ * then kept up to date from committed {@link CakeChangedEvent}s, like the search index. The
+ * database stays the system of record: writes, and the reads they depend on, go to it through a
+ * {@link JpaCakeStore}. Changes committed while the catalog is being loaded are held back and
+ * applied after it, where the catalog ignores the ones already read.
+ * <p>
+ * With {@code cakes.store.compact.snapshot-file} set, the catalog is written to that file on
+ * shutdown and read back on the next start instead of querying the database, as long as the
+ * database is still the one it was taken from (an id stored as {@link CatalogMetadata}) and at the
+ * same catalog revision. {@code cakes.store.compact.off-heap=true} keeps the strings in direct
+ * buffers, outside the garbage-collected heap.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "cakes.store.type", havingValue = "compact")
+public class CompactCakeStore implements CakeStore {
+    public static final String CAKES_METRIC = "cakes.store.cakes";
+    public static final String MEMORY_METRIC = "cakes.store.memory";
+    static final String EPOCH_METADATA = "compact-store.epoch";
+
+    private final CakeRepository cakeRepository;
+    private final JpaCakeStore database;
+    private final CatalogMetadataRepository catalogMetadataRepository;
+    private final CatalogRevisionService revisionService;
+    private final Path snapshotFile;
+    private final CompactCakeCatalog catalog;
+
+    // changes received while the catalog loads, guarded by this
+    private List<CakeChangedEvent> pendingChanges;
+
+    public CompactCakeStore(CakeRepository cakeRepository,
+                            CatalogMetadataRepository catalogMetadataRepository,
+                            CatalogRevisionService revisionService,
+                            @Value("${cakes.store.compact.off-heap:false}") boolean offHeap,
+                            @Value("${cakes.store.compact.snapshot-file:}") String snapshotFile,
+                            MeterRegistry meterRegistry) {
+        this.cakeRepository = cakeRepository;
+        this.database = new JpaCakeStore(cakeRepository);
+        this.catalogMetadataRepository = catalogMetadataRepository;
+        this.revisionService = revisionService;
+        this.snapshotFile = snapshotFile.isBlank() ? null : Path.of(snapshotFile);
+        this.catalog = new CompactCakeCatalog(offHeap);
+        Gauge.builder(CAKES_METRIC, catalog, CompactCakeCatalog::size).register(meterRegistry);
+        Gauge.builder(MEMORY_METRIC, catalog, CompactCakeCatalog::memoryBytes)
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Runs before the other listeners, such as the search index, which read the catalog from here.
+     */
+    @EventListener
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void onCatalogPopulated(CakeCatalogPopulatedEvent event) {
+        long start = System.nanoTime();
+        synchronized (this) {
+            pendingChanges = new ArrayList<>();
+        }
+        String source = "snapshot " + snapshotFile;
+        if (!restoreSnapshot()) {
+            source = "database";
+            // read first: every change up to this revision has committed and is in the cakes read next
+            long revision = revisionService.current().getRevision();
+            catalog.load(cakeRepository.findAllResponses(), revision);
+        }
+        List<CakeChangedEvent> changes;
+        synchronized (this) {
+            changes = pendingChanges;
+            pendingChanges = null;
+        }
+        changes.forEach(this::apply);
+        log.info("compact cake store loaded {} cakes ({} bytes) from the {} in {} ms, {} changes held back",
+                catalog.size(), catalog.memoryBytes(), source, (System.nanoTime() - start) / 1_000_000, changes.size());
+    }
+
+    /**
+     * Runs before the other after-commit listeners, in particular the one invalidating the
+     * {@code CakeCatalogSnapshot}, so a snapshot rebuilt right after that already sees the change.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void onCakeChanged(CakeChangedEvent event) {
+        synchronized (this) {
+            if (pendingChanges != null) {
+                pendingChanges.add(event);
+                return;
+            }
+        }
+        apply(event);
+    }
+
+    /**
+     * Runs after the web server has stopped, so no more changes are being applied.
+     */
+    @PreDestroy
+    public void writeSnapshot() {
+        if (snapshotFile == null) {
+            return;
+        }
+        try {
+            Path temporaryFile = Files.createTempFile(snapshotFile.toAbsolutePath().getParent(),
+                    snapshotFile.getFileName().toString(), ".tmp");
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporaryFile)))) {
+                out.writeUTF(epoch());
+                out.writeLong(revisionService.current().getRevision());
+                catalog.writeTo(out);
+            }
+            Files.move(temporaryFile, snapshotFile, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            log.info("compact cake store wrote {} cakes to {}", catalog.size(), snapshotFile);
+        } catch (IOException | RuntimeException e) {
+            log.error("could not write compact cake store snapshot {}", snapshotFile, e);
+        }
+    }
+
+    @Override
+    public List<CakeResponse> findAll() {
+        return catalog.findAll();
+    }
+
+    @Override
+    public List<CakeResponse> findFirstPage(int limit) {
+        return catalog.findFirstPage(limit);
+    }
+
+    @Override
+    public List<CakeResponse> findPageAfter(String title, long id, int limit) {
+        return catalog.findPageAfter(title, id, limit);
+    }
+
+    /**
+     * Filters while walking the catalog in title order, which stops after {@code limit} matches;
+     * other orders walk the whole catalog keeping only the first {@code limit} matches.
+     */
+    @Override
+    public List<CakeResponse> find(CakeQuery query, int limit) {
+        if (query.isTitleOrder()) {
+            return catalog.findMatching(query.getAfterTitle(), query.getAfterId(), query.filter(), limit);
+        }
+        return catalog.findFirstMatching(query.filter(), query.comparator(), limit);
+    }
+
+    @Override
+    public Optional<CakeResponse> findById(long id) {
+        return catalog.findById(id);
+    }
+
+    @Override
+    public Optional<CakeResponse> findByTitleKey(String titleKey) {
+        return catalog.findByTitleKey(titleKey);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<CakeResponse> findChangedSince(long since) {
+        return database.findChangedSince(since);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<String> findExistingTitleKeys(Collection<String> titleKeys) {
+        return database.findExistingTitleKeys(titleKeys);
+    }
+
+    @Override
+    public long count() {
+        return database.count();
+    }
+
+    @Override
+    @Transactional
+    public List<CakeResponse> insertAll(List<Cake> cakes) {
+        return database.insertAll(cakes);
+    }
+
+    @Override
+    @Transactional
+    public Optional<Long> update(long id, Long expectedVersion, String title, String description, long revision) {
+        return database.update(id, expectedVersion, title, description, revision);
+    }
+
+    /**
+     * Asked by the database: the copy only sees a change once it is committed.
+     */
+    @Override
+    public boolean exists(long id) {
+        return database.exists(id);
+    }
+
+    @Override
+    @Transactional
+    public boolean delete(long id) {
+        return database.delete(id);
+    }
+
+    @Override
+    public void deleteAll() {
+        database.deleteAll();
+    }
+
+    private void apply(CakeChangedEvent event) {
+        if (event.getType() == CakeChangedEvent.Type.DELETED) {
+            catalog.remove(event.getCakeId(), event.getRevision());
+        } else {
+            catalog.put(event.getCake(), event.getRevision());
+        }
+    }
+
+    private boolean restoreSnapshot() {
+        if (snapshotFile == null || !Files.exists(snapshotFile)) {
+            return false;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(snapshotFile)))) {
+            String snapshotEpoch = in.readUTF();
+            long snapshotRevision = in.readLong();
+            long revision = revisionService.current().getRevision();
+            if (!snapshotEpoch.equals(epoch()) || snapshotRevision != revision) {
+                log.info("compact cake store snapshot {} is stale (revision {}, database at {})",
+                        snapshotFile, snapshotRevision, revision);
+                return false;
+            }
+            catalog.readFrom(in, snapshotRevision);
+            return true;
+        } catch (IOException e) {
+            log.error("could not read compact cake store snapshot {}", snapshotFile, e);
+            return false;
+        }
+    }
+
+    /**
+     * Identifies the database, so a snapshot is never restored against another one that happens to
+     * be at the same revision.
+     */
+    private String epoch() {
+        return catalogMetadataRepository.findById(EPOCH_METADATA)
+                .map(CatalogMetadata::getValue)
+                .orElseGet(() -> catalogMetadataRepository
+                        .save(new CatalogMetadata(EPOCH_METADATA, UUID.randomUUID().toString()))
+                        .getValue());
+    }
+}
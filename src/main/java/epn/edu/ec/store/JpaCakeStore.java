@@ -0,0 +1,130 @@
+package epn.edu.ec.store;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import epn.edu.ec.model.cake.CakeQuery;
+import epn.edu.ec.model.cake.CakeResponse;
+import epn.edu.ec.repository.CakeRepository;
+import epn.edu.ec.repository.model.Cake;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Keeps cakes in the primary database through {@link CakeRepository}. Reads use the
+ * {@link CakeResponse} projection queries; ordering and limits are applied by the database on the
+ * title index.
+ */
+@RequiredArgsConstructor
+@Component
+@ConditionalOnProperty(name = "cakes.store.type", havingValue = "jpa", matchIfMissing = true)
+public class JpaCakeStore implements CakeStore {
+    private final CakeRepository cakeRepository;
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<CakeResponse> findAll() {
+        return cakeRepository.findAllResponses();
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<CakeResponse> findFirstPage(int limit) {
+        return cakeRepository.findFirstPage(PageRequest.of(0, limit));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<CakeResponse> findPageAfter(String title, long id, int limit) {
+        return title == null
+                ? cakeRepository.findPageAfterNullTitle(id, PageRequest.of(0, limit))
+                : cakeRepository.findPageAfter(title, id, PageRequest.of(0, limit));
+    }
+
+    /**
+     * Filtered and ordered by the database, see {@link epn.edu.ec.repository.CakeQueryRepositoryImpl}.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public List<CakeResponse> find(CakeQuery query, int limit) {
+        return cakeRepository.findResponses(query, limit);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<CakeResponse> findById(long id) {
+        return cakeRepository.findResponseById(id);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<CakeResponse> findByTitleKey(String titleKey) {
+        return cakeRepository.findByTitleKey(titleKey);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<CakeResponse> findChangedSince(long since) {
+        return cakeRepository.findChangedSince(since);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<String> findExistingTitleKeys(Collection<String> titleKeys) {
+        return cakeRepository.findExistingTitleKeys(titleKeys);
+    }
+
+    @Override
+    public long count() {
+        return cakeRepository.count();
+    }
+
+    /**
+     * Sent as JDBC batches and flushed right away, so a duplicate title fails here and not at commit.
+     */
+    @Override
+    @Transactional
+    public List<CakeResponse> insertAll(List<Cake> cakes) {
+        List<Cake> savedCakes = cakeRepository.saveAll(cakes);
+        cakeRepository.flush();
+        return savedCakes.stream()
+                .map(cake -> new CakeResponse(cake.getId(), cake.getTitle(), cake.getDescription(), cake.getVersion()))
+                .toList();
+    }
+
+    /**
+     * A single {@code UPDATE} statement, without loading the cake first. Without an expected version
+     * the statement returns the new one.
+     */
+    @Override
+    @Transactional
+    public Optional<Long> update(long id, Long expectedVersion, String title, String description, long revision) {
+        if (expectedVersion != null) {
+            int updated = cakeRepository.updateByIdAndVersion(id, expectedVersion, title, description,
+                    Cake.titleKey(title), revision);
+            return updated > 0 ? Optional.of(expectedVersion + 1) : Optional.empty();
+        }
+        return cakeRepository.updateById(id, title, description, Cake.titleKey(title), revision);
+    }
+
+    @Override
+    public boolean exists(long id) {
+        return cakeRepository.existsById(id);
+    }
+
+    @Override
+    @Transactional
+    public boolean delete(long id) {
+        return cakeRepository.deleteCakeById(id) > 0;
+    }
+
+    @Override
+    public void deleteAll() {
+        cakeRepository.deleteAllInBatch();
+    }
+}
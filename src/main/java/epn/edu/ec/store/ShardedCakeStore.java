@@ -0,0 +1,668 @@
+package epn.edu.ec.store;
+
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+import epn.edu.ec.config.DedicatedExecutors;
+import epn.edu.ec.model.cake.CakeQuery;
+import epn.edu.ec.model.cake.CakeResponse;
+import epn.edu.ec.repository.CakeQueryClauses;
+import epn.edu.ec.repository.model.Cake;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Spreads cakes over {@code cakes.store.sharded.count} independent databases, each with its own
+ * connection pool, at {@code cakes.store.sharded.url} formatted with the shard number (by default
+ * one in-memory H2 database per shard). A new cake goes to the next shard in turn and the shard is
+ * encoded in the low {@value #SHARD_BITS} bits of its id, so reads, updates and deletes by id go to
+ * a single shard. Listings query every shard in parallel, on a pool of their own
+ * ({@code cakes.store.sharded.executor.threads}) and the calling thread, and merge their already
+ * sorted results by {@code (title, id)}, streaming them from the shards. A shard that has not
+ * answered within {@code cakes.store.sharded.timeout} fails the call with a
+ * {@link QueryTimeoutException}.
+ * <p>
+ * Titles stay unique across shards: writes that set a title look it up on every shard while holding
+ * a lock for its title key, and each shard has a unique index on the title key besides. The lock
+ * only covers the writers of this application instance.
+ * <p>
+ * Every shard commits on its own, before the transaction of the caller on the primary database,
+ * which keeps catalog revisions, tombstones and metadata. When that transaction rolls back, the
+ * shard writes made in it are compensated: inserted cakes are deleted, updated and deleted cakes
+ * are written back as they were, unless a later write changed them meanwhile. Until then readers can
+ * see the change, but no change event is published for it. An insert that fails on one shard
+ * deletes the cakes the other shards committed before failing.
+ * <p>
+ * Every write still takes its catalog revision, and with it the lock on the revision row of the
+ * primary database, before the title check and the shard round-trip, and keeps it until the primary
+ * transaction commits: deltas rely on revisions committing in order. That lock, not the number of
+ * shards, bounds write throughput.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "cakes.store.type", havingValue = "sharded")
+public class ShardedCakeStore implements CakeStore {
+    static final int SHARD_BITS = 8;
+    static final int MAX_SHARDS = 1 << SHARD_BITS;
+    private static final int TITLE_LOCKS = 64;
+
+    private static final List<String> SCHEMA = List.of(
+            "create table if not exists cakes (id bigint primary key, title varchar(255), title_key varchar(255), "
+                    + "description varchar(255), version bigint not null, revision bigint not null, "
+                    + "constraint uk_cakes_title_key unique (title_key))",
+            "create index if not exists idx_cakes_title_id on cakes (title, id)",
+            "create index if not exists idx_cakes_description_id on cakes (description, id)",
+            "create index if not exists idx_cakes_revision on cakes (revision)",
+            "create sequence if not exists cakes_seq");
+    private static final String CAKE_COLUMNS = "select id, title, description, version from cakes ";
+    private static final String TITLE_ORDER = " order by title, id";
+    private static final RowMapper<CakeResponse> CAKE_RESPONSE = (resultSet, row) -> new CakeResponse(
+            resultSet.getLong("id"), resultSet.getString("title"), resultSet.getString("description"),
+            resultSet.getLong("version"));
+    private static final Comparator<CakeResponse> CAKE_ORDER = CakeQuery.builder().build().comparator();
+    private static final RowMapper<ChangedCake> CHANGED_CAKE = (resultSet, row) -> new ChangedCake(
+            CAKE_RESPONSE.mapRow(resultSet, row), resultSet.getLong("revision"));
+    private static final Comparator<ChangedCake> REVISION_ORDER = Comparator.comparingLong(ChangedCake::revision)
+            .thenComparingLong(change -> change.cake().getId());
+
+    private final List<Shard> shards = new ArrayList<>();
+    private final TaskExecutor taskExecutor;
+    private final long timeoutNanos;
+    private final AtomicLong insertedCakes = new AtomicLong();
+    private final ReentrantLock[] titleLocks = new ReentrantLock[TITLE_LOCKS];
+
+    @Autowired
+    public ShardedCakeStore(@Value("${cakes.store.sharded.count:4}") int shardCount,
+                            @Value("${cakes.store.sharded.url:jdbc:h2:mem:cake-shard-%d;DB_CLOSE_DELAY=-1}") String url,
+                            @Value("${cakes.store.sharded.pool.max-size:10}") int maxPoolSize,
+                            @Value("${cakes.store.sharded.executor.threads:8}") int threads,
+                            @Value("${cakes.store.sharded.executor.queue-capacity:256}") int queueCapacity,
+                            @Value("${cakes.store.sharded.timeout:PT10S}") Duration timeout) {
+        // a full queue is not an error, the calling thread then queries the shard itself
+        this(shardCount, url, maxPoolSize, DedicatedExecutors.threadPool("cake-shards", threads, queueCapacity),
+                timeout);
+    }
+
+    ShardedCakeStore(int shardCount, String url, int maxPoolSize, TaskExecutor taskExecutor, Duration timeout) {
+        if (shardCount < 1 || shardCount > MAX_SHARDS) {
+            throw new IllegalStateException("cakes.store.sharded.count must be between 1 and " + MAX_SHARDS
+                    + ", found " + shardCount);
+        }
+        this.taskExecutor = taskExecutor;
+        this.timeoutNanos = timeout.toNanos();
+        Arrays.setAll(titleLocks, stripe -> new ReentrantLock());
+
+        for (int number = 0; number < shardCount; number++) {
+            HikariDataSource dataSource = DataSourceBuilder.create()
+                    .type(HikariDataSource.class)
+                    .url(String.format(url, number))
+                    .username("sa")
+                    .build();
+            dataSource.setPoolName("cake-shard-" + number);
+            dataSource.setMaximumPoolSize(maxPoolSize);
+            Shard shard = new Shard(number, dataSource, new NamedParameterJdbcTemplate(dataSource),
+                    new TransactionTemplate(new DataSourceTransactionManager(dataSource)));
+            shards.add(shard);
+            SCHEMA.forEach(statement -> shard.jdbc().getJdbcTemplate().execute(statement));
+        }
+        log.info("sharded cake store opened {} shards at {}", shardCount, url);
+    }
+
+    @PreDestroy
+    public void close() {
+        if (taskExecutor instanceof ThreadPoolTaskExecutor pool) {
+            pool.shutdown();
+        }
+        shards.forEach(shard -> shard.dataSource().close());
+    }
+
+    /**
+     * Merges the rows of every shard as they are read, without a list per shard.
+     */
+    @Override
+    public List<CakeResponse> findAll() {
+        List<CompletableFuture<Stream<CakeResponse>>> opened = submit(shards, shard -> shard.jdbc()
+                .queryForStream(CAKE_COLUMNS + TITLE_ORDER, new MapSqlParameterSource(), CAKE_RESPONSE));
+        List<Stream<CakeResponse>> streams;
+        try {
+            streams = join(opened);
+        } catch (RuntimeException | Error e) {
+            opened.forEach(stream -> stream.thenAccept(Stream::close));
+            throw e;
+        }
+        try {
+            return merge(streams.stream().map(Stream::iterator).toList(), CAKE_ORDER, Integer.MAX_VALUE);
+        } finally {
+            streams.forEach(Stream::close);
+        }
+    }
+
+    /**
+     * Takes the first {@code limit} cakes of every shard, which always contain the first
+     * {@code limit} cakes of the catalog.
+     */
+    @Override
+    public List<CakeResponse> findFirstPage(int limit) {
+        MapSqlParameterSource parameters = new MapSqlParameterSource("limit", limit);
+        return merge(iterators(scatter(shard -> shard.jdbc().query(CAKE_COLUMNS + TITLE_ORDER + " limit :limit",
+                parameters, CAKE_RESPONSE))), CAKE_ORDER, limit);
+    }
+
+    @Override
+    public List<CakeResponse> findPageAfter(String title, long id, int limit) {
+        MapSqlParameterSource parameters = new MapSqlParameterSource()
+                .addValue("title", title)
+                .addValue("id", id)
+                .addValue("limit", limit);
+        String after = title == null
+                ? "where (title is null and id > :id) or title is not null"
+                : "where title > :title or (title = :title and id > :id)";
+        return merge(iterators(scatter(shard -> shard.jdbc().query(CAKE_COLUMNS + after + TITLE_ORDER + " limit :limit",
+                parameters, CAKE_RESPONSE))), CAKE_ORDER, limit);
+    }
+
+    /**
+     * Every shard filters, orders and limits with the same select, then the results are merged in
+     * the order of the query.
+     */
+    @Override
+    public List<CakeResponse> find(CakeQuery query, int limit) {
+        CakeQueryClauses clauses = CakeQueryClauses.sql(query);
+        MapSqlParameterSource parameters = new MapSqlParameterSource(clauses.parameters()).addValue("limit", limit);
+        String sql = CAKE_COLUMNS + clauses.where() + clauses.orderBy() + " limit :limit";
+        return merge(iterators(scatter(shard -> shard.jdbc().query(sql, parameters, CAKE_RESPONSE))), query.comparator(),
+                limit);
+    }
+
+    @Override
+    public Optional<CakeResponse> findById(long id) {
+        return shardOf(id).flatMap(shard -> shard.jdbc()
+                .query(CAKE_COLUMNS + "where id = :id", new MapSqlParameterSource("id", id), CAKE_RESPONSE)
+                .stream()
+                .findFirst());
+    }
+
+    @Override
+    public Optional<CakeResponse> findByTitleKey(String titleKey) {
+        MapSqlParameterSource parameters = new MapSqlParameterSource("titleKey", titleKey);
+        return scatter(shard -> shard.jdbc().query(CAKE_COLUMNS + "where title_key = :titleKey", parameters, CAKE_RESPONSE))
+                .stream()
+                .flatMap(List::stream)
+                .findFirst();
+    }
+
+    /**
+     * Every shard returns its changes in revision order; they are merged into one global revision
+     * order, like a single database would return them.
+     */
+    @Override
+    public List<CakeResponse> findChangedSince(long since) {
+        MapSqlParameterSource parameters = new MapSqlParameterSource("since", since);
+        List<List<ChangedCake>> changes = scatter(shard -> shard.jdbc().query(
+                "select id, title, description, version, revision from cakes where revision > :since "
+                        + "order by revision, id", parameters, CHANGED_CAKE));
+        return merge(changes.stream().map(List::iterator).toList(), REVISION_ORDER, Integer.MAX_VALUE)
+                .stream()
+                .map(ChangedCake::cake)
+                .toList();
+    }
+
+    @Override
+    public List<String> findExistingTitleKeys(Collection<String> titleKeys) {
+        if (titleKeys.isEmpty()) {
+            return List.of();
+        }
+        MapSqlParameterSource parameters = new MapSqlParameterSource("titleKeys", titleKeys);
+        return scatter(shard -> shard.jdbc().queryForList("select title_key from cakes where title_key in (:titleKeys)",
+                parameters, String.class))
+                .stream()
+                .flatMap(List::stream)
+                .toList();
+    }
+
+    @Override
+    public long count() {
+        return scatter(shard -> shard.jdbc().getJdbcTemplate().queryForObject("select count(*) from cakes", Long.class))
+                .stream()
+                .mapToLong(Long::longValue)
+                .sum();
+    }
+
+    /**
+     * Each shard inserts its share of the cakes in one transaction, all shards in parallel. When a
+     * shard fails the cakes committed by the others are deleted again, also those of shards that
+     * only commit after the call has given up waiting for them.
+     */
+    @Override
+    public List<CakeResponse> insertAll(List<Cake> cakes) {
+        List<String> titleKeys = cakes.stream()
+                .map(cake -> Cake.titleKey(cake.getTitle()))
+                .filter(Objects::nonNull)
+                .toList();
+        return withTitleLocks(titleKeys, () -> {
+            if (new HashSet<>(titleKeys).size() < titleKeys.size()) {
+                throw new DuplicateKeyException("cake titles repeated in the same insert");
+            }
+            List<String> takenTitleKeys = findExistingTitleKeys(titleKeys);
+            if (!takenTitleKeys.isEmpty()) {
+                throw new DuplicateKeyException("cake titles already exist " + takenTitleKeys);
+            }
+
+            Map<Shard, List<Cake>> cakesByShard = new LinkedHashMap<>();
+            for (Cake cake : cakes) {
+                Shard shard = shards.get((int) (insertedCakes.getAndIncrement() % shards.size()));
+                cakesByShard.computeIfAbsent(shard, key -> new ArrayList<>()).add(cake);
+            }
+            List<Shard> targets = List.copyOf(cakesByShard.keySet());
+            List<CompletableFuture<Void>> inserts = submit(targets, shard -> insert(shard, cakesByShard.get(shard)));
+            try {
+                join(inserts);
+            } catch (RuntimeException | Error e) {
+                for (int target = 0; target < targets.size(); target++) {
+                    Shard shard = targets.get(target);
+                    inserts.get(target)
+                            .thenRun(() -> deleteInserted(shard, cakesByShard.get(shard)))
+                            .exceptionally(failure -> {
+                                log.error("cannot delete the cakes of a failed insert from shard {}", shard.number(),
+                                        failure);
+                                return null;
+                            });
+                }
+                throw e;
+            }
+            undoOnRollback("insert of " + cakes.size() + " cakes",
+                    () -> targets.forEach(shard -> deleteInserted(shard, cakesByShard.get(shard))));
+
+            return cakes.stream()
+                    .map(cake -> new CakeResponse(cake.getId(), cake.getTitle(), cake.getDescription(), cake.getVersion()))
+                    .toList();
+        });
+    }
+
+    /**
+     * Updates and reads the new version back in one shard transaction, keeping the previous row to
+     * write back if the caller's transaction rolls back.
+     */
+    @Override
+    public Optional<Long> update(long id, Long expectedVersion, String title, String description, long revision) {
+        Optional<Shard> shard = shardOf(id);
+        if (shard.isEmpty()) {
+            return Optional.empty();
+        }
+        String titleKey = Cake.titleKey(title);
+        return withTitleLocks(titleKey == null ? List.of() : List.of(titleKey), () -> {
+            if (titleKey != null && isTitleKeyTakenByAnother(titleKey, id)) {
+                throw new DuplicateKeyException("cake title already exists " + title);
+            }
+            MapSqlParameterSource parameters = new MapSqlParameterSource()
+                    .addValue("id", id)
+                    .addValue("title", title)
+                    .addValue("titleKey", titleKey)
+                    .addValue("description", description)
+                    .addValue("revision", revision)
+                    .addValue("version", expectedVersion);
+            Optional<StoredCake> previous = shard.get().transactionTemplate().execute(status -> {
+                Optional<StoredCake> stored = findStored(shard.get(), id, true);
+                int updated = shard.get().jdbc().update("update cakes set title = :title, title_key = :titleKey, "
+                        + "description = :description, version = version + 1, revision = :revision where id = :id"
+                        + (expectedVersion == null ? "" : " and version = :version"), parameters);
+                return updated == 0 ? Optional.<StoredCake>empty() : stored;
+            });
+            previous.ifPresent(cake -> undoOnRollback("update of cake " + id,
+                    () -> restore(shard.get(), cake, revision)));
+            return previous.map(cake -> cake.version() + 1);
+        });
+    }
+
+    @Override
+    public boolean exists(long id) {
+        return findById(id).isPresent();
+    }
+
+    /**
+     * Keeps the deleted row to insert it again if the caller's transaction rolls back.
+     */
+    @Override
+    public boolean delete(long id) {
+        Optional<Shard> shard = shardOf(id);
+        if (shard.isEmpty()) {
+            return false;
+        }
+        Optional<StoredCake> deleted = shard.get().transactionTemplate().execute(status -> {
+            Optional<StoredCake> stored = findStored(shard.get(), id, true);
+            stored.ifPresent(cake -> shard.get().jdbc().update("delete from cakes where id = :id",
+                    new MapSqlParameterSource("id", id)));
+            return stored;
+        });
+        deleted.ifPresent(cake -> undoOnRollback("delete of cake " + id, () -> reinsert(shard.get(), cake)));
+        return deleted.isPresent();
+    }
+
+    @Override
+    public void deleteAll() {
+        scatter(shard -> shard.jdbc().getJdbcTemplate().update("delete from cakes"));
+    }
+
+    /**
+     * The batch and export endpoints and the reactive API work on the {@code cakes} table of the
+     * primary database, which stays empty in this mode.
+     */
+    @Override
+    public boolean isPrimaryDatabase() {
+        return false;
+    }
+
+    int shardCount() {
+        return shards.size();
+    }
+
+    static int shardNumber(long id) {
+        return (int) (id & (MAX_SHARDS - 1));
+    }
+
+    private Optional<Shard> shardOf(long id) {
+        int number = shardNumber(id);
+        return number < shards.size() ? Optional.of(shards.get(number)) : Optional.empty();
+    }
+
+    private Void insert(Shard shard, List<Cake> cakes) {
+        shard.transactionTemplate().executeWithoutResult(status -> {
+            List<Long> sequenceValues = shard.jdbc().queryForList(
+                    "select next value for cakes_seq from system_range(1, :count)",
+                    new MapSqlParameterSource("count", cakes.size()), Long.class);
+            SqlParameterSource[] rows = new SqlParameterSource[cakes.size()];
+            for (int row = 0; row < cakes.size(); row++) {
+                Cake cake = cakes.get(row);
+                cake.setId(sequenceValues.get(row) << SHARD_BITS | shard.number());
+                cake.setVersion(0);
+                rows[row] = new MapSqlParameterSource()
+                        .addValue("id", cake.getId())
+                        .addValue("title", cake.getTitle())
+                        .addValue("titleKey", Cake.titleKey(cake.getTitle()))
+                        .addValue("description", cake.getDescription())
+                        .addValue("revision", cake.getRevision());
+            }
+            shard.jdbc().batchUpdate("insert into cakes (id, title, title_key, description, version, revision) "
+                    + "values (:id, :title, :titleKey, :description, 0, :revision)", rows);
+        });
+        return null;
+    }
+
+    private void deleteInserted(Shard shard, List<Cake> cakes) {
+        shard.jdbc().update("delete from cakes where id in (:ids)",
+                new MapSqlParameterSource("ids", cakes.stream().map(Cake::getId).toList()));
+    }
+
+    private Optional<StoredCake> findStored(Shard shard, long id, boolean forUpdate) {
+        return shard.jdbc().query("select id, title, title_key, description, version, revision from cakes where id = :id"
+                        + (forUpdate ? " for update" : ""), new MapSqlParameterSource("id", id),
+                (resultSet, row) -> new StoredCake(resultSet.getLong("id"), resultSet.getString("title"),
+                        resultSet.getString("title_key"), resultSet.getString("description"),
+                        resultSet.getLong("version"), resultSet.getLong("revision")))
+                .stream()
+                .findFirst();
+    }
+
+    /**
+     * Writes back the cake as it was before the update of {@code revision}, unless it has been
+     * written again since.
+     */
+    private void restore(Shard shard, StoredCake cake, long revision) {
+        writeBack(cake, () -> shard.jdbc().update(
+                "update cakes set title = :title, title_key = :titleKey, description = :description, "
+                        + "version = :version, revision = :previousRevision where id = :id and revision = :revision",
+                cake.parameters().addValue("previousRevision", cake.revision()).addValue("revision", revision)));
+    }
+
+    private void reinsert(Shard shard, StoredCake cake) {
+        writeBack(cake, () -> shard.jdbc().update(
+                "insert into cakes (id, title, title_key, description, version, revision) "
+                        + "values (:id, :title, :titleKey, :description, :version, :revision)",
+                cake.parameters().addValue("revision", cake.revision())));
+    }
+
+    private void writeBack(StoredCake cake, Supplier<Integer> write) {
+        List<String> titleKeys = cake.titleKey() == null ? List.of() : List.of(cake.titleKey());
+        withTitleLocks(titleKeys, () -> {
+            if (cake.titleKey() != null && isTitleKeyTakenByAnother(cake.titleKey(), cake.id())) {
+                throw new DuplicateKeyException("cake title taken meanwhile " + cake.title());
+            }
+            return write.get();
+        });
+    }
+
+    /**
+     * Runs {@code undo} once the transaction of the caller on the primary database has rolled back;
+     * outside a transaction the shard commit is final. An undo that fails, for instance because the
+     * title has been taken meanwhile, is logged and the shard keeps the change.
+     */
+    private void undoOnRollback(String change, Runnable undo) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_COMMITTED) {
+                    return;
+                }
+                if (status == STATUS_UNKNOWN) {
+                    log.error("outcome of the catalog transaction unknown, {} kept on its shard", change);
+                    return;
+                }
+                try {
+                    undo.run();
+                    log.warn("{} undone on its shard, the catalog transaction rolled back", change);
+                } catch (DataAccessException e) {
+                    log.error("cannot undo {} on its shard, the catalog transaction rolled back", change, e);
+                }
+            }
+        });
+    }
+
+    private boolean isTitleKeyTakenByAnother(String titleKey, long id) {
+        MapSqlParameterSource parameters = new MapSqlParameterSource()
+                .addValue("titleKey", titleKey)
+                .addValue("id", id);
+        return scatter(shard -> shard.jdbc().queryForList("select id from cakes where title_key = :titleKey and id <> :id",
+                parameters, Long.class))
+                .stream()
+                .anyMatch(ids -> !ids.isEmpty());
+    }
+
+    private <T> List<T> scatter(Function<Shard, T> query) {
+        return scatter(shards, query);
+    }
+
+    private <T> List<T> scatter(List<Shard> targets, Function<Shard, T> query) {
+        return join(submit(targets, query));
+    }
+
+    /**
+     * Starts the query on every given shard in parallel; the calling thread takes the last one, and
+     * any other the pool has no room for.
+     */
+    private <T> List<CompletableFuture<T>> submit(List<Shard> targets, Function<Shard, T> query) {
+        List<CompletableFuture<T>> results = new ArrayList<>(targets.size());
+        for (int target = 0; target < targets.size() - 1; target++) {
+            Shard shard = targets.get(target);
+            try {
+                results.add(CompletableFuture.supplyAsync(() -> query.apply(shard), taskExecutor));
+            } catch (TaskRejectedException e) {
+                results.add(queryOnCaller(shard, query));
+            }
+        }
+        results.add(queryOnCaller(targets.get(targets.size() - 1), query));
+        return results;
+    }
+
+    private static <T> CompletableFuture<T> queryOnCaller(Shard shard, Function<Shard, T> query) {
+        try {
+            return CompletableFuture.completedFuture(query.apply(shard));
+        } catch (RuntimeException | Error e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * Waits for every query until the timeout, rethrowing the failure of the first shard that
+     * failed.
+     */
+    private <T> List<T> join(List<CompletableFuture<T>> results) {
+        long deadline = System.nanoTime() + timeoutNanos;
+        List<T> values = new ArrayList<>(results.size());
+        try {
+            for (CompletableFuture<T> result : results) {
+                values.add(result.get(deadline - System.nanoTime(), TimeUnit.NANOSECONDS));
+            }
+            return values;
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw new IllegalStateException("shard query failed", e.getCause());
+        } catch (TimeoutException e) {
+            throw new QueryTimeoutException("shards did not answer within " + Duration.ofNanos(timeoutNanos), e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new QueryTimeoutException("interrupted while waiting for shards", e);
+        }
+    }
+
+    private static List<Iterator<CakeResponse>> iterators(List<List<CakeResponse>> sortedLists) {
+        return sortedLists.stream().map(List::iterator).toList();
+    }
+
+    /**
+     * k-way merge of rows sorted in the given order, stopping after {@code limit} rows.
+     */
+    private static <T> List<T> merge(List<Iterator<T>> sorted, Comparator<T> order, int limit) {
+        PriorityQueue<ShardCursor<T>> cursors = new PriorityQueue<>(Math.max(1, sorted.size()),
+                Comparator.comparing(ShardCursor::current, order));
+        for (Iterator<T> rows : sorted) {
+            ShardCursor<T> cursor = new ShardCursor<>(rows);
+            if (cursor.advance()) {
+                cursors.add(cursor);
+            }
+        }
+
+        List<T> merged = new ArrayList<>(limit == Integer.MAX_VALUE ? 16 : limit);
+        while (merged.size() < limit && !cursors.isEmpty()) {
+            ShardCursor<T> cursor = cursors.poll();
+            merged.add(cursor.current());
+            if (cursor.advance()) {
+                cursors.add(cursor);
+            }
+        }
+        return merged;
+    }
+
+    /**
+     * Locks the stripes of the given title keys in a fixed order, so concurrent writers cannot
+     * deadlock.
+     */
+    private <T> T withTitleLocks(Collection<String> titleKeys, Supplier<T> write) {
+        TreeSet<Integer> stripes = new TreeSet<>();
+        titleKeys.forEach(titleKey -> stripes.add(Math.floorMod(titleKey.hashCode(), TITLE_LOCKS)));
+        stripes.forEach(stripe -> titleLocks[stripe].lock());
+        try {
+            return write.get();
+        } finally {
+            stripes.descendingSet().forEach(stripe -> titleLocks[stripe].unlock());
+        }
+    }
+
+    private record Shard(int number, HikariDataSource dataSource, NamedParameterJdbcTemplate jdbc,
+                         TransactionTemplate transactionTemplate) {
+    }
+
+    /**
+     * A row as stored on its shard, kept to undo a write.
+     */
+    private record StoredCake(long id, String title, String titleKey, String description, long version,
+                              long revision) {
+
+        private MapSqlParameterSource parameters() {
+            return new MapSqlParameterSource()
+                    .addValue("id", id)
+                    .addValue("title", title)
+                    .addValue("titleKey", titleKey)
+                    .addValue("description", description)
+                    .addValue("version", version);
+        }
+    }
+
+    /**
+     * A cake with the catalog revision of its last change.
+     */
+    private record ChangedCake(CakeResponse cake, long revision) {
+    }
+
+    private static final class ShardCursor<T> {
+        private final Iterator<T> rows;
+        private T current;
+
+        private ShardCursor(Iterator<T> rows) {
+            this.rows = rows;
+        }
+
+        private T current() {
+            return current;
+        }
+
+        private boolean advance() {
+            if (!rows.hasNext()) {
+                return false;
+            }
+            current = rows.next();
+            return true;
+        }
+    }
+}
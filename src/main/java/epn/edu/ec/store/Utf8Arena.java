@@ -0,0 +1,144 @@
+package epn.edu.ec.store;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Append-only UTF-8 string storage in fixed-size chunks, on or off the Java heap. Each distinct
+ * string is stored once, as a length followed by its bytes, and referenced by a {@code long}
+ * ({@code chunk << 32 | offset}). Strings are never moved, so a reader holding an older chunk array
+ * can keep decoding the references it knows about while the writer appends.
+ * <p>
+ * Appending is not thread-safe; reading through {@link #decode(ByteBuffer[], long)} is.
+ */
+final class Utf8Arena {
+    static final long NULL_REF = -1;
+
+    private static final int CHUNK_SIZE = 1 << 20;
+    private static final int LENGTH_BYTES = Integer.BYTES;
+
+    private final boolean offHeap;
+    private ByteBuffer[] chunks = new ByteBuffer[0];
+    private int position = CHUNK_SIZE;
+    private long allocatedBytes;
+
+    // open addressing over ref + 1 (0 = empty), with the hash of each string next to it
+    private long[] dedupRefs = new long[1024];
+    private int[] dedupHashes = new int[1024];
+    private int dedupSize;
+
+    Utf8Arena(boolean offHeap) {
+        this.offHeap = offHeap;
+    }
+
+    /**
+     * The current chunks; references returned so far can be decoded with them.
+     */
+    ByteBuffer[] chunks() {
+        return chunks;
+    }
+
+    long add(String value) {
+        if (value == null) {
+            return NULL_REF;
+        }
+        byte[] bytes = value.getBytes(UTF_8);
+        int hash = Arrays.hashCode(bytes);
+
+        int mask = dedupRefs.length - 1;
+        for (int i = mix(hash) & mask; dedupRefs[i] != 0; i = (i + 1) & mask) {
+            if (dedupHashes[i] == hash && equals(dedupRefs[i] - 1, bytes)) {
+                return dedupRefs[i] - 1;
+            }
+        }
+
+        long ref = append(bytes);
+        if (++dedupSize * 2 > dedupRefs.length) {
+            growDedup();
+        }
+        insertDedup(ref, hash);
+        return ref;
+    }
+
+    static String decode(ByteBuffer[] chunks, long ref) {
+        if (ref == NULL_REF) {
+            return null;
+        }
+        ByteBuffer chunk = chunks[(int) (ref >>> 32)];
+        int offset = (int) ref;
+        byte[] bytes = new byte[chunk.getInt(offset)];
+        chunk.get(offset + LENGTH_BYTES, bytes);
+        return new String(bytes, UTF_8);
+    }
+
+    /**
+     * Bytes held by the chunks and the deduplication table.
+     */
+    long memoryBytes() {
+        return allocatedBytes + (long) dedupRefs.length * (Long.BYTES + Integer.BYTES);
+    }
+
+    private long append(byte[] bytes) {
+        int size = LENGTH_BYTES + bytes.length;
+        if (position + size > CHUNK_SIZE) {
+            // a string larger than a chunk gets a chunk of its own
+            int capacity = Math.max(CHUNK_SIZE, size);
+            ByteBuffer chunk = offHeap ? ByteBuffer.allocateDirect(capacity) : ByteBuffer.allocate(capacity);
+            allocatedBytes += capacity;
+            chunks = Arrays.copyOf(chunks, chunks.length + 1);
+            chunks[chunks.length - 1] = chunk;
+            position = 0;
+        }
+
+        int chunkIndex = chunks.length - 1;
+        ByteBuffer chunk = chunks[chunkIndex];
+        chunk.putInt(position, bytes.length);
+        chunk.put(position + LENGTH_BYTES, bytes);
+        long ref = (long) chunkIndex << 32 | position;
+        position += size;
+        return ref;
+    }
+
+    private boolean equals(long ref, byte[] bytes) {
+        ByteBuffer chunk = chunks[(int) (ref >>> 32)];
+        int offset = (int) ref;
+        if (chunk.getInt(offset) != bytes.length) {
+            return false;
+        }
+        for (int i = 0; i < bytes.length; i++) {
+            if (chunk.get(offset + LENGTH_BYTES + i) != bytes[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void growDedup() {
+        long[] refs = dedupRefs;
+        int[] hashes = dedupHashes;
+        dedupRefs = new long[refs.length * 2];
+        dedupHashes = new int[refs.length * 2];
+        for (int i = 0; i < refs.length; i++) {
+            if (refs[i] != 0) {
+                insertDedup(refs[i] - 1, hashes[i]);
+            }
+        }
+    }
+
+    private void insertDedup(long ref, int hash) {
+        int mask = dedupRefs.length - 1;
+        int i = mix(hash) & mask;
+        while (dedupRefs[i] != 0) {
+            i = (i + 1) & mask;
+        }
+        dedupRefs[i] = ref + 1;
+        dedupHashes[i] = hash;
+    }
+
+    static int mix(long value) {
+        long mixed = value * 0x9E3779B97F4A7C15L;
+        return (int) (mixed ^ (mixed >>> 32));
+    }
+}
@@ -0,0 +1,63 @@
+package epn.edu.ec.admission;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+class AdaptiveConcurrencyLimitTest {
+    private static final long FAST = TimeUnit.MILLISECONDS.toNanos(10);
+    private static final long SLOW = TimeUnit.SECONDS.toNanos(1);
+
+    private final AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(2, 1, 3, Duration.ofMillis(100));
+
+    @Test
+    void tryAcquire_ShouldRejectOverLimit() {
+        // ACT
+        boolean first = limit.tryAcquire();
+        boolean second = limit.tryAcquire();
+        boolean third = limit.tryAcquire();
+
+        // ASSERT
+        assertTrue(first);
+        assertTrue(second);
+        assertFalse(third);
+        assertEquals(2, limit.getInFlight());
+    }
+
+    @Test
+    void release_ShouldGrowLimitOnFastRequests_WhileAtLeastHalfUsed() {
+        // ACT
+        for (int i = 0; i < 5; i++) {
+            limit.tryAcquire();
+            limit.release(FAST);
+        }
+
+        // ASSERT
+        assertEquals(3, limit.getLimit());
+        assertEquals(0, limit.getInFlight());
+    }
+
+    @Test
+    void release_ShouldCutLimitOnSlowRequests_DownToMin() {
+        // ARRANGE
+        AdaptiveConcurrencyLimit wide = new AdaptiveConcurrencyLimit(20, 2, 20, Duration.ofMillis(100));
+
+        // ACT
+        wide.tryAcquire();
+        wide.release(SLOW);
+        int afterOneSlow = wide.getLimit();
+        for (int i = 0; i < 50; i++) {
+            wide.tryAcquire();
+            wide.release(SLOW);
+        }
+
+        // ASSERT
+        assertEquals(18, afterOneSlow);
+        assertEquals(2, wide.getLimit());
+    }
+}
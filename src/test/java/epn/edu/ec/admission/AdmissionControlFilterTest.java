@@ -0,0 +1,153 @@
+package epn.edu.ec.admission;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.time.Duration;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.ServletRequest;
+import jakarta.servlet.ServletResponse;
+
+class AdmissionControlFilterTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private AdaptiveConcurrencyLimit readLimit;
+    private AdmissionControlFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        readLimit = new AdaptiveConcurrencyLimit(1, 1, 1, Duration.ofMinutes(1));
+        filter = new AdmissionControlFilter(0.001, 2, 100, readLimit,
+                new AdaptiveConcurrencyLimit(1, 1, 1, Duration.ofMinutes(1)), Duration.ofSeconds(3), meterRegistry);
+        authenticate("cake-user");
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void doFilter_ShouldRejectWithTooManyRequests_WhenClientExceedsBurst() throws Exception {
+        // ACT
+        MockHttpServletResponse first = perform("GET", "/cakes");
+        MockHttpServletResponse second = perform("POST", "/cakes");
+        MockHttpServletResponse third = perform("GET", "/cakes");
+
+        // ASSERT
+        assertEquals(200, first.getStatus());
+        assertEquals(200, second.getStatus());
+        assertEquals(429, third.getStatus());
+        assertEquals("1000", third.getHeader("Retry-After"));
+        assertEquals(1, meterRegistry.get(AdmissionControlFilter.REJECTIONS_METRIC)
+                .tags("endpoint", "read", "reason", "rate-limited").counter().count());
+    }
+
+    @Test
+    void doFilter_ShouldKeepSeparateBucketsPerPrincipal() throws Exception {
+        // ARRANGE
+        perform("GET", "/cakes");
+        perform("GET", "/cakes");
+
+        // ACT
+        authenticate("other-user");
+        MockHttpServletResponse response = perform("GET", "/cakes");
+
+        // ASSERT
+        assertEquals(200, response.getStatus());
+    }
+
+    @Test
+    void doFilter_ShouldShedWithServiceUnavailable_WhileAsyncRequestHoldsTheSlot() throws Exception {
+        // ARRANGE
+        MockHttpServletRequest reactive = request("GET", "/reactive/cakes/1");
+        startAsync(reactive);
+
+        // ACT
+        MockHttpServletResponse shed = perform("GET", "/cakes");
+        reactive.getAsyncContext().complete();
+
+        // ASSERT
+        assertEquals(503, shed.getStatus());
+        assertEquals("3", shed.getHeader("Retry-After"));
+        assertEquals(0, readLimit.getInFlight());
+        assertEquals(1, meterRegistry.get(AdmissionControlFilter.REJECTIONS_METRIC)
+                .tags("endpoint", "read", "reason", "overloaded").counter().count());
+        assertEquals(1, meterRegistry.get(AdmissionControlFilter.LIMIT_METRIC)
+                .tag("endpoint", "read").gauge().value());
+    }
+
+    @Test
+    void doFilter_ShouldNotLimitConcurrencyOfChangeFeed() throws Exception {
+        // ARRANGE
+        readLimit.tryAcquire();
+
+        // ACT
+        MockHttpServletResponse response = perform("GET", "/cakes/changes");
+
+        // ASSERT
+        assertEquals(200, response.getStatus());
+        assertNull(response.getHeader("Retry-After"));
+    }
+
+    @Test
+    void doFilter_ShouldNotLimitConcurrencyNorSampleLatencyOfStreams() throws Exception {
+        // ARRANGE
+        // any sampled request would cut this limit
+        AdaptiveConcurrencyLimit sensitiveLimit = new AdaptiveConcurrencyLimit(10, 1, 10, Duration.ZERO);
+        filter = new AdmissionControlFilter(1000, 1000, 100, sensitiveLimit,
+                new AdaptiveConcurrencyLimit(1, 1, 1, Duration.ofMinutes(1)), Duration.ofSeconds(3), meterRegistry);
+        MockHttpServletRequest export = request("GET", "/cakes/export");
+        MockHttpServletRequest reactiveStream = request("GET", "/reactive/cakes");
+        reactiveStream.addHeader("Accept", "application/x-ndjson");
+
+        // ACT
+        startAsync(export);
+        startAsync(reactiveStream);
+        int inFlightWhileStreaming = sensitiveLimit.getInFlight();
+        export.getAsyncContext().complete();
+        reactiveStream.getAsyncContext().complete();
+
+        // ASSERT
+        assertEquals(0, inFlightWhileStreaming);
+        assertEquals(10, sensitiveLimit.getLimit());
+    }
+
+    private void startAsync(MockHttpServletRequest request) throws Exception {
+        request.setAsyncSupported(true);
+        filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain() {
+            @Override
+            public void doFilter(ServletRequest request, ServletResponse response) {
+                request.startAsync();
+            }
+        });
+    }
+
+    private MockHttpServletResponse perform(String method, String path) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request(method, path), response, new MockFilterChain());
+        return response;
+    }
+
+    private static MockHttpServletRequest request(String method, String path) {
+        MockHttpServletRequest request = new MockHttpServletRequest(method, path);
+        request.setRemoteAddr("10.0.0.1");
+        return request;
+    }
+
+    private static void authenticate(String username) {
+        SecurityContextHolder.getContext().setAuthentication(UsernamePasswordAuthenticationToken.authenticated(
+                username, null, AuthorityUtils.createAuthorityList("ROLE_USER")));
+    }
+}
@@ -0,0 +1,50 @@
+package epn.edu.ec.admission;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+class TokenBucketTest {
+    private static final long START = Long.MAX_VALUE - TimeUnit.SECONDS.toNanos(1);
+
+    @Test
+    void tryAcquire_ShouldAdmitBurst_ThenReportWaitUntilNextPermit() {
+        // ARRANGE
+        TokenBucket bucket = new TokenBucket(10, 3, START);
+
+        // ACT
+        long first = bucket.tryAcquire(START);
+        long second = bucket.tryAcquire(START);
+        long third = bucket.tryAcquire(START);
+        long fourth = bucket.tryAcquire(START);
+
+        // ASSERT
+        assertEquals(0, first);
+        assertEquals(0, second);
+        assertEquals(0, third);
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(100), fourth);
+    }
+
+    @Test
+    void tryAcquire_ShouldRefillAtRate_AcrossNanoTimeOverflow() {
+        // ARRANGE
+        TokenBucket bucket = new TokenBucket(10, 1, START);
+        bucket.tryAcquire(START);
+
+        // ACT
+        long tooEarly = bucket.tryAcquire(START + TimeUnit.MILLISECONDS.toNanos(40));
+        long afterInterval = bucket.tryAcquire(START + TimeUnit.MILLISECONDS.toNanos(100));
+        // idle long past the refill time, still only one burst is admitted
+        long later = START + TimeUnit.SECONDS.toNanos(5);
+        long idle = bucket.tryAcquire(later);
+        long idleAgain = bucket.tryAcquire(later);
+
+        // ASSERT
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(60), tooEarly);
+        assertEquals(0, afterInterval);
+        assertEquals(0, idle);
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(100), idleAgain);
+    }
+}
@@ -0,0 +1,103 @@
+package epn.edu.ec.benchmark;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.web.server.LocalServerPort;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Drives a paginated read, {@code GET /cakes?limit=20} by default, with {@link #CONCURRENCY} concurrent
+ * clients and logs throughput, p99 latency and the peak number of platform threads. Subclasses start
+ * the application with and without {@code spring.threads.virtual.enabled} or read through the
+ * reactive API. Run with {@code mvn test -Pbenchmark}.
+ */
+@Slf4j
+abstract class AbstractThreadingLoadBenchmark {
+    private static final int CONCURRENCY = 1000;
+    private static final int REQUESTS = 20_000;
+    private static final int WARMUP_REQUESTS = 2_000;
+
+    @LocalServerPort
+    private int port;
+
+    @Value("${cakes.authentication.username}")
+    private String username;
+
+    @Value("${cakes.authentication.password}")
+    private String password;
+
+    protected abstract String mode();
+
+    protected String requestPath() {
+        return "/cakes?limit=20";
+    }
+
+    @Test
+    void paginatedReads_underHighConcurrency() throws Exception {
+        HttpClient client = HttpClient.newBuilder()
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .build();
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + requestPath()))
+                .header("Authorization", "Basic " + Base64.getEncoder()
+                        .encodeToString((username + ":" + password).getBytes(StandardCharsets.UTF_8)))
+                .build();
+
+        run(client, request, WARMUP_REQUESTS);
+
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        threads.resetPeakThreadCount();
+        long start = System.nanoTime();
+        long[] latencies = run(client, request, REQUESTS);
+        long nanos = System.nanoTime() - start;
+
+        Arrays.sort(latencies);
+        log.info("{} threads: {} requests, {} concurrent, {} req/s, p50 {} ms, p99 {} ms, peak platform threads {}",
+                mode(), REQUESTS, CONCURRENCY,
+                String.format("%.0f", REQUESTS / (nanos / 1e9)),
+                String.format("%.1f", latencies[latencies.length / 2] / 1e6),
+                String.format("%.1f", latencies[(int) (latencies.length * 0.99)] / 1e6),
+                threads.getPeakThreadCount());
+    }
+
+    private long[] run(HttpClient client, HttpRequest request, int requests) throws Exception {
+        long[] latencies = new long[requests];
+        AtomicInteger next = new AtomicInteger();
+        try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<?>> workers = new ArrayList<>(CONCURRENCY);
+            for (int i = 0; i < CONCURRENCY; i++) {
+                workers.add(clients.submit(() -> {
+                    for (int index = next.getAndIncrement(); index < requests; index = next.getAndIncrement()) {
+                        long requestStart = System.nanoTime();
+                        HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                        latencies[index] = System.nanoTime() - requestStart;
+                        assertEquals(200, response.statusCode());
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> worker : workers) {
+                worker.get();
+            }
+        }
+        return latencies;
+    }
+}
@@ -0,0 +1,97 @@
+package epn.edu.ec.benchmark;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.cloud.contract.wiremock.AutoConfigureWireMock;
+import org.springframework.http.ResponseEntity;
+
+import epn.edu.ec.model.cake.CakeBatchOperation;
+import epn.edu.ec.model.cake.CakeBatchRequest;
+import epn.edu.ec.model.cake.CakeBatchResponse;
+import epn.edu.ec.model.cake.CakeResponse;
+import epn.edu.ec.model.cake.CreateCakeRequest;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Compares creating N cakes with N {@code POST /cakes} calls against one {@code POST /cakes/batch}
+ * call over HTTP. Run with {@code mvn test -Pbenchmark}.
+ */
+@Slf4j
+@Tag("benchmark")
+@SpringBootTest(
+        webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = {
+                "cakes.populator.url=http://localhost:${wiremock.server.port}/cakes.json",
+                // one client drives the whole load, admission control would throttle it
+                "cakes.admission.enabled=false"
+        })
+@AutoConfigureWireMock(port = 0)
+class CakeBatchBenchmarkTest {
+    private static final int WARMUP_OPERATIONS = 200;
+    private static final int[] OPERATION_COUNTS = {10, 100, 1000};
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Value("${cakes.authentication.username}")
+    private String username;
+
+    @Value("${cakes.authentication.password}")
+    private String password;
+
+    @Test
+    void batchCreate_comparedWithSingleCreates() {
+        singleCreates(WARMUP_OPERATIONS);
+        batchCreate(WARMUP_OPERATIONS);
+
+        for (int operations : OPERATION_COUNTS) {
+            long singleStart = System.nanoTime();
+            singleCreates(operations);
+            long singleNanos = System.nanoTime() - singleStart;
+
+            long batchStart = System.nanoTime();
+            CakeBatchResponse batchResponse = batchCreate(operations);
+            long batchNanos = System.nanoTime() - batchStart;
+
+            assertEquals(operations, batchResponse.getResults().size());
+            log.info("{} creates: single calls {} ms ({} us/op), one batch {} ms ({} us/op), speedup x{}",
+                    operations,
+                    singleNanos / 1_000_000, singleNanos / 1_000 / operations,
+                    batchNanos / 1_000_000, batchNanos / 1_000 / operations,
+                    String.format("%.1f", (double) singleNanos / batchNanos));
+        }
+    }
+
+    private void singleCreates(int operations) {
+        for (int i = 0; i < operations; i++) {
+            ResponseEntity<CakeResponse> response = restTemplate.withBasicAuth(username, password)
+                    .postForEntity("/cakes", CreateCakeRequest.builder()
+                            .title("single cake " + System.nanoTime())
+                            .description("benchmark cake")
+                            .build(), CakeResponse.class);
+            assertEquals(201, response.getStatusCode().value());
+        }
+    }
+
+    private CakeBatchResponse batchCreate(int operations) {
+        List<CakeBatchOperation> batch = new ArrayList<>();
+        for (int i = 0; i < operations; i++) {
+            batch.add(CakeBatchOperation.builder()
+                    .type(CakeBatchOperation.Type.CREATE)
+                    .title("batch cake " + System.nanoTime())
+                    .description("benchmark cake")
+                    .build());
+        }
+        return restTemplate.withBasicAuth(username, password)
+                .postForObject("/cakes/batch", new CakeBatchRequest(batch), CakeBatchResponse.class);
+    }
+}
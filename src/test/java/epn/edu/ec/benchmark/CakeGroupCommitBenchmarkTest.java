@@ -0,0 +1,102 @@
+package epn.edu.ec.benchmark;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+import org.HdrHistogram.Histogram;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import epn.edu.ec.model.cake.CakeResponse;
+import epn.edu.ec.model.cake.CreateCakeRequest;
+import epn.edu.ec.service.CakeGroupCommitter;
+import epn.edu.ec.service.CakeService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Throughput and latency of concurrent cake creates committed one by one ({@code direct}) and
+ * through {@link CakeGroupCommitter} with growing flush windows. Every client creates cakes back to
+ * back, so a longer window trades latency for larger groups. Run with {@code mvn test -Pbenchmark}.
+ */
+@Slf4j
+@Tag("benchmark")
+@SpringBootTest(
+        webEnvironment = SpringBootTest.WebEnvironment.NONE,
+        properties = {
+                "cakes.populator.url=classpath:__files/cakes.json",
+                "cakes.admission.enabled=false"
+        })
+class CakeGroupCommitBenchmarkTest {
+    private static final int CLIENTS = 64;
+    private static final int CREATES_PER_CLIENT = 200;
+    private static final int MAX_BATCH_SIZE = 64;
+    private static final Duration[] WINDOWS = {
+            Duration.ZERO, Duration.ofMillis(1), Duration.ofMillis(2), Duration.ofMillis(5), Duration.ofMillis(10)};
+    private static final long MAX_LATENCY_MICROS = 60_000_000;
+
+    @Autowired
+    private CakeService cakeService;
+
+    private final AtomicLong titles = new AtomicLong();
+
+    @Test
+    void createCakes_withGrowingFlushWindows() throws Exception {
+        run("warmup", cakeService::createCake);
+
+        run("direct", cakeService::createCake);
+        for (Duration window : WINDOWS) {
+            CakeGroupCommitter groupCommitter = new CakeGroupCommitter(cakeService, MAX_BATCH_SIZE, window,
+                    Duration.ofMillis(MAX_LATENCY_MICROS / 1_000), CLIENTS * 2, new SimpleMeterRegistry());
+            try {
+                run("window " + window.toMillis() + " ms", groupCommitter::createCake);
+            } finally {
+                groupCommitter.close();
+            }
+        }
+    }
+
+    private void run(String name, Function<CreateCakeRequest, CakeResponse> create) throws Exception {
+        ExecutorService clients = Executors.newFixedThreadPool(CLIENTS);
+        try {
+            List<Future<Histogram>> results = new ArrayList<>();
+            long start = System.nanoTime();
+            for (int client = 0; client < CLIENTS; client++) {
+                results.add(clients.submit(() -> createCakes(create)));
+            }
+            Histogram latencies = new Histogram(MAX_LATENCY_MICROS, 3);
+            for (Future<Histogram> result : results) {
+                latencies.add(result.get());
+            }
+            long elapsedNanos = System.nanoTime() - start;
+
+            log.info("{}: {} creates/s, p50 {} us, p99 {} us, max {} us", name,
+                    latencies.getTotalCount() * 1_000_000_000L / elapsedNanos,
+                    latencies.getValueAtPercentile(50), latencies.getValueAtPercentile(99), latencies.getMaxValue());
+        } finally {
+            clients.shutdownNow();
+        }
+    }
+
+    private Histogram createCakes(Function<CreateCakeRequest, CakeResponse> create) {
+        Histogram latencies = new Histogram(MAX_LATENCY_MICROS, 3);
+        for (int i = 0; i < CREATES_PER_CLIENT; i++) {
+            CreateCakeRequest request = CreateCakeRequest.builder()
+                    .title("group commit cake " + titles.incrementAndGet())
+                    .description("benchmark cake")
+                    .build();
+            long start = System.nanoTime();
+            create.apply(request);
+            latencies.recordValue(Math.min((System.nanoTime() - start) / 1_000, MAX_LATENCY_MICROS));
+        }
+        return latencies;
+    }
+}
@@ -0,0 +1,84 @@
+package epn.edu.ec.benchmark;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import epn.edu.ec.CakeServiceApplication;
+import epn.edu.ec.store.CakeStore;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Startup time of the {@code persistent} profile from a file source: a fresh start populates an
+ * empty H2 file database, a restart finds the source unchanged and keeps the stored catalog, and a
+ * restart after the source file was touched (same content, new modification time) has to digest it
+ * again before keeping the catalog. Run with {@code mvn test -Pbenchmark}.
+ */
+@Slf4j
+@Tag("benchmark")
+class CakeStartupBenchmarkTest {
+    private static final int[] CATALOG_SIZES = {10_000, 100_000, 1_000_000};
+
+    @TempDir
+    private Path tempDir;
+
+    @Test
+    void startup_freshAndRestored() throws IOException {
+        for (int catalogSize : CATALOG_SIZES) {
+            Path source = writeSource(catalogSize);
+            Path dataDir = tempDir.resolve("data-" + catalogSize);
+
+            start("fresh", catalogSize, source, dataDir);
+            start("restored", catalogSize, source, dataDir);
+            Files.setLastModifiedTime(source, FileTime.fromMillis(
+                    Files.getLastModifiedTime(source).toMillis() + 1_000));
+            start("touched", catalogSize, source, dataDir);
+        }
+    }
+
+    private void start(String name, int catalogSize, Path source, Path dataDir) {
+        long start = System.nanoTime();
+        // arguments, not default properties, which application.properties would override
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(CakeServiceApplication.class)
+                .run("--spring.profiles.active=persistent",
+                        "--cakes.data-dir=" + dataDir,
+                        "--cakes.populator.url=" + source.toUri(),
+                        "--server.port=0",
+                        "--cakes.admission.enabled=false",
+                        "--logging.level.root=WARN",
+                        "--logging.level.epn.edu.ec.benchmark=INFO")) {
+            long startupMillis = (System.nanoTime() - start) / 1_000_000;
+            double populatorMillis = context.getBean(MeterRegistry.class).get("cakes.populator.duration").timer()
+                    .totalTime(TimeUnit.MILLISECONDS);
+            assertEquals(catalogSize, context.getBean(CakeStore.class).count());
+            log.info("{} cakes, {}: started in {} ms, populator {} ms", catalogSize, name, startupMillis,
+                    Math.round(populatorMillis));
+        }
+    }
+
+    private Path writeSource(int catalogSize) throws IOException {
+        Path source = tempDir.resolve("cakes-" + catalogSize + ".json");
+        try (Writer writer = Files.newBufferedWriter(source)) {
+            writer.write('[');
+            for (int i = 0; i < catalogSize; i++) {
+                writer.write((i == 0 ? "" : ",") + "{\"title\":\"Startup cake " + i
+                        + "\",\"desc\":\"A cake loaded at startup, number " + i + "\",\"image\":\"https://example.com/"
+                        + i + ".jpg\"}");
+            }
+            writer.write(']');
+        }
+        return source;
+    }
+}
@@ -0,0 +1,116 @@
+package epn.edu.ec.benchmark;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.cloud.contract.wiremock.AutoConfigureWireMock;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import epn.edu.ec.model.cake.CakeBatchOperation;
+import epn.edu.ec.model.cake.CakeBatchRequest;
+import epn.edu.ec.model.cake.CakeResponse;
+import epn.edu.ec.service.CakeService;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Measures {@code GET /cakes/by-title/{title}} as the catalog grows; with the title key index the
+ * latency should stay flat. The same lookups are also timed as plain queries, through the index
+ * and as the case-insensitive scan it replaces. Run with {@code mvn test -Pbenchmark}.
+ */
+@Slf4j
+@Tag("benchmark")
+@SpringBootTest(
+        webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = {
+                "cakes.populator.url=http://localhost:${wiremock.server.port}/cakes.json",
+                // one client drives the whole load, admission control would throttle it
+                "cakes.admission.enabled=false"
+        })
+@AutoConfigureWireMock(port = 0)
+class CakeTitleLookupBenchmarkTest {
+    private static final int[] CATALOG_SIZES = {1_000, 10_000, 100_000};
+    private static final int LOOKUPS = 500;
+    private static final String INDEXED_QUERY = "select id from cakes where title_key = ?";
+    private static final String SCAN_QUERY = "select id from cakes where lower(title) = ?";
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${cakes.authentication.username}")
+    private String username;
+
+    @Value("${cakes.authentication.password}")
+    private String password;
+
+    @Test
+    void lookupByTitle_asCatalogGrows() {
+        Random random = new Random(42);
+        int inserted = 0;
+
+        for (int catalogSize : CATALOG_SIZES) {
+            while (inserted < catalogSize) {
+                int operations = Math.min(CakeService.MAX_BATCH_SIZE, catalogSize - inserted);
+                insertCakes(inserted, operations);
+                inserted += operations;
+            }
+
+            lookUp(random, inserted, LOOKUPS);
+            long start = System.nanoTime();
+            lookUp(random, inserted, LOOKUPS);
+            long nanos = System.nanoTime() - start;
+
+            log.info("{} cakes: {} title lookups in {} ms ({} us/lookup)",
+                    catalogSize, LOOKUPS, nanos / 1_000_000, nanos / 1_000 / LOOKUPS);
+
+            query(random, inserted, LOOKUPS, INDEXED_QUERY);
+            long indexedNanos = query(random, inserted, LOOKUPS, INDEXED_QUERY);
+            long scanNanos = query(random, inserted, LOOKUPS, SCAN_QUERY);
+            log.info("{} cakes: title key query {} us/lookup, case-insensitive scan {} us/lookup",
+                    catalogSize, indexedNanos / 1_000 / LOOKUPS, scanNanos / 1_000 / LOOKUPS);
+        }
+    }
+
+    private long query(Random random, int inserted, int lookups, String sql) {
+        long start = System.nanoTime();
+        for (int i = 0; i < lookups; i++) {
+            List<Long> ids = jdbcTemplate.queryForList(sql, Long.class, "lookup cake " + random.nextInt(inserted));
+            assertEquals(1, ids.size());
+        }
+        return System.nanoTime() - start;
+    }
+
+    private void insertCakes(int first, int operations) {
+        List<CakeBatchOperation> batch = new ArrayList<>(operations);
+        for (int i = first; i < first + operations; i++) {
+            batch.add(CakeBatchOperation.builder()
+                    .type(CakeBatchOperation.Type.CREATE)
+                    .title("Lookup Cake " + i)
+                    .description("benchmark cake")
+                    .build());
+        }
+        restTemplate.withBasicAuth(username, password)
+                .postForObject("/cakes/batch", new CakeBatchRequest(batch), Object.class);
+    }
+
+    private void lookUp(Random random, int inserted, int lookups) {
+        for (int i = 0; i < lookups; i++) {
+            // stored as "Lookup Cake n", looked up in lower case
+            ResponseEntity<CakeResponse> response = restTemplate.withBasicAuth(username, password)
+                    .getForEntity("/cakes/by-title/{title}", CakeResponse.class, "lookup cake " + random.nextInt(inserted));
+            assertEquals(200, response.getStatusCode().value());
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package epn.edu.ec.benchmark;
+
+import org.junit.jupiter.api.Tag;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cloud.contract.wiremock.AutoConfigureWireMock;
+
+@Tag("benchmark")
+@SpringBootTest(
+        webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = {
+                "cakes.populator.url=http://localhost:${wiremock.server.port}/cakes.json",
+                // one client drives the whole load, admission control would throttle it
+                "cakes.admission.enabled=false",
+                "spring.threads.virtual.enabled=false"
+        })
+@AutoConfigureWireMock(port = 0)
+class ReactiveLoadBenchmarkTest extends AbstractThreadingLoadBenchmark {
+
+    @Override
+    protected String mode() {
+        return "reactive, platform";
+    }
+
+    @Override
+    protected String requestPath() {
+        return "/reactive/cakes?limit=20";
+    }
+}
@@ -0,0 +1,71 @@
+package epn.edu.ec.benchmark.jmh;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.provisioning.InMemoryUserDetailsManager;
+
+import epn.edu.ec.security.CachingAuthenticationProvider;
+
+/**
+ * Per-request cost of authenticating Basic credentials, wired like {@code SecurityConfig}: the
+ * BCrypt-backed {@link DaoAuthenticationProvider} on its own, and behind a warm
+ * {@link CachingAuthenticationProvider}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CakeAuthenticationBenchmark {
+    private static final String USERNAME = "cake-user";
+    private static final String PASSWORD = "cake-password";
+
+    private DaoAuthenticationProvider passwordAuthentication;
+    private CachingAuthenticationProvider cachingAuthentication;
+
+    @Setup
+    public void setUp() {
+        BCryptPasswordEncoder passwordEncoder = new BCryptPasswordEncoder();
+        passwordAuthentication = new DaoAuthenticationProvider();
+        passwordAuthentication.setPasswordEncoder(passwordEncoder);
+        passwordAuthentication.setUserDetailsService(new InMemoryUserDetailsManager(
+                User.withUsername(USERNAME)
+                        .password(passwordEncoder.encode(PASSWORD))
+                        .authorities("ROLE_USER")
+                        .build()));
+
+        cachingAuthentication = new CachingAuthenticationProvider(passwordAuthentication, Duration.ofMinutes(5), 1000);
+        cachingAuthentication.authenticate(credentials());
+    }
+
+    @Benchmark
+    public Authentication passwordAuthentication() {
+        return passwordAuthentication.authenticate(credentials());
+    }
+
+    @Benchmark
+    public Authentication cachedAuthentication() {
+        return cachingAuthentication.authenticate(credentials());
+    }
+
+    private static Authentication credentials() {
+        return UsernamePasswordAuthenticationToken.unauthenticated(USERNAME, PASSWORD);
+    }
+}
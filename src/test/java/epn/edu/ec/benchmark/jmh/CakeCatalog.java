@@ -0,0 +1,96 @@
+package epn.edu.ec.benchmark.jmh;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Random;
+
+import epn.edu.ec.model.cake.CakeResponse;
+import epn.edu.ec.repository.CakeRepository;
+import epn.edu.ec.repository.model.Cake;
+import epn.edu.ec.service.CakeService;
+
+/**
+ * Deterministic catalogs for the JMH benchmarks: the same size always yields the same cakes.
+ */
+final class CakeCatalog {
+    static final long SEED = 42;
+
+    private static final String LETTERS = "abcdefghijklmnopqrstuvwxyz";
+
+    private CakeCatalog() {
+    }
+
+    static List<Cake> cakes(int size) {
+        Random random = new Random(SEED);
+        List<Cake> cakes = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            cakes.add(Cake.builder()
+                    .id(i + 1L)
+                    .title(words(random, 1 + random.nextInt(3)))
+                    .description(words(random, 3 + random.nextInt(8)))
+                    .build());
+        }
+        return cakes;
+    }
+
+    /**
+     * Ids of {@code count} cakes drawn uniformly from a catalog of the given size.
+     */
+    static long[] randomIds(int catalogSize, int count) {
+        Random random = new Random(SEED);
+        long[] ids = new long[count];
+        for (int i = 0; i < count; i++) {
+            ids[i] = 1 + random.nextInt(catalogSize);
+        }
+        return ids;
+    }
+
+    /**
+     * A repository answering the projection queries {@code findAllResponses} and
+     * {@code findResponseById} from memory, so the benchmarks measure the service and not the
+     * database or a mocking library.
+     */
+    static CakeRepository repository(List<Cake> cakes) {
+        Map<Long, CakeResponse> cakesById = new HashMap<>();
+        cakes.forEach(cake -> cakesById.put(cake.getId(), CakeService.cakeResponse(cake)));
+        List<CakeResponse> sortedCakes = cakesById.values().stream()
+                .sorted(Comparator.comparing(CakeResponse::getTitle).thenComparing(CakeResponse::getId))
+                .toList();
+
+        return (CakeRepository) Proxy.newProxyInstance(CakeRepository.class.getClassLoader(),
+                new Class<?>[] {CakeRepository.class},
+                (proxy, method, args) -> {
+                    if (method.getDeclaringClass() == Object.class) {
+                        return method.invoke(cakesById, args);
+                    }
+                    switch (method.getName()) {
+                        case "findAllResponses":
+                            return sortedCakes;
+                        case "findResponseById":
+                            return Optional.ofNullable(cakesById.get(args[0]));
+                        default:
+                            break;
+                    }
+                    throw new UnsupportedOperationException(method.toString());
+                });
+    }
+
+    private static String words(Random random, int count) {
+        StringBuilder words = new StringBuilder();
+        for (int word = 0; word < count; word++) {
+            if (word > 0) {
+                words.append(' ');
+            }
+            int length = 3 + random.nextInt(8);
+            for (int i = 0; i < length; i++) {
+                words.append(LETTERS.charAt(random.nextInt(LETTERS.length())));
+            }
+        }
+        return words.toString();
+    }
+}
@@ -0,0 +1,100 @@
+package epn.edu.ec.benchmark.jmh;
+
+import static java.util.stream.Collectors.toList;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+
+import epn.edu.ec.model.cake.CakesResponse;
+import epn.edu.ec.service.CakeService;
+
+/**
+ * {@code CakesResponse} in each response format, built like the message converters of
+ * {@code BinaryFormatsConfig}: serialization, serialization plus gzip (what a client receives once
+ * the response is over {@code server.compression.min-response-size}) and deserialization, as the
+ * server does for request bodies. The payload sizes, plain and gzipped, are printed once per trial.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Benchmark)
+public class CakeFormatBenchmark {
+
+    @Param({"json", "cbor", "smile"})
+    public String format;
+
+    @Param({"10", "1000", "100000"})
+    public int catalogSize;
+
+    private CakesResponse cakesResponse;
+    private ObjectWriter writer;
+    private ObjectReader reader;
+    private byte[] payload;
+
+    @Setup
+    public void setUp() throws IOException {
+        cakesResponse = new CakesResponse(CakeCatalog.cakes(catalogSize).stream()
+                .map(CakeService::cakeResponse)
+                .collect(toList()));
+
+        Jackson2ObjectMapperBuilder builder = Jackson2ObjectMapperBuilder.json();
+        ObjectMapper objectMapper = switch (format) {
+            case "json" -> builder.build();
+            case "cbor" -> builder.factory(new CBORFactory()).build();
+            case "smile" -> builder.factory(new SmileFactory()).build();
+            default -> throw new IllegalArgumentException(format);
+        };
+        writer = objectMapper.writerFor(CakesResponse.class);
+        reader = objectMapper.readerFor(CakesResponse.class);
+        payload = writer.writeValueAsBytes(cakesResponse);
+
+        System.out.printf("%n%s, %d cakes: %d bytes, %d bytes gzipped%n",
+                format, catalogSize, payload.length, gzip(payload).length);
+    }
+
+    @Benchmark
+    public byte[] serializeCakes() throws IOException {
+        return writer.writeValueAsBytes(cakesResponse);
+    }
+
+    @Benchmark
+    public byte[] serializeCakesGzipped() throws IOException {
+        return gzip(writer.writeValueAsBytes(cakesResponse));
+    }
+
+    @Benchmark
+    public CakesResponse deserializeCakes() throws IOException {
+        return reader.readValue(payload);
+    }
+
+    private static byte[] gzip(byte[] body) throws IOException {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream(body.length / 2 + 64);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+            gzip.write(body);
+        }
+        return compressed.toByteArray();
+    }
+}
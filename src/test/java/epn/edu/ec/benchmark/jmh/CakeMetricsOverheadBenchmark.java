@@ -0,0 +1,84 @@
+package epn.edu.ec.benchmark.jmh;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import epn.edu.ec.model.cake.CakeResponse;
+import epn.edu.ec.repository.CakeRepository;
+import epn.edu.ec.service.CakeService;
+import epn.edu.ec.store.JpaCakeStore;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.prometheusmetrics.PrometheusConfig;
+import io.micrometer.prometheusmetrics.PrometheusMeterRegistry;
+
+/**
+ * Cost of the instrumentation added to the hot path: {@code getCakeById} on its own and wrapped in
+ * a Prometheus timer configured like {@code http.server.requests} (client-side percentiles plus a
+ * percentile histogram), and a tagged counter increment as done for not found cakes.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CakeMetricsOverheadBenchmark {
+    private static final int CATALOG_SIZE = 1000;
+    private static final int LOOKUPS = 1024;
+
+    private CakeService cakeService;
+    private Timer timer;
+    private Counter counter;
+    private long[] lookupIds;
+    private int nextLookup;
+
+    @Setup
+    public void setUp() {
+        CakeRepository cakeRepository = CakeCatalog.repository(CakeCatalog.cakes(CATALOG_SIZE));
+        cakeService = new CakeService(cakeRepository, new JpaCakeStore(cakeRepository), null,
+                Jackson2ObjectMapperBuilder.json().build(), null, null, null, null, new SimpleMeterRegistry());
+        lookupIds = CakeCatalog.randomIds(CATALOG_SIZE, LOOKUPS);
+
+        PrometheusMeterRegistry registry = new PrometheusMeterRegistry(PrometheusConfig.DEFAULT);
+        timer = Timer.builder("http.server.requests")
+                .tags("method", "GET", "uri", "/cakes/{id}", "status", "200", "outcome", "SUCCESS")
+                .publishPercentiles(0.5, 0.9, 0.99)
+                .publishPercentileHistogram()
+                .register(registry);
+        counter = registry.counter(CakeService.NOT_FOUND_METRIC, "operation", "get");
+    }
+
+    @Benchmark
+    public CakeResponse getCakeById() {
+        return cakeService.getCakeById(nextLookupId());
+    }
+
+    @Benchmark
+    public CakeResponse timedGetCakeById() {
+        return timer.record(() -> cakeService.getCakeById(nextLookupId()));
+    }
+
+    @Benchmark
+    public void notFoundCounter() {
+        counter.increment();
+    }
+
+    private long nextLookupId() {
+        long id = lookupIds[nextLookup];
+        nextLookup = (nextLookup + 1) % LOOKUPS;
+        return id;
+    }
+}
@@ -0,0 +1,126 @@
+package epn.edu.ec.benchmark.jmh;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import epn.edu.ec.CakeServiceApplication;
+import epn.edu.ec.model.cake.CakeResponse;
+import epn.edu.ec.repository.CakeRepository;
+import epn.edu.ec.repository.model.Cake;
+import epn.edu.ec.service.CakeService;
+
+/**
+ * The read queries against H2 through JPA: loading managed {@link Cake} entities, mapping and
+ * sorting them in memory (the read path before the projections) versus selecting
+ * {@link CakeResponse} directly, ordered by the database. Both run in the same read-only
+ * transaction. Add {@code -prof gc} to the JMH arguments for the allocation rate per operation.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Benchmark)
+public class CakeReadQueryBenchmark {
+    private static final int LOOKUPS = 1024;
+    private static final int INSERT_CHUNK = 1000;
+
+    @Param({"1000", "100000", "1000000"})
+    public int catalogSize;
+
+    private ConfigurableApplicationContext context;
+    private CakeRepository cakeRepository;
+    private TransactionTemplate readOnly;
+    private long[] lookupIds;
+    private int nextLookup;
+
+    @Setup
+    public void setUp() {
+        // arguments, not default properties, which application.properties would override
+        context = new SpringApplicationBuilder(CakeServiceApplication.class)
+                .run(
+                        "--server.port=0",
+                        "--spring.datasource.url=jdbc:h2:mem:cake-read-benchmark-" + catalogSize,
+                        "--cakes.populator.url=classpath:__files/cakes.json",
+                        "--logging.level.root=WARN");
+        cakeRepository = context.getBean(CakeRepository.class);
+        readOnly = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        readOnly.setReadOnly(true);
+
+        List<Cake> cakes = CakeCatalog.cakes(catalogSize);
+        List<Long> ids = new ArrayList<>(catalogSize);
+        for (int first = 0; first < catalogSize; first += INSERT_CHUNK) {
+            List<Cake> chunk = new ArrayList<>(INSERT_CHUNK);
+            for (int i = first; i < Math.min(first + INSERT_CHUNK, catalogSize); i++) {
+                Cake cake = cakes.get(i);
+                // generated titles repeat at this scale, titles have to be unique
+                chunk.add(Cake.builder()
+                        .title(cake.getTitle() + " " + i)
+                        .description(cake.getDescription())
+                        .build());
+            }
+            cakeRepository.saveAll(chunk).forEach(saved -> ids.add(saved.getId()));
+        }
+
+        long[] positions = CakeCatalog.randomIds(catalogSize, LOOKUPS);
+        lookupIds = new long[LOOKUPS];
+        for (int i = 0; i < LOOKUPS; i++) {
+            lookupIds[i] = ids.get((int) positions[i] - 1);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<CakeResponse> getCakesFromEntities() {
+        return readOnly.execute(status -> cakeRepository.findAll().stream()
+                .map(CakeService::cakeResponse)
+                .sorted(Comparator.comparing(CakeResponse::getTitle))
+                .toList());
+    }
+
+    @Benchmark
+    public List<CakeResponse> getCakesProjected() {
+        return readOnly.execute(status -> cakeRepository.findAllResponses());
+    }
+
+    @Benchmark
+    public CakeResponse getCakeByIdFromEntity() {
+        long id = nextLookupId();
+        return readOnly.execute(status -> cakeRepository.findById(id).map(CakeService::cakeResponse).orElseThrow());
+    }
+
+    @Benchmark
+    public CakeResponse getCakeByIdProjected() {
+        long id = nextLookupId();
+        return readOnly.execute(status -> cakeRepository.findResponseById(id).orElseThrow());
+    }
+
+    private long nextLookupId() {
+        long id = lookupIds[nextLookup];
+        nextLookup = (nextLookup + 1) % LOOKUPS;
+        return id;
+    }
+}
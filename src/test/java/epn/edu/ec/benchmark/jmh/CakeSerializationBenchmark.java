@@ -0,0 +1,66 @@
+package epn.edu.ec.benchmark.jmh;
+
+import static java.util.stream.Collectors.toList;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+import epn.edu.ec.model.cake.CakeResponse;
+import epn.edu.ec.model.cake.CakesResponse;
+import epn.edu.ec.service.CakeService;
+
+/**
+ * Jackson serialization of the API models with an {@code ObjectMapper} configured like Spring
+ * Boot's, as done by the message converters on every response.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Benchmark)
+public class CakeSerializationBenchmark {
+
+    @Param({"10", "1000", "100000", "1000000"})
+    public int catalogSize;
+
+    private CakesResponse cakesResponse;
+    private CakeResponse cakeResponse;
+    private ObjectWriter cakesWriter;
+    private ObjectWriter cakeWriter;
+
+    @Setup
+    public void setUp() {
+        cakesResponse = new CakesResponse(CakeCatalog.cakes(catalogSize).stream()
+                .map(CakeService::cakeResponse)
+                .collect(toList()));
+        cakeResponse = cakesResponse.getCakes().get(0);
+        cakesWriter = Jackson2ObjectMapperBuilder.json().build().writerFor(CakesResponse.class);
+        cakeWriter = Jackson2ObjectMapperBuilder.json().build().writerFor(CakeResponse.class);
+    }
+
+    @Benchmark
+    public byte[] serializeCakes() throws JsonProcessingException {
+        return cakesWriter.writeValueAsBytes(cakesResponse);
+    }
+
+    @Benchmark
+    public byte[] serializeCake() throws JsonProcessingException {
+        return cakeWriter.writeValueAsBytes(cakeResponse);
+    }
+}
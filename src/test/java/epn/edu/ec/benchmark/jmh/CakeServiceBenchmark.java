@@ -0,0 +1,78 @@
+package epn.edu.ec.benchmark.jmh;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import epn.edu.ec.model.cake.CakeResponse;
+import epn.edu.ec.model.cake.CakesResponse;
+import epn.edu.ec.repository.CakeRepository;
+import epn.edu.ec.repository.model.Cake;
+import epn.edu.ec.service.CakeService;
+import epn.edu.ec.store.JpaCakeStore;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * {@link CakeService} read paths over an in-memory repository, so only the work done by the
+ * service itself is measured; the database side is covered by {@link CakeReadQueryBenchmark}.
+ * {@code getCakeById} is called on the plain instance, without the cache proxy.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Benchmark)
+public class CakeServiceBenchmark {
+    private static final int LOOKUPS = 1024;
+
+    @Param({"10", "1000", "100000", "1000000"})
+    public int catalogSize;
+
+    private List<Cake> cakes;
+    private CakeService cakeService;
+    private long[] lookupIds;
+    private int nextLookup;
+
+    @Setup
+    public void setUp() {
+        cakes = CakeCatalog.cakes(catalogSize);
+        CakeRepository cakeRepository = CakeCatalog.repository(cakes);
+        cakeService = new CakeService(cakeRepository, new JpaCakeStore(cakeRepository), null,
+                Jackson2ObjectMapperBuilder.json().build(), null, null, null, null, new SimpleMeterRegistry());
+        lookupIds = CakeCatalog.randomIds(catalogSize, LOOKUPS);
+    }
+
+    @Benchmark
+    public CakesResponse getCakes() {
+        return cakeService.getCakes();
+    }
+
+    @Benchmark
+    public CakeResponse getCakeById() {
+        return cakeService.getCakeById(nextLookupId());
+    }
+
+    @Benchmark
+    public CakeResponse cakeResponse() {
+        return CakeService.cakeResponse(cakes.get((int) nextLookupId() - 1));
+    }
+
+    private long nextLookupId() {
+        long id = lookupIds[nextLookup];
+        nextLookup = (nextLookup + 1) % LOOKUPS;
+        return id;
+    }
+}
@@ -0,0 +1,137 @@
+package epn.edu.ec.benchmark.jmh;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import epn.edu.ec.CakeServiceApplication;
+import epn.edu.ec.model.cake.CakeResponse;
+import epn.edu.ec.model.cake.CakesResponse;
+import epn.edu.ec.model.cake.CreateCakeRequest;
+import epn.edu.ec.repository.model.Cake;
+import epn.edu.ec.service.CakeCursor;
+import epn.edu.ec.service.CakeService;
+import epn.edu.ec.store.CakeStore;
+import epn.edu.ec.store.ShardedCakeStore;
+
+/**
+ * {@link CakeService} over the {@link ShardedCakeStore} as the number of local H2 shards grows from
+ * one to eight: by-id reads go to one shard, pages and the full listing are gathered from every
+ * shard and merged, and concurrent creates ({@value #WRITERS} threads) spread over the shards. The
+ * cake cache is off, so every {@code getCakeById} reaches a shard.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Benchmark)
+public class CakeShardingBenchmark {
+    private static final int WRITERS = 8;
+    private static final int CATALOG_SIZE = 100_000;
+    private static final int LOOKUPS = 1024;
+    private static final int INSERT_CHUNK = 1000;
+    private static final int PAGE_SIZE = CakeService.DEFAULT_PAGE_SIZE;
+
+    @Param({"1", "2", "4", "8"})
+    public int shardCount;
+
+    private ConfigurableApplicationContext context;
+    private CakeService cakeService;
+    private long[] lookupIds;
+    private String[] pageCursors;
+    private final AtomicLong nextLookup = new AtomicLong();
+    private final AtomicLong createdCakes = new AtomicLong();
+
+    @Setup
+    public void setUp() {
+        // arguments, not default properties, which application.properties would override
+        context = new SpringApplicationBuilder(CakeServiceApplication.class)
+                .run("--server.port=0",
+                        "--spring.datasource.url=jdbc:h2:mem:cake-sharding-benchmark-" + shardCount,
+                        "--cakes.populator.url=classpath:__files/cakes.json",
+                        "--cakes.store.type=sharded",
+                        "--cakes.store.sharded.count=" + shardCount,
+                        "--cakes.store.sharded.url=jdbc:h2:mem:cake-sharding-benchmark-" + shardCount
+                                + "-shard-%d;DB_CLOSE_DELAY=-1",
+                        "--spring.cache.type=none",
+                        "--cakes.admission.enabled=false",
+                        "--logging.level.root=WARN");
+        cakeService = context.getBean(CakeService.class);
+        CakeStore cakeStore = context.getBean(CakeStore.class);
+
+        List<Cake> cakes = CakeCatalog.cakes(CATALOG_SIZE);
+        List<CakeResponse> saved = new ArrayList<>(CATALOG_SIZE);
+        for (int first = 0; first < CATALOG_SIZE; first += INSERT_CHUNK) {
+            List<Cake> chunk = new ArrayList<>(INSERT_CHUNK);
+            for (int i = first; i < Math.min(first + INSERT_CHUNK, CATALOG_SIZE); i++) {
+                Cake cake = cakes.get(i);
+                // generated titles repeat at this scale, titles have to be unique
+                chunk.add(Cake.builder()
+                        .title(cake.getTitle() + " " + i)
+                        .description(cake.getDescription())
+                        .build());
+            }
+            saved.addAll(cakeStore.insertAll(chunk));
+        }
+
+        long[] positions = CakeCatalog.randomIds(CATALOG_SIZE, LOOKUPS);
+        lookupIds = new long[LOOKUPS];
+        pageCursors = new String[LOOKUPS];
+        for (int i = 0; i < LOOKUPS; i++) {
+            CakeResponse cake = saved.get((int) positions[i] - 1);
+            lookupIds[i] = cake.getId();
+            pageCursors[i] = new CakeCursor(cake.getTitle(), cake.getId()).encode();
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public CakeResponse getCakeById() {
+        return cakeService.getCakeById(lookupIds[nextLookup()]);
+    }
+
+    @Benchmark
+    public CakesResponse getCakesPage() {
+        return cakeService.getCakes(PAGE_SIZE, pageCursors[nextLookup()]);
+    }
+
+    @Benchmark
+    public CakesResponse getCakes() {
+        return cakeService.getCakes();
+    }
+
+    @Benchmark
+    @Threads(WRITERS)
+    public CakeResponse createCake() {
+        return cakeService.createCake(CreateCakeRequest.builder()
+                .title("sharding benchmark cake " + createdCakes.incrementAndGet())
+                .description("benchmark cake")
+                .build());
+    }
+
+    private int nextLookup() {
+        return (int) (nextLookup.getAndIncrement() % LOOKUPS);
+    }
+}
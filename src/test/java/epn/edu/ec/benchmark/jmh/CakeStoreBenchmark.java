@@ -0,0 +1,151 @@
+package epn.edu.ec.benchmark.jmh;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import epn.edu.ec.CakeServiceApplication;
+import epn.edu.ec.event.CakeCatalogPopulatedEvent;
+import epn.edu.ec.model.cake.CakeResponse;
+import epn.edu.ec.model.cake.CakesResponse;
+import epn.edu.ec.repository.CakeRepository;
+import epn.edu.ec.repository.model.Cake;
+import epn.edu.ec.service.CakeCursor;
+import epn.edu.ec.service.CakeService;
+import epn.edu.ec.store.CompactCakeStore;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * {@link CakeService} reads served by each {@code cakes.store.type}: {@code jpa} queries H2,
+ * {@code compact} answers from the in-process {@code CompactCakeCatalog}. The cake cache is off, so
+ * every {@code getCakeById} reaches the store. Setup prints the heap taken by the loaded catalog
+ * per cake (H2 plus, for {@code compact}, the catalog) and, for {@code compact}, the bytes of the
+ * catalog itself as reported by {@link CompactCakeStore#MEMORY_METRIC}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Benchmark)
+public class CakeStoreBenchmark {
+    private static final int LOOKUPS = 1024;
+    private static final int INSERT_CHUNK = 1000;
+    private static final int PAGE_SIZE = CakeService.DEFAULT_PAGE_SIZE;
+
+    @Param({"jpa", "compact"})
+    public String storeType;
+
+    @Param({"1000", "100000", "1000000"})
+    public int catalogSize;
+
+    private ConfigurableApplicationContext context;
+    private CakeService cakeService;
+    private long[] lookupIds;
+    private String[] pageCursors;
+    private int nextLookup;
+
+    @Setup
+    public void setUp() {
+        // arguments, not default properties, which application.properties would override
+        context = new SpringApplicationBuilder(CakeServiceApplication.class)
+                .run("--server.port=0",
+                        "--spring.datasource.url=jdbc:h2:mem:cake-store-benchmark-" + storeType + "-" + catalogSize,
+                        "--cakes.populator.url=classpath:__files/cakes.json",
+                        "--cakes.store.type=" + storeType,
+                        "--spring.cache.type=none",
+                        "--cakes.admission.enabled=false",
+                        "--logging.level.root=WARN");
+        cakeService = context.getBean(CakeService.class);
+        CakeRepository cakeRepository = context.getBean(CakeRepository.class);
+
+        long heapBefore = usedHeap();
+        List<Cake> cakes = CakeCatalog.cakes(catalogSize);
+        List<CakeResponse> saved = new ArrayList<>(catalogSize);
+        for (int first = 0; first < catalogSize; first += INSERT_CHUNK) {
+            List<Cake> chunk = new ArrayList<>(INSERT_CHUNK);
+            for (int i = first; i < Math.min(first + INSERT_CHUNK, catalogSize); i++) {
+                Cake cake = cakes.get(i);
+                // generated titles repeat at this scale, titles have to be unique
+                chunk.add(Cake.builder()
+                        .title(cake.getTitle() + " " + i)
+                        .description(cake.getDescription())
+                        .build());
+            }
+            cakeRepository.saveAll(chunk).forEach(cake -> saved.add(CakeService.cakeResponse(cake)));
+        }
+        // the cakes were inserted behind the service's back: reload the in-process copies
+        context.publishEvent(new CakeCatalogPopulatedEvent(catalogSize));
+
+        long[] positions = CakeCatalog.randomIds(catalogSize, LOOKUPS);
+        lookupIds = new long[LOOKUPS];
+        pageCursors = new String[LOOKUPS];
+        for (int i = 0; i < LOOKUPS; i++) {
+            CakeResponse cake = saved.get((int) positions[i] - 1);
+            lookupIds[i] = cake.getId();
+            pageCursors[i] = new CakeCursor(cake.getTitle(), cake.getId()).encode();
+        }
+        cakes = null;
+        saved.clear();
+        long heapAfter = usedHeap();
+
+        System.out.printf("%n%s store, %d cakes: %d heap bytes per cake%n",
+                storeType, catalogSize, (heapAfter - heapBefore) / catalogSize);
+        if (context.containsBean("compactCakeStore")) {
+            double catalogBytes = context.getBean(MeterRegistry.class)
+                    .get(CompactCakeStore.MEMORY_METRIC).gauge().value();
+            System.out.printf("compact catalog: %d bytes per cake%n", (long) catalogBytes / catalogSize);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public CakeResponse getCakeById() {
+        return cakeService.getCakeById(lookupIds[nextLookup()]);
+    }
+
+    @Benchmark
+    public CakesResponse getCakesPage() {
+        return cakeService.getCakes(PAGE_SIZE, pageCursors[nextLookup()]);
+    }
+
+    @Benchmark
+    public CakesResponse getCakes() {
+        return cakeService.getCakes();
+    }
+
+    private int nextLookup() {
+        int lookup = nextLookup;
+        nextLookup = (nextLookup + 1) % LOOKUPS;
+        return lookup;
+    }
+
+    private static long usedHeap() {
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return memory.getHeapMemoryUsage().getUsed();
+    }
+}
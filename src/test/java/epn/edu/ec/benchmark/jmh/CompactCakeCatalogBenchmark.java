@@ -0,0 +1,73 @@
+package epn.edu.ec.benchmark.jmh;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import epn.edu.ec.model.cake.CakeResponse;
+import epn.edu.ec.service.CakeService;
+import epn.edu.ec.store.CompactCakeCatalog;
+
+/**
+ * Cost of a single change to a {@link CompactCakeCatalog}, which copies its tables and record order
+ * on every write; run with {@code -prof gc} to see the bytes copied per change. Rebuilds, once
+ * replaced records outnumber live cakes, are included in the average.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Benchmark)
+public class CompactCakeCatalogBenchmark {
+    private static final int LOOKUPS = 1024;
+
+    @Param({"1000", "100000", "1000000"})
+    public int catalogSize;
+
+    private CompactCakeCatalog catalog;
+    private CakeResponse[] updates;
+    private long revision;
+    private int nextUpdate;
+
+    @Setup
+    public void setUp() {
+        List<CakeResponse> cakes = CakeCatalog.cakes(catalogSize).stream()
+                .map(CakeService::cakeResponse)
+                .toList();
+        catalog = new CompactCakeCatalog(false);
+        catalog.load(cakes, revision);
+
+        long[] ids = CakeCatalog.randomIds(catalogSize, LOOKUPS);
+        updates = new CakeResponse[LOOKUPS];
+        for (int i = 0; i < LOOKUPS; i++) {
+            CakeResponse cake = cakes.get((int) ids[i] - 1);
+            updates[i] = new CakeResponse(cake.getId(), cake.getTitle(), cake.getDescription() + " again", 1L);
+        }
+    }
+
+    @Benchmark
+    public int updateCake() {
+        catalog.put(updates[nextUpdate], ++revision);
+        nextUpdate = (nextUpdate + 1) % LOOKUPS;
+        return catalog.size();
+    }
+
+    @Benchmark
+    public CakeResponse findById() {
+        CakeResponse cake = catalog.findById(updates[nextUpdate].getId()).orElseThrow();
+        nextUpdate = (nextUpdate + 1) % LOOKUPS;
+        return cake;
+    }
+}
@@ -1,35 +1,62 @@
 package epn.edu.ec.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import epn.edu.ec.config.BinaryFormatsConfig;
+import epn.edu.ec.model.cake.CakeBatchOperation;
+import epn.edu.ec.model.cake.CakeBatchRequest;
+import epn.edu.ec.model.cake.CakeBatchResponse;
+import epn.edu.ec.model.cake.CakeBatchResult;
+import epn.edu.ec.model.cake.CakeDeltaResponse;
+import epn.edu.ec.model.cake.CakeQuery;
 import epn.edu.ec.model.cake.CakeResponse;
 import epn.edu.ec.model.cake.CakesResponse;
 import epn.edu.ec.model.cake.CreateCakeRequest;
+import epn.edu.ec.service.CakeCatalogSnapshot;
+import epn.edu.ec.service.CakeChangeFeed;
 import epn.edu.ec.service.CakeService;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.autoconfigure.security.servlet.SecurityAutoConfiguration;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.context.annotation.Import;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.ResultActions;
 
+import java.io.OutputStream;
 import java.util.List;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import epn.edu.ec.exception.CakeNotFoundException;
+import epn.edu.ec.exception.CakeOperationNotSupportedException;
+import epn.edu.ec.exception.CakeTitleConflictException;
+import epn.edu.ec.exception.CakeVersionConflictException;
+import epn.edu.ec.exception.CatalogRevisionExpiredException;
+import epn.edu.ec.exception.InvalidCakeCursorException;
 import epn.edu.ec.model.cake.UpdateCakeRequest;
 import java.util.Collections;
 
 @WebMvcTest(value = CakeController.class, excludeAutoConfiguration = { SecurityAutoConfiguration.class })
+@Import({ CakeCatalogSnapshot.class, BinaryFormatsConfig.class })
 @ActiveProfiles("test")
 public class CakeControllerTest {
 
@@ -42,12 +69,23 @@ public class CakeControllerTest {
         @MockitoBean
         private CakeService cakeService;
 
+        @MockitoBean
+        private CakeChangeFeed changeFeed;
+
+        @Autowired
+        private CakeCatalogSnapshot catalogSnapshot;
+
         private final long cakeId = 1L;
         private final CakeResponse mockCakeResponse = new CakeResponse(
                         cakeId, "Mock Cake", "Mock cake description");
         @Autowired
         private ObjectMapper objectMapper;
 
+        @BeforeEach
+        public void setUp() {
+                catalogSnapshot.invalidate();
+        }
+
         @Test
         public void getCakes_shouldReturnListOfCakes() throws Exception {
                 // ARRANGE
@@ -66,6 +104,196 @@ public class CakeControllerTest {
                 verify(cakeService, times(1)).getCakes();
         }
 
+        @Test
+        public void getCakes_shouldServeSnapshotWithEtag_andNotModifiedOnMatch() throws Exception {
+                // ARRANGE
+                when(cakeService.getCakes()).thenReturn(new CakesResponse(List.of(mockCakeResponse)));
+                String etag = mockMvc.perform(get("/cakes"))
+                                .andExpect(status().isOk())
+                                .andExpect(header().exists("ETag"))
+                                .andReturn().getResponse().getHeader("ETag");
+
+                // ACT
+                ResultActions result = mockMvc.perform(get("/cakes")
+                                .header("If-None-Match", etag));
+
+                // ASSERT
+                result.andExpect(status().isNotModified());
+                result.andExpect(header().string("ETag", etag));
+
+                // the second request was answered from the snapshot
+                verify(cakeService, times(1)).getCakes();
+        }
+
+        @Test
+        public void getCakes_shouldRebuildSnapshot_afterInvalidation() throws Exception {
+                // ARRANGE
+                when(cakeService.getCakes())
+                                .thenReturn(new CakesResponse(List.of(mockCakeResponse)))
+                                .thenReturn(new CakesResponse(Collections.emptyList()));
+                String etag = mockMvc.perform(get("/cakes"))
+                                .andReturn().getResponse().getHeader("ETag");
+                catalogSnapshot.invalidate();
+
+                // ACT
+                ResultActions result = mockMvc.perform(get("/cakes")
+                                .header("If-None-Match", etag));
+
+                // ASSERT
+                result.andExpect(status().isOk());
+                result.andExpect(content().json(mapper.writeValueAsString(new CakesResponse(Collections.emptyList()))));
+                verify(cakeService, times(2)).getCakes();
+        }
+
+        @Test
+        public void getCakes_shouldServeCborSnapshot_whenCborIsAccepted() throws Exception {
+                // ARRANGE
+                CakesResponse cakesResponse = new CakesResponse(List.of(mockCakeResponse));
+                when(cakeService.getCakes()).thenReturn(cakesResponse);
+                String jsonEtag = mockMvc.perform(get("/cakes"))
+                                .andReturn().getResponse().getHeader("ETag");
+
+                // ACT
+                MvcResult result = mockMvc.perform(get("/cakes")
+                                .header("Accept", "application/json;q=0.5, application/cbor"))
+                                .andReturn();
+
+                // ASSERT
+                assertEquals(200, result.getResponse().getStatus());
+                assertEquals("application/cbor", result.getResponse().getContentType());
+                assertEquals("Accept", result.getResponse().getHeader("Vary"));
+                assertNotEquals(jsonEtag, result.getResponse().getHeader("ETag"));
+                assertEquals(cakesResponse, new ObjectMapper(new CBORFactory())
+                                .readValue(result.getResponse().getContentAsByteArray(), CakesResponse.class));
+        }
+
+        @Test
+        public void getCakes_shouldRebuildEveryServedFormat_fromOneCatalogRead() throws Exception {
+                // ARRANGE
+                when(cakeService.getCakes()).thenReturn(new CakesResponse(List.of(mockCakeResponse)));
+                mockMvc.perform(get("/cakes"));
+                mockMvc.perform(get("/cakes").header("Accept", "application/cbor"));
+                catalogSnapshot.invalidate();
+                clearInvocations(cakeService);
+
+                // ACT
+                mockMvc.perform(get("/cakes"));
+                MvcResult result = mockMvc.perform(get("/cakes").header("Accept", "application/cbor")).andReturn();
+
+                // ASSERT
+                assertEquals("application/cbor", result.getResponse().getContentType());
+                verify(cakeService, times(1)).getCakes();
+        }
+
+        @Test
+        public void getCakes_shouldReturnPage_whenLimitIsGiven() throws Exception {
+                // ARRANGE
+                CakesResponse cakesResponse = new CakesResponse(List.of(mockCakeResponse), "next-cursor");
+                when(cakeService.getCakes(1, null)).thenReturn(cakesResponse);
+
+                // ACT
+                ResultActions result = mockMvc.perform(get("/cakes")
+                                .param("limit", "1")
+                                .contentType("application/json"));
+
+                // ASSERT
+                result.andExpect(status().isOk());
+                result.andExpect(content().json(mapper.writeValueAsString(cakesResponse)));
+
+                verify(cakeService, times(1)).getCakes(1, null);
+                verify(cakeService, never()).getCakes();
+        }
+
+        @Test
+        public void getCakes_shouldReturnBadRequest_whenCursorIsInvalid() throws Exception {
+                // ARRANGE
+                when(cakeService.getCakes(CakeService.DEFAULT_PAGE_SIZE, "bogus"))
+                                .thenThrow(new InvalidCakeCursorException());
+
+                // ACT
+                ResultActions result = mockMvc.perform(get("/cakes")
+                                .param("after", "bogus")
+                                .contentType("application/json"));
+
+                // ASSERT
+                result.andExpect(status().isBadRequest());
+        }
+
+        @Test
+        public void getCakes_shouldFindCakes_whenFilteredOrSorted() throws Exception {
+                // ARRANGE
+                CakesResponse cakesResponse = new CakesResponse(List.of(mockCakeResponse));
+                CakeQuery query = CakeQuery.builder()
+                                .titleStartsWith("lemon")
+                                .sort(CakeQuery.parseSort(List.of("-description", "id")))
+                                .build();
+                when(cakeService.findCakes(query, CakeService.DEFAULT_PAGE_SIZE, null)).thenReturn(cakesResponse);
+
+                // ACT
+                ResultActions result = mockMvc.perform(get("/cakes")
+                                .param("titleStartsWith", "lemon")
+                                .param("sort", "-description,id")
+                                .contentType("application/json"));
+
+                // ASSERT
+                result.andExpect(status().isOk());
+                result.andExpect(content().json(mapper.writeValueAsString(cakesResponse)));
+
+                verify(cakeService, never()).getCakes();
+        }
+
+        @Test
+        public void getCakes_shouldReturnBadRequest_whenSortFieldIsUnknown() throws Exception {
+                // ACT
+                ResultActions result = mockMvc.perform(get("/cakes")
+                                .param("sort", "price")
+                                .contentType("application/json"));
+
+                // ASSERT
+                result.andExpect(status().isBadRequest());
+        }
+
+        @Test
+        public void exportCakes_shouldStreamNdjson() throws Exception {
+                // ARRANGE
+                doAnswer(invocation -> {
+                        OutputStream outputStream = invocation.getArgument(0);
+                        outputStream.write((mapper.writeValueAsString(mockCakeResponse) + "\n").getBytes());
+                        return null;
+                }).when(cakeService).exportCakes(any(OutputStream.class));
+
+                // ACT
+                MvcResult asyncResult = mockMvc.perform(get("/cakes/export"))
+                                .andExpect(request().asyncStarted())
+                                .andReturn();
+                ResultActions result = mockMvc.perform(asyncDispatch(asyncResult));
+
+                // ASSERT
+                result.andExpect(status().isOk());
+                result.andExpect(content().contentType("application/x-ndjson"));
+                result.andExpect(content().string(mapper.writeValueAsString(mockCakeResponse) + "\n"));
+
+                verify(cakeService, times(1)).exportCakes(any(OutputStream.class));
+        }
+
+        @Test
+        public void getChanges_shouldStreamServerSentEvents() throws Exception {
+                // ARRANGE
+                SseEmitter emitter = new SseEmitter();
+                emitter.send(SseEmitter.event().id("1").name("deleted").data("{}"));
+                emitter.complete();
+                when(changeFeed.subscribe()).thenReturn(emitter);
+
+                // ACT
+                ResultActions result = mockMvc.perform(get("/cakes/changes").accept("text/event-stream"));
+
+                // ASSERT
+                result.andExpect(request().asyncStarted());
+                result.andExpect(content().string("id:1\nevent:deleted\ndata:{}\n\n"));
+
+                verify(changeFeed, times(1)).subscribe();
+        }
+
         @Test
         public void createCake_shouldReturnCreatedCake() throws Exception {
                 // ARRANGE
@@ -94,6 +322,92 @@ public class CakeControllerTest {
                 result.andExpect(content().json(mapper.writeValueAsString(cakeResponse)));
         }
 
+        @Test
+        public void createCake_shouldReadAndWriteSmile() throws Exception {
+                // ARRANGE
+                ObjectMapper smileMapper = new ObjectMapper(new SmileFactory());
+                CreateCakeRequest createCakeRequest = CreateCakeRequest.builder()
+                                .title("New Cake")
+                                .description("New cake description")
+                                .build();
+                CakeResponse cakeResponse = new CakeResponse(2L, "New Cake", "New cake description");
+
+                when(cakeService.createCake(createCakeRequest)).thenReturn(cakeResponse);
+
+                // ACT
+                MvcResult result = mockMvc.perform(post("/cakes")
+                                .contentType(BinaryFormatsConfig.APPLICATION_SMILE_VALUE)
+                                .accept(BinaryFormatsConfig.APPLICATION_SMILE_VALUE)
+                                .content(smileMapper.writeValueAsBytes(createCakeRequest)))
+                                .andReturn();
+
+                // ASSERT
+                assertEquals(201, result.getResponse().getStatus());
+                assertEquals(BinaryFormatsConfig.APPLICATION_SMILE_VALUE, result.getResponse().getContentType());
+                assertEquals(cakeResponse, smileMapper.readValue(result.getResponse().getContentAsByteArray(),
+                                CakeResponse.class));
+        }
+
+        @Test
+        public void createCake_shouldReturnConflict_whenTitleExists() throws Exception {
+                // ARRANGE
+                CreateCakeRequest createCakeRequest = CreateCakeRequest.builder()
+                                .title("new cake")
+                                .description("Duplicate cake")
+                                .build();
+
+                when(cakeService.createCake(createCakeRequest)).thenThrow(new CakeTitleConflictException());
+
+                // ACT
+                ResultActions result = mockMvc.perform(post("/cakes")
+                                .contentType("application/json")
+                                .content(mapper.writeValueAsString(createCakeRequest)));
+
+                // ASSERT
+                result.andExpect(status().isConflict());
+        }
+
+        @Test
+        public void applyBatch_shouldReturnResultPerOperation() throws Exception {
+                // ARRANGE
+                CakeBatchRequest batchRequest = new CakeBatchRequest(List.of(
+                                CakeBatchOperation.builder()
+                                                .type(CakeBatchOperation.Type.CREATE)
+                                                .title("New Cake")
+                                                .description("New cake description")
+                                                .build(),
+                                CakeBatchOperation.builder()
+                                                .type(CakeBatchOperation.Type.DELETE)
+                                                .id(cakeId)
+                                                .build()));
+                CakeBatchResponse batchResponse = new CakeBatchResponse(List.of(
+                                new CakeBatchResult(0, CakeBatchOperation.Type.CREATE, 2L, CakeBatchResult.Status.CREATED),
+                                new CakeBatchResult(1, CakeBatchOperation.Type.DELETE, cakeId, CakeBatchResult.Status.DELETED)));
+                when(cakeService.applyBatch(batchRequest)).thenReturn(batchResponse);
+
+                // ACT
+                ResultActions result = mockMvc.perform(post("/cakes/batch")
+                                .contentType("application/json")
+                                .content(objectMapper.writeValueAsString(batchRequest)));
+
+                // ASSERT
+                result.andExpect(status().isOk());
+                result.andExpect(content().json(mapper.writeValueAsString(batchResponse)));
+        }
+
+        @Test
+        public void exportCakes_shouldReturnNotImplemented_whenStoreIsNotThePrimaryDatabase() throws Exception {
+                // ARRANGE
+                doThrow(new CakeOperationNotSupportedException()).when(cakeService).checkExportAvailable();
+
+                // ACT
+                ResultActions result = mockMvc.perform(get("/cakes/export"));
+
+                // ASSERT
+                result.andExpect(status().isNotImplemented());
+                verify(cakeService, never()).exportCakes(any(OutputStream.class));
+        }
+
         @Test
         public void getCakes_shouldReturnEmptyList() throws Exception {
                 // ARRANGE
@@ -112,6 +426,21 @@ public class CakeControllerTest {
                 verify(cakeService, times(1)).getCakes();
         }
 
+        @Test
+        public void searchCakes_shouldReturnMatchingCakes() throws Exception {
+                // ARRANGE
+                CakesResponse cakesResponse = new CakesResponse(List.of(mockCakeResponse));
+                when(cakeService.searchCakes("mock", CakeService.DEFAULT_SEARCH_LIMIT)).thenReturn(cakesResponse);
+
+                // ACT
+                ResultActions result = mockMvc.perform(get("/cakes/search")
+                                .param("q", "mock"));
+
+                // ASSERT
+                result.andExpect(status().isOk());
+                result.andExpect(content().json(mapper.writeValueAsString(cakesResponse)));
+        }
+
         @Test
         public void getCakeById_shouldReturnCake() throws Exception {
                 // ARRANGE
@@ -129,6 +458,59 @@ public class CakeControllerTest {
                 verify(cakeService, times(1)).getCakeById(cakeId);
         }
 
+        @Test
+        public void getCakeByTitle_shouldReturnCake() throws Exception {
+                // ARRANGE
+                when(cakeService.getCakeByTitle("carrot cake")).thenReturn(mockCakeResponse);
+
+                // ACT
+                ResultActions result = mockMvc.perform(get("/cakes/by-title/{title}", "carrot cake"));
+
+                // ASSERT
+                result.andExpect(status().isOk());
+                result.andExpect(content().json(mapper.writeValueAsString(mockCakeResponse)));
+
+                verify(cakeService, times(1)).getCakeByTitle("carrot cake");
+        }
+
+        @Test
+        public void getCakeByTitle_shouldReturnNotFound() throws Exception {
+                // ARRANGE
+                doThrow(new CakeNotFoundException()).when(cakeService).getCakeByTitle("missing");
+
+                // ACT
+                ResultActions result = mockMvc.perform(get("/cakes/by-title/{title}", "missing"));
+
+                // ASSERT
+                result.andExpect(status().isNotFound());
+        }
+
+        @Test
+        public void getDelta_shouldReturnChangesSinceRevision() throws Exception {
+                // ARRANGE
+                CakeDeltaResponse delta = new CakeDeltaResponse(12L, List.of(mockCakeResponse), List.of(2L));
+                when(cakeService.getDelta(10L)).thenReturn(delta);
+
+                // ACT
+                ResultActions result = mockMvc.perform(get("/cakes/delta").param("since", "10"));
+
+                // ASSERT
+                result.andExpect(status().isOk());
+                result.andExpect(content().json(mapper.writeValueAsString(delta)));
+        }
+
+        @Test
+        public void getDelta_shouldReturnGone_WhenRevisionExpired() throws Exception {
+                // ARRANGE
+                when(cakeService.getDelta(1L)).thenThrow(new CatalogRevisionExpiredException());
+
+                // ACT
+                ResultActions result = mockMvc.perform(get("/cakes/delta").param("since", "1"));
+
+                // ASSERT
+                result.andExpect(status().isGone());
+        }
+
         @Test
         public void getCakeById_shouldReturnNotFound() throws Exception {
                 // ARRANGE
@@ -152,15 +534,60 @@ public class CakeControllerTest {
                 updateCakeRequest.setTitle("Updated Cake");
                 updateCakeRequest.setDescription("Updated description");
 
+                when(cakeService.updateCake(eq(cakeId), eq(updateCakeRequest), isNull())).thenReturn(6L);
+
                 // ACT
                 ResultActions result = mockMvc.perform(put("/cakes/{id}", cakeId)
                                 .contentType("application/json")
                                 .content(objectMapper.writeValueAsString(updateCakeRequest)));
 
                 // ASSERT
-                result.andExpect(status().isNoContent());
+                result.andExpect(status().isNoContent())
+                                .andExpect(header().string("ETag", "\"6\""));
+
+                verify(cakeService, times(1)).updateCake(eq(cakeId), eq(updateCakeRequest), isNull());
+        }
 
-                verify(cakeService, times(1)).updateCake(eq(cakeId), eq(updateCakeRequest));
+        @Test
+        public void updateCake_shouldPassIfMatchVersion() throws Exception {
+                // ARRANGE
+                UpdateCakeRequest updateCakeRequest = new UpdateCakeRequest();
+                updateCakeRequest.setTitle("Updated Cake");
+                updateCakeRequest.setDescription("Updated description");
+
+                when(cakeService.updateCake(eq(cakeId), eq(updateCakeRequest), eq(3L))).thenReturn(4L);
+
+                // ACT
+                ResultActions result = mockMvc.perform(put("/cakes/{id}", cakeId)
+                                .header("If-Match", "W/\"3\"")
+                                .contentType("application/json")
+                                .content(objectMapper.writeValueAsString(updateCakeRequest)));
+
+                // ASSERT
+                result.andExpect(status().isNoContent())
+                                .andExpect(header().string("ETag", "\"4\""));
+
+                verify(cakeService, times(1)).updateCake(eq(cakeId), eq(updateCakeRequest), eq(3L));
+        }
+
+        @Test
+        public void updateCake_shouldReturnPreconditionFailed_WhenVersionIsStale() throws Exception {
+                // ARRANGE
+                UpdateCakeRequest updateCakeRequest = new UpdateCakeRequest();
+                updateCakeRequest.setTitle("Updated Cake");
+                updateCakeRequest.setDescription("Updated description");
+
+                doThrow(new CakeVersionConflictException()).when(cakeService).updateCake(eq(cakeId),
+                                any(UpdateCakeRequest.class), eq(2L));
+
+                // ACT
+                ResultActions result = mockMvc.perform(put("/cakes/{id}", cakeId)
+                                .header("If-Match", "\"2\"")
+                                .contentType("application/json")
+                                .content(objectMapper.writeValueAsString(updateCakeRequest)));
+
+                // ASSERT
+                result.andExpect(status().isPreconditionFailed());
         }
 
         @Test
@@ -172,7 +599,7 @@ public class CakeControllerTest {
                 updateCakeRequest.setDescription("Updated description");
 
                 doThrow(new CakeNotFoundException()).when(cakeService).updateCake(eq(nonExistentId),
-                                any(UpdateCakeRequest.class));
+                                any(UpdateCakeRequest.class), isNull());
 
                 // ACT
                 ResultActions result = mockMvc.perform(put("/cakes/{id}", nonExistentId)
@@ -182,7 +609,7 @@ public class CakeControllerTest {
                 // ASSERT
                 result.andExpect(status().isNotFound());
 
-                verify(cakeService, times(1)).updateCake(eq(nonExistentId), any(UpdateCakeRequest.class));
+                verify(cakeService, times(1)).updateCake(eq(nonExistentId), any(UpdateCakeRequest.class), isNull());
         }
 
         @Test
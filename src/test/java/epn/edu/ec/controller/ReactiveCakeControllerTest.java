@@ -0,0 +1,136 @@
+package epn.edu.ec.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import epn.edu.ec.exception.CakeNotFoundException;
+import epn.edu.ec.exception.CakeTitleConflictException;
+import epn.edu.ec.model.cake.CakeResponse;
+import epn.edu.ec.model.cake.CakesResponse;
+import epn.edu.ec.model.cake.CreateCakeRequest;
+import epn.edu.ec.service.ReactiveCakeService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.security.servlet.SecurityAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.ResultActions;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@WebMvcTest(value = ReactiveCakeController.class, excludeAutoConfiguration = { SecurityAutoConfiguration.class })
+@ActiveProfiles("test")
+public class ReactiveCakeControllerTest {
+
+        @Autowired
+        private MockMvc mockMvc;
+
+        @Autowired
+        private ObjectMapper mapper;
+
+        @MockitoBean
+        private ReactiveCakeService cakeService;
+
+        private final CakeResponse mockCakeResponse = CakeResponse.builder()
+                        .id(1L)
+                        .title("Chocolate Cake")
+                        .description("Delicious chocolate cake")
+                        .build();
+
+        @Test
+        public void getCakes_shouldReturnListOfCakes() throws Exception {
+                // ARRANGE
+                when(cakeService.getCakes()).thenReturn(Flux.just(mockCakeResponse));
+
+                // ACT
+                MvcResult asyncResult = mockMvc.perform(get("/reactive/cakes"))
+                                .andExpect(request().asyncStarted())
+                                .andReturn();
+                ResultActions result = mockMvc.perform(asyncDispatch(asyncResult));
+
+                // ASSERT
+                result.andExpect(status().isOk());
+                result.andExpect(content().json(mapper.writeValueAsString(new CakesResponse(List.of(mockCakeResponse)))));
+        }
+
+        @Test
+        public void streamCakes_shouldStreamNdjson() throws Exception {
+                // ARRANGE
+                when(cakeService.getCakes()).thenReturn(Flux.just(mockCakeResponse));
+
+                // ACT
+                MvcResult asyncResult = mockMvc.perform(get("/reactive/cakes").accept("application/x-ndjson"))
+                                .andExpect(request().asyncStarted())
+                                .andReturn();
+                ResultActions result = mockMvc.perform(asyncDispatch(asyncResult));
+
+                // ASSERT
+                result.andExpect(status().isOk());
+                result.andExpect(content().contentType("application/x-ndjson"));
+                result.andExpect(content().string(mapper.writeValueAsString(mockCakeResponse) + "\n"));
+        }
+
+        @Test
+        public void getCakeById_shouldReturnNotFound() throws Exception {
+                // ARRANGE
+                when(cakeService.getCakeById(99L)).thenReturn(Mono.error(new CakeNotFoundException()));
+
+                // ACT
+                MvcResult asyncResult = mockMvc.perform(get("/reactive/cakes/{id}", 99L))
+                                .andExpect(request().asyncStarted())
+                                .andReturn();
+                ResultActions result = mockMvc.perform(asyncDispatch(asyncResult));
+
+                // ASSERT
+                result.andExpect(status().isNotFound());
+        }
+
+        @Test
+        public void createCake_shouldReturnConflict_whenTitleExists() throws Exception {
+                // ARRANGE
+                CreateCakeRequest createCakeRequest = CreateCakeRequest.builder()
+                                .title("chocolate cake")
+                                .description("Duplicate cake")
+                                .build();
+                when(cakeService.createCake(createCakeRequest)).thenReturn(Mono.error(new CakeTitleConflictException()));
+
+                // ACT
+                MvcResult asyncResult = mockMvc.perform(post("/reactive/cakes")
+                                                .contentType("application/json")
+                                                .content(mapper.writeValueAsString(createCakeRequest)))
+                                .andExpect(request().asyncStarted())
+                                .andReturn();
+                ResultActions result = mockMvc.perform(asyncDispatch(asyncResult));
+
+                // ASSERT
+                result.andExpect(status().isConflict());
+        }
+
+        @Test
+        public void deleteCake_shouldReturnNoContent() throws Exception {
+                // ARRANGE
+                when(cakeService.deleteCake(1L)).thenReturn(Mono.empty());
+
+                // ACT
+                MvcResult asyncResult = mockMvc.perform(delete("/reactive/cakes/{id}", 1L))
+                                .andExpect(request().asyncStarted())
+                                .andReturn();
+                ResultActions result = mockMvc.perform(asyncDispatch(asyncResult));
+
+                // ASSERT
+                result.andExpect(status().isNoContent());
+                verify(cakeService, times(1)).deleteCake(1L);
+        }
+}
@@ -0,0 +1,307 @@
+package epn.edu.ec.loadtest;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.HdrHistogram.Histogram;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.cloud.contract.wiremock.AutoConfigureWireMock;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import epn.edu.ec.model.cake.CakeResponse;
+import epn.edu.ec.model.cake.CakesResponse;
+import epn.edu.ec.model.cake.CreateCakeRequest;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * End-to-end load test of the whole stack (Tomcat, Spring Security, controllers, JPA and H2) on a
+ * random port, with the catalog source served by WireMock so it runs offline. {@code loadtest.clients}
+ * closed-loop clients issue the {@code loadtest.mix} of requests for {@code loadtest.warmup}, which is
+ * discarded, and then for {@code loadtest.duration}. Latencies are recorded per endpoint in HDR
+ * histograms.
+ * <p>
+ * The JSON report and one percentile distribution per endpoint are written to {@code loadtest.report-dir}.
+ * When {@code loadtest.baseline} exists the run fails if any endpoint's p99 latency or throughput is
+ * more than {@code loadtest.tolerance} worse than in the baseline. Run with {@code mvn test -Ploadtest}.
+ */
+@Slf4j
+@Tag("loadtest")
+@SpringBootTest(
+        webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = {
+                "cakes.populator.url=http://localhost:${wiremock.server.port}/cakes.json",
+                // one client drives the whole load, admission control would throttle it
+                "cakes.admission.enabled=false"
+        })
+@AutoConfigureWireMock(port = 0)
+class CakeLoadTest {
+    private static final long MAX_LATENCY_MICROS = TimeUnit.MINUTES.toMicros(1);
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(30);
+
+    @LocalServerPort
+    private int port;
+
+    @Value("${cakes.authentication.username}")
+    private String username;
+
+    @Value("${cakes.authentication.password}")
+    private String password;
+
+    @Value("${loadtest.clients:64}")
+    private int clients;
+
+    @Value("${loadtest.warmup:PT10S}")
+    private Duration warmup;
+
+    @Value("${loadtest.duration:PT30S}")
+    private Duration duration;
+
+    @Value("${loadtest.mix:GET_CATALOG=5,GET_PAGE=20,GET_CAKE=45,CREATE=15,UPDATE=10,DELETE=5}")
+    private String mix;
+
+    @Value("${loadtest.seed:42}")
+    private long seed;
+
+    @Value("${loadtest.report-dir:target/loadtest}")
+    private Path reportDir;
+
+    @Value("${loadtest.baseline:loadtest-baseline.json}")
+    private Path baseline;
+
+    @Value("${loadtest.tolerance:0.2}")
+    private double tolerance;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private final AtomicLong titleSequence = new AtomicLong();
+
+    private HttpClient httpClient;
+    private String authorization;
+    private List<Long> catalogIds;
+
+    @Test
+    void mixedTraffic() throws Exception {
+        httpClient = HttpClient.newBuilder().connectTimeout(REQUEST_TIMEOUT).build();
+        authorization = "Basic " + Base64.getEncoder()
+                .encodeToString((username + ":" + password).getBytes(StandardCharsets.UTF_8));
+        catalogIds = catalogIds();
+        LoadOperation.Mix loadMix = LoadOperation.mix(mix);
+
+        log.info("load test: {} clients, {} warmup, {} measured, mix {}", clients, warmup, duration, mix);
+        run(loadMix, warmup, 0);
+        List<Client> results = run(loadMix, duration, clients);
+
+        LoadTestReport report = report(results);
+        writeReport(report, results);
+
+        if (Files.exists(baseline)) {
+            LoadTestReport baselineReport = objectMapper.readValue(baseline.toFile(), LoadTestReport.class);
+            List<String> regressions = report.regressionsAgainst(baselineReport, tolerance);
+            regressions.forEach(regression -> log.warn("regression: {}", regression));
+            assertTrue(regressions.isEmpty(), "performance regressed against " + baseline + ": " + regressions);
+        } else {
+            log.info("no baseline at {}, copy {} there to compare later runs", baseline, reportDir.resolve("report.json"));
+        }
+    }
+
+    private List<Long> catalogIds() throws IOException, InterruptedException {
+        HttpResponse<String> response = httpClient.send(request("/cakes").GET().build(), HttpResponse.BodyHandlers.ofString());
+        List<Long> ids = new ArrayList<>();
+        objectMapper.readValue(response.body(), CakesResponse.class).getCakes()
+                .forEach(cake -> ids.add(cake.getId()));
+        if (ids.isEmpty()) {
+            throw new IllegalStateException("the catalog is empty");
+        }
+        return ids;
+    }
+
+    private List<Client> run(LoadOperation.Mix loadMix, Duration phase, long seedOffset) throws Exception {
+        long deadline = System.nanoTime() + phase.toNanos();
+        ExecutorService executor = Executors.newFixedThreadPool(clients);
+        try {
+            List<Future<Client>> futures = new ArrayList<>();
+            for (int i = 0; i < clients; i++) {
+                Client client = new Client(loadMix, new Random(seed + seedOffset + i));
+                futures.add(executor.submit(() -> client.runUntil(deadline)));
+            }
+            List<Client> results = new ArrayList<>();
+            for (Future<Client> future : futures) {
+                results.add(future.get());
+            }
+            return results;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private LoadTestReport report(List<Client> results) {
+        LoadTestReport report = new LoadTestReport();
+        report.setClients(clients);
+        report.setDurationSeconds(duration.toSeconds());
+        report.setMix(mix);
+        report.setSeed(seed);
+
+        for (LoadOperation operation : LoadOperation.values()) {
+            Histogram histogram = histogram();
+            long errors = 0;
+            for (Client client : results) {
+                histogram.add(client.histograms.get(operation));
+                errors += client.errors.get(operation);
+            }
+            if (histogram.getTotalCount() == 0) {
+                continue;
+            }
+
+            LoadTestReport.EndpointResult result = LoadTestReport.EndpointResult.of(histogram, errors, duration.toNanos());
+            report.getEndpoints().put(operation.getEndpoint(), result);
+            log.info("{}: {} requests, {} errors, {} req/s, p50 {} us, p99 {} us, p99.9 {} us, max {} us",
+                    operation.getEndpoint(), result.getRequests(), result.getErrors(),
+                    String.format(Locale.ROOT, "%.1f", result.getThroughputPerSecond()),
+                    result.getP50Micros(), result.getP99Micros(), result.getP999Micros(), result.getMaxMicros());
+        }
+        return report;
+    }
+
+    private void writeReport(LoadTestReport report, List<Client> results) throws IOException {
+        Files.createDirectories(reportDir);
+        objectMapper.writer(SerializationFeature.INDENT_OUTPUT).writeValue(reportDir.resolve("report.json").toFile(), report);
+
+        for (LoadOperation operation : LoadOperation.values()) {
+            Histogram histogram = histogram();
+            results.forEach(client -> histogram.add(client.histograms.get(operation)));
+            if (histogram.getTotalCount() == 0) {
+                continue;
+            }
+            Path distribution = reportDir.resolve(operation.name().toLowerCase(Locale.ROOT) + ".hgrm");
+            try (PrintStream out = new PrintStream(Files.newOutputStream(distribution), true, StandardCharsets.UTF_8)) {
+                histogram.outputPercentileDistribution(out, 1.0);
+            }
+        }
+        log.info("load test report written to {}", reportDir.toAbsolutePath());
+    }
+
+    private HttpRequest.Builder request(String path) {
+        return HttpRequest.newBuilder(URI.create("http://localhost:" + port + path))
+                .timeout(REQUEST_TIMEOUT)
+                .header("Authorization", authorization);
+    }
+
+    private HttpRequest.BodyPublisher json(Object body) throws IOException {
+        return HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(body));
+    }
+
+    private static Histogram histogram() {
+        return new Histogram(MAX_LATENCY_MICROS, 3);
+    }
+
+    /**
+     * One closed-loop client. Updates and deletes only target cakes this client created, so clients
+     * never conflict with each other and every request is expected to succeed.
+     */
+    private class Client {
+        private final LoadOperation.Mix loadMix;
+        private final Random random;
+        private final Map<LoadOperation, Histogram> histograms = new EnumMap<>(LoadOperation.class);
+        private final Map<LoadOperation, Long> errors = new EnumMap<>(LoadOperation.class);
+        private final List<Long> ownIds = new ArrayList<>();
+
+        Client(LoadOperation.Mix loadMix, Random random) {
+            this.loadMix = loadMix;
+            this.random = random;
+            for (LoadOperation operation : LoadOperation.values()) {
+                histograms.put(operation, histogram());
+                errors.put(operation, 0L);
+            }
+        }
+
+        Client runUntil(long deadline) throws IOException, InterruptedException {
+            while (System.nanoTime() < deadline) {
+                LoadOperation operation = loadMix.next(random);
+                if ((operation == LoadOperation.UPDATE || operation == LoadOperation.DELETE) && ownIds.isEmpty()) {
+                    operation = LoadOperation.CREATE;
+                }
+                HttpRequest request = nextRequest(operation);
+
+                long start = System.nanoTime();
+                HttpResponse<String> response;
+                try {
+                    response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+                } catch (IOException e) {
+                    response = null;
+                }
+                long micros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start);
+                histograms.get(operation).recordValue(Math.min(micros, MAX_LATENCY_MICROS));
+
+                if (response == null || response.statusCode() >= 300) {
+                    errors.merge(operation, 1L, Long::sum);
+                } else if (operation == LoadOperation.CREATE) {
+                    ownIds.add(objectMapper.readValue(response.body(), CakeResponse.class).getId());
+                }
+            }
+            return this;
+        }
+
+        private HttpRequest nextRequest(LoadOperation operation) throws IOException {
+            switch (operation) {
+                case GET_CATALOG:
+                    return request("/cakes").GET().build();
+                case GET_PAGE:
+                    return request("/cakes?limit=20").GET().build();
+                case GET_CAKE:
+                    long cakeId = !ownIds.isEmpty() && random.nextBoolean()
+                            ? ownIds.get(random.nextInt(ownIds.size()))
+                            : catalogIds.get(random.nextInt(catalogIds.size()));
+                    return request("/cakes/" + cakeId).GET().build();
+                case CREATE:
+                    return request("/cakes")
+                            .header("Content-Type", "application/json")
+                            .POST(json(CreateCakeRequest.builder()
+                                    .title("load cake " + titleSequence.incrementAndGet())
+                                    .description("created by the load test")
+                                    .build()))
+                            .build();
+                case UPDATE:
+                    return request("/cakes/" + ownIds.get(random.nextInt(ownIds.size())))
+                            .header("Content-Type", "application/json")
+                            .PUT(json(Map.of(
+                                    "title", "load cake " + titleSequence.incrementAndGet(),
+                                    "description", "updated by the load test")))
+                            .build();
+                case DELETE:
+                    return request("/cakes/" + ownIds.remove(ownIds.size() - 1)).DELETE().build();
+                default:
+                    throw new IllegalArgumentException(operation.toString());
+            }
+        }
+    }
+}
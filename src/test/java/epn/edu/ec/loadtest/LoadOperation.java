@@ -0,0 +1,72 @@
+package epn.edu.ec.loadtest;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * The requests issued by {@link CakeLoadTest}. The mix is configured as comma separated
+ * {@code OPERATION=weight} pairs, for example {@code GET_CAKE=80,CREATE=20}.
+ */
+enum LoadOperation {
+    GET_CATALOG("GET /cakes"),
+    GET_PAGE("GET /cakes?limit=20"),
+    GET_CAKE("GET /cakes/{id}"),
+    CREATE("POST /cakes"),
+    UPDATE("PUT /cakes/{id}"),
+    DELETE("DELETE /cakes/{id}");
+
+    private final String endpoint;
+
+    LoadOperation(String endpoint) {
+        this.endpoint = endpoint;
+    }
+
+    String getEndpoint() {
+        return endpoint;
+    }
+
+    static Mix mix(String mix) {
+        Map<LoadOperation, Integer> weights = new EnumMap<>(LoadOperation.class);
+        for (String entry : mix.split(",")) {
+            String[] operationAndWeight = entry.trim().split("=");
+            if (operationAndWeight.length != 2) {
+                throw new IllegalArgumentException("expected OPERATION=weight, found " + entry);
+            }
+            int weight = Integer.parseInt(operationAndWeight[1].trim());
+            if (weight < 0) {
+                throw new IllegalArgumentException("negative weight in " + entry);
+            }
+            weights.put(valueOf(operationAndWeight[0].trim()), weight);
+        }
+        return new Mix(weights);
+    }
+
+    static final class Mix {
+        private final LoadOperation[] operations;
+        private final int[] cumulativeWeights;
+
+        private Mix(Map<LoadOperation, Integer> weights) {
+            operations = weights.keySet().toArray(new LoadOperation[0]);
+            cumulativeWeights = new int[operations.length];
+            int total = 0;
+            for (int i = 0; i < operations.length; i++) {
+                total += weights.get(operations[i]);
+                cumulativeWeights[i] = total;
+            }
+            if (total == 0) {
+                throw new IllegalArgumentException("the load mix has no weight");
+            }
+        }
+
+        LoadOperation next(Random random) {
+            int pick = random.nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+            for (int i = 0; i < operations.length; i++) {
+                if (pick < cumulativeWeights[i]) {
+                    return operations[i];
+                }
+            }
+            throw new IllegalStateException();
+        }
+    }
+}
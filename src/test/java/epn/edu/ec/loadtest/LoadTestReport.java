@@ -0,0 +1,79 @@
+package epn.edu.ec.loadtest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+import org.HdrHistogram.Histogram;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Outcome of one {@link CakeLoadTest} run, serialized as JSON so it can be kept as a baseline for
+ * later runs. Latencies are in microseconds.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+class LoadTestReport {
+    private int clients;
+    private long durationSeconds;
+    private String mix;
+    private long seed;
+    private Map<String, EndpointResult> endpoints = new TreeMap<>();
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    static class EndpointResult {
+        private long requests;
+        private long errors;
+        private double throughputPerSecond;
+        private double meanMicros;
+        private long p50Micros;
+        private long p90Micros;
+        private long p99Micros;
+        private long p999Micros;
+        private long maxMicros;
+
+        static EndpointResult of(Histogram histogram, long errors, long durationNanos) {
+            return new EndpointResult(
+                    histogram.getTotalCount(),
+                    errors,
+                    histogram.getTotalCount() / (durationNanos / (double) TimeUnit.SECONDS.toNanos(1)),
+                    histogram.getMean(),
+                    histogram.getValueAtPercentile(50),
+                    histogram.getValueAtPercentile(90),
+                    histogram.getValueAtPercentile(99),
+                    histogram.getValueAtPercentile(99.9),
+                    histogram.getMaxValue());
+        }
+    }
+
+    /**
+     * Endpoints whose p99 latency grew, or whose throughput dropped, by more than {@code tolerance}
+     * (a fraction) compared with the baseline. Endpoints missing from either report are ignored.
+     */
+    List<String> regressionsAgainst(LoadTestReport baseline, double tolerance) {
+        List<String> regressions = new ArrayList<>();
+        endpoints.forEach((endpoint, result) -> {
+            EndpointResult expected = baseline.getEndpoints().get(endpoint);
+            if (expected == null) {
+                return;
+            }
+            if (result.getP99Micros() > expected.getP99Micros() * (1 + tolerance)) {
+                regressions.add(String.format("%s p99 %d us, baseline %d us",
+                        endpoint, result.getP99Micros(), expected.getP99Micros()));
+            }
+            if (result.getThroughputPerSecond() < expected.getThroughputPerSecond() * (1 - tolerance)) {
+                regressions.add(String.format("%s throughput %.1f req/s, baseline %.1f req/s",
+                        endpoint, result.getThroughputPerSecond(), expected.getThroughputPerSecond()));
+            }
+        });
+        return regressions;
+    }
+}
@@ -0,0 +1,193 @@
+package epn.edu.ec.populator;
+
+import static java.util.stream.Collectors.toList;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.core.task.SyncTaskExecutor;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import epn.edu.ec.event.CakeCatalogPopulatedEvent;
+import epn.edu.ec.repository.CatalogMetadataRepository;
+import epn.edu.ec.repository.model.Cake;
+import epn.edu.ec.repository.model.CatalogMetadata;
+import epn.edu.ec.service.CatalogRevisionService;
+import epn.edu.ec.store.CakeStore;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@ExtendWith(MockitoExtension.class)
+class CakeDatabasePopulatorTest {
+
+    @Mock
+    private CakeStore cakeStore;
+
+    @Mock
+    private CatalogMetadataRepository catalogMetadataRepository;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private CatalogRevisionService revisionService;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void populateCakeDatabase_ShouldSaveCakesInChunks_FromClasspathSource() throws Exception {
+        // ARRANGE
+        CakeDatabasePopulator populator = populator("classpath:__files/cakes.json", 2, true);
+        when(revisionService.reset()).thenReturn(7L);
+
+        // ACT
+        populator.populateCakeDatabase();
+
+        // ASSERT
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<Cake>> chunks = ArgumentCaptor.forClass(List.class);
+        verify(cakeStore, times(3)).insertAll(chunks.capture());
+        assertEquals(List.of(2, 2, 1), chunks.getAllValues().stream().map(List::size).collect(toList()));
+        assertEquals("Lemon cheesecake", chunks.getAllValues().get(0).get(0).getTitle());
+        assertEquals("A cheesecake made of lemon", chunks.getAllValues().get(0).get(0).getDescription());
+        assertEquals(7L, chunks.getAllValues().get(0).get(0).getRevision());
+
+        assertEquals(CakeDatabasePopulator.State.COMPLETED, populator.getState());
+        assertEquals(5, populator.getPopulatedCakes());
+        verify(eventPublisher).publishEvent(new CakeCatalogPopulatedEvent(5));
+        verify(cakeStore).deleteAll();
+        verify(catalogMetadataRepository).saveAll(anyList());
+        assertEquals(5, meterRegistry.get(CakeDatabasePopulator.CAKES_METRIC).tag("result", "saved").counter().count());
+        assertEquals(1, meterRegistry.get(CakeDatabasePopulator.DURATION_METRIC).tag("outcome", "populated").timer().count());
+    }
+
+    @Test
+    void populateCakeDatabase_ShouldKeepStoredCatalog_WhenSourceIsUnchanged() throws Exception {
+        // ARRANGE
+        String cakesUrl = "classpath:__files/cakes.json";
+        String checksum = CakeDatabasePopulator.checksum(
+                new DefaultResourceLoader().getResource(cakesUrl).getInputStream());
+        when(catalogMetadataRepository.findById(CakeDatabasePopulator.SOURCE_METADATA))
+                .thenReturn(Optional.of(new CatalogMetadata(CakeDatabasePopulator.SOURCE_METADATA, cakesUrl)));
+        when(catalogMetadataRepository.findById(CakeDatabasePopulator.CHECKSUM_METADATA))
+                .thenReturn(Optional.of(new CatalogMetadata(CakeDatabasePopulator.CHECKSUM_METADATA, checksum)));
+        when(cakeStore.count()).thenReturn(5L);
+        CakeDatabasePopulator populator = populator(cakesUrl, 2, false);
+
+        // ACT
+        populator.populateCakeDatabase();
+
+        // ASSERT
+        verify(cakeStore, never()).deleteAll();
+        verify(cakeStore, never()).insertAll(anyList());
+        verify(revisionService, never()).reset();
+        assertEquals(CakeDatabasePopulator.State.COMPLETED, populator.getState());
+        verify(eventPublisher).publishEvent(new CakeCatalogPopulatedEvent(5));
+    }
+
+    @Test
+    void populateCakeDatabase_ShouldNotReadSourceFile_WhenSizeAndModificationTimeAreUnchanged(@TempDir Path tempDir)
+            throws Exception {
+        // ARRANGE
+        Path source = tempDir.resolve("cakes.json");
+        Files.writeString(source, "[{\"title\":\"Carrot cake\",\"desc\":\"stored\"}]");
+        String cakesUrl = source.toUri().toString();
+        String fileStat = Files.size(source) + "@" + source.toFile().lastModified();
+        when(catalogMetadataRepository.findById(CakeDatabasePopulator.SOURCE_METADATA))
+                .thenReturn(Optional.of(new CatalogMetadata(CakeDatabasePopulator.SOURCE_METADATA, cakesUrl)));
+        // a digest that no longer matches shows the content is not read again
+        when(catalogMetadataRepository.findById(CakeDatabasePopulator.CHECKSUM_METADATA))
+                .thenReturn(Optional.of(new CatalogMetadata(CakeDatabasePopulator.CHECKSUM_METADATA, "not read")));
+        when(catalogMetadataRepository.findById(CakeDatabasePopulator.FILE_STAT_METADATA))
+                .thenReturn(Optional.of(new CatalogMetadata(CakeDatabasePopulator.FILE_STAT_METADATA, fileStat)));
+        when(cakeStore.count()).thenReturn(1L);
+        CakeDatabasePopulator populator = populator(cakesUrl, 2, false);
+
+        // ACT
+        populator.populateCakeDatabase();
+
+        // ASSERT
+        verify(cakeStore, never()).deleteAll();
+        verify(cakeStore, never()).insertAll(anyList());
+        verify(eventPublisher).publishEvent(new CakeCatalogPopulatedEvent(1));
+    }
+
+    @Test
+    void populateCakeDatabase_ShouldRepopulate_WhenSourceHasChanged() throws Exception {
+        // ARRANGE
+        String cakesUrl = "classpath:__files/cakes.json";
+        when(catalogMetadataRepository.findById(CakeDatabasePopulator.SOURCE_METADATA))
+                .thenReturn(Optional.of(new CatalogMetadata(CakeDatabasePopulator.SOURCE_METADATA, cakesUrl)));
+        when(catalogMetadataRepository.findById(CakeDatabasePopulator.CHECKSUM_METADATA))
+                .thenReturn(Optional.of(new CatalogMetadata(CakeDatabasePopulator.CHECKSUM_METADATA, "outdated")));
+        CakeDatabasePopulator populator = populator(cakesUrl, 10, false);
+
+        // ACT
+        populator.populateCakeDatabase();
+
+        // ASSERT
+        verify(cakeStore).deleteAll();
+        verify(revisionService).reset();
+        verify(cakeStore, times(1)).insertAll(anyList());
+        assertEquals(5, populator.getPopulatedCakes());
+    }
+
+    @Test
+    void populateCakeDatabase_ShouldSkipDuplicateTitles_KeepingTheFirstOccurrence(@TempDir Path tempDir) throws Exception {
+        // ARRANGE
+        Path source = tempDir.resolve("cakes.json");
+        Files.writeString(source, "[{\"title\":\"Carrot cake\",\"desc\":\"first\"},"
+                + "{\"title\":\"carrot CAKE \",\"desc\":\"second\"},"
+                + "{\"title\":\"Banana cake\",\"desc\":\"already stored\"},"
+                + "{\"title\":\"Lemon cheesecake\",\"desc\":\"unique\"}]");
+        when(cakeStore.findExistingTitleKeys(anyCollection())).thenReturn(List.of("banana cake"));
+        CakeDatabasePopulator populator = populator(source.toUri().toString(), 10, false);
+
+        // ACT
+        populator.populateCakeDatabase();
+
+        // ASSERT
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<Cake>> chunks = ArgumentCaptor.forClass(List.class);
+        verify(cakeStore).insertAll(chunks.capture());
+        List<Cake> savedCakes = chunks.getValue();
+        assertEquals(List.of("Carrot cake", "Lemon cheesecake"), savedCakes.stream().map(Cake::getTitle).collect(toList()));
+        assertEquals("first", savedCakes.get(0).getDescription());
+        assertEquals(2, populator.getPopulatedCakes());
+    }
+
+    @Test
+    void populateCakeDatabase_ShouldFail_WhenSourceIsMissing() {
+        // ARRANGE
+        CakeDatabasePopulator populator = populator("classpath:missing-cakes.json", 2, false);
+
+        // ACT & ASSERT
+        assertThrows(IOException.class, populator::populateCakeDatabase);
+        assertEquals(CakeDatabasePopulator.State.FAILED, populator.getState());
+        verify(cakeStore, never()).insertAll(anyList());
+    }
+
+    private CakeDatabasePopulator populator(String cakesUrl, int chunkSize, boolean async) {
+        return new CakeDatabasePopulator(cakesUrl, chunkSize, async, cakeStore, catalogMetadataRepository,
+                new DefaultResourceLoader(), new ObjectMapper(), new SyncTaskExecutor(), eventPublisher, revisionService, meterRegistry);
+    }
+}
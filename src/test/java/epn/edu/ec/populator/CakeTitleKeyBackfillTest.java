@@ -0,0 +1,51 @@
+package epn.edu.ec.populator;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
+
+import epn.edu.ec.model.cake.CakeResponse;
+import epn.edu.ec.repository.CakeRepository;
+import epn.edu.ec.repository.model.Cake;
+
+@DataJpaTest
+@Import(CakeTitleKeyBackfill.class)
+class CakeTitleKeyBackfillTest {
+
+    @Autowired
+    private CakeRepository cakeRepository;
+
+    @Autowired
+    private CakeTitleKeyBackfill backfill;
+
+    @Test
+    void backfill_ShouldFillMissingTitleKeys_AndLeaveConflictingTitlesWithout() {
+        // ARRANGE
+        Cake carrotCake = storedWithoutTitleKey("Carrot cake");
+        Cake shoutedCarrotCake = storedWithoutTitleKey(" CARROT CAKE");
+        Cake bananaCake = storedWithoutTitleKey("Banana cake");
+
+        // ACT
+        backfill.backfill();
+
+        // ASSERT
+        assertEquals(carrotCake.getId(), cakeRepository.findByTitleKey("carrot cake").orElseThrow().getId());
+        assertEquals(bananaCake.getId(), cakeRepository.findByTitleKey("banana cake").orElseThrow().getId());
+        assertEquals(0L, cakeRepository.findByTitleKey("banana cake").orElseThrow().getVersion());
+        assertEquals(List.of(shoutedCarrotCake.getId()), cakeRepository.findWithoutTitleKey(Long.MIN_VALUE, PageRequest.of(0, 10))
+                .stream().map(CakeResponse::getId).toList());
+    }
+
+    private Cake storedWithoutTitleKey(String title) {
+        Cake cake = cakeRepository.saveAndFlush(Cake.builder().title(title).description(title).build());
+        // as a row written before the title_key column existed
+        cakeRepository.updateTitleKey(cake.getId(), null);
+        return cake;
+    }
+}
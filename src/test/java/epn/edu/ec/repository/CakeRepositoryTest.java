@@ -0,0 +1,105 @@
+package epn.edu.ec.repository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.List;
+import java.util.Optional;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.PageRequest;
+
+import epn.edu.ec.model.cake.CakeQuery;
+import epn.edu.ec.model.cake.CakeResponse;
+import epn.edu.ec.repository.model.Cake;
+
+@DataJpaTest
+class CakeRepositoryTest {
+
+    @Autowired
+    private CakeRepository cakeRepository;
+
+    private Cake untitledA;
+    private Cake untitledB;
+    private Cake bananaCake;
+
+    @BeforeEach
+    void setUp() {
+        untitledA = cakeRepository.save(cake(null, "First without a name"));
+        untitledB = cakeRepository.save(cake(null, "Second without a name"));
+        bananaCake = cakeRepository.save(cake("Banana cake", "Ripe bananas"));
+    }
+
+    @Test
+    void findPages_ShouldPutCakesWithoutTitleFirst_AndContinueAfterThem() {
+        // ACT
+        List<CakeResponse> firstPage = cakeRepository.findFirstPage(PageRequest.of(0, 1));
+        List<CakeResponse> nextPage = cakeRepository.findPageAfterNullTitle(untitledA.getId(), PageRequest.of(0, 10));
+
+        // ASSERT
+        assertEquals(List.of(untitledA.getId()), ids(firstPage));
+        assertEquals(List.of(untitledB.getId(), bananaCake.getId()), ids(nextPage));
+        assertEquals(List.of(), ids(cakeRepository.findPageAfter("Banana cake", bananaCake.getId(), PageRequest.of(0, 10))));
+    }
+
+    @Test
+    void findResponses_ShouldMatchPercentAndUnderscoreLiterally() {
+        // ARRANGE
+        Cake percentCake = cakeRepository.save(cake("Chocolate 100% cake", "Only cocoa"));
+        cakeRepository.save(cake("Chocolate 1000 cake", "A thousand layers"));
+        Cake underscoreCake = cakeRepository.save(cake("Lemon_drizzle", "Sharp"));
+        cakeRepository.save(cake("Lemon drizzle", "Sweet"));
+
+        // ACT
+        List<CakeResponse> percentMatches = cakeRepository.findResponses(
+                CakeQuery.builder().titleContains("100%").build(), 10);
+        List<CakeResponse> underscoreMatches = cakeRepository.findResponses(
+                CakeQuery.builder().titleStartsWith("lemon_").build(), 10);
+
+        // ASSERT
+        assertEquals(List.of(percentCake.getId()), ids(percentMatches));
+        assertEquals(List.of(underscoreCake.getId()), ids(underscoreMatches));
+    }
+
+    @Test
+    void findResponses_ShouldSortByDescriptionDescending_WithCakesWithoutDescriptionLast() {
+        // ARRANGE
+        Cake plainCake = cakeRepository.save(cake("Plain cake", null));
+        CakeQuery query = CakeQuery.builder()
+                .sort(CakeQuery.parseSort(List.of("-description")))
+                .build();
+
+        // ACT
+        List<CakeResponse> cakes = cakeRepository.findResponses(query, 10);
+
+        // ASSERT
+        assertEquals(List.of(untitledB.getId(), bananaCake.getId(), untitledA.getId(), plainCake.getId()), ids(cakes));
+        // the same order as the in-memory stores
+        assertEquals(ids(cakes.stream().sorted(query.comparator()).toList()), ids(cakes));
+    }
+
+    @Test
+    void updateById_ShouldReturnNewVersion_FromTheUpdateStatement() {
+        // ACT
+        Optional<Long> version = cakeRepository.updateById(bananaCake.getId(), "Banana bread", "Ripe bananas",
+                Cake.titleKey("Banana bread"), 3);
+        Optional<Long> missing = cakeRepository.updateById(-1, "Nothing", null, Cake.titleKey("Nothing"), 3);
+
+        // ASSERT
+        assertEquals(Optional.of(bananaCake.getVersion() + 1), version);
+        assertEquals(Optional.empty(), missing);
+        CakeResponse updated = cakeRepository.findResponseById(bananaCake.getId()).orElseThrow();
+        assertEquals("Banana bread", updated.getTitle());
+        assertEquals(bananaCake.getVersion() + 1, updated.getVersion());
+    }
+
+    private static Cake cake(String title, String description) {
+        return Cake.builder().title(title).description(description).build();
+    }
+
+    private static List<Long> ids(List<CakeResponse> cakes) {
+        return cakes.stream().map(CakeResponse::getId).toList();
+    }
+}
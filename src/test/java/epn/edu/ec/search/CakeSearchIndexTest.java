@@ -0,0 +1,116 @@
+package epn.edu.ec.search;
+
+import static java.util.stream.Collectors.toList;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import epn.edu.ec.event.CakeCatalogPopulatedEvent;
+import epn.edu.ec.event.CakeChangedEvent;
+import epn.edu.ec.model.cake.CakeResponse;
+import epn.edu.ec.repository.model.CatalogRevision;
+import epn.edu.ec.service.CatalogRevisionService;
+import epn.edu.ec.store.CakeStore;
+
+@ExtendWith(MockitoExtension.class)
+class CakeSearchIndexTest {
+
+    @Mock
+    private CakeStore cakeStore;
+
+    @Mock
+    private CatalogRevisionService revisionService;
+
+    private CakeSearchIndex searchIndex;
+
+    @BeforeEach
+    void setUp() {
+        searchIndex = new CakeSearchIndex(cakeStore, revisionService);
+        when(revisionService.current()).thenReturn(new CatalogRevision(CatalogRevision.CATALOG, 5, 0));
+        when(cakeStore.findAll()).thenReturn(List.of(
+                new CakeResponse(1L, "Lemon cheesecake", "A cheesecake made of lemon"),
+                new CakeResponse(2L, "Carrot cake", "Bugs bunny's favourite"),
+                new CakeResponse(3L, "Banana cake", "Donkey kong's favourite, with lemon icing")));
+        searchIndex.onCatalogPopulated(new CakeCatalogPopulatedEvent(3));
+    }
+
+    @Test
+    void search_ShouldMatchPrefixes_CaseAndAccentInsensitively() {
+        // ACT
+        List<CakeResponse> results = searchIndex.search("CARR", 10);
+
+        // ASSERT
+        assertEquals(List.of(2L), ids(results));
+        assertEquals(List.of(2L), ids(searchIndex.search("cárrot", 10)));
+    }
+
+    @Test
+    void search_ShouldRankTitleMatchesAboveDescriptionMatches() {
+        // ACT
+        List<CakeResponse> results = searchIndex.search("lemon", 10);
+
+        // ASSERT
+        assertEquals(List.of(1L, 3L), ids(results));
+    }
+
+    @Test
+    void search_ShouldRequireEveryQueryToken() {
+        // ACT
+        List<CakeResponse> results = searchIndex.search("favourite banana", 10);
+
+        // ASSERT
+        assertEquals(List.of(3L), ids(results));
+    }
+
+    @Test
+    void onCakeChanged_ShouldReindexUpdatedCakes_AndDropDeletedCakes() {
+        // ACT
+        searchIndex.onCakeChanged(new CakeChangedEvent(CakeChangedEvent.Type.UPDATED, 2L,
+                new CakeResponse(2L, "Orange cake", "Bugs bunny's second favourite"), 6));
+        searchIndex.onCakeChanged(new CakeChangedEvent(CakeChangedEvent.Type.DELETED, 1L, null, 7));
+
+        // ASSERT
+        assertTrue(searchIndex.search("carrot", 10).isEmpty());
+        assertEquals(List.of(2L), ids(searchIndex.search("orange", 10)));
+        assertEquals(List.of(3L), ids(searchIndex.search("lemon", 10)));
+    }
+
+    @Test
+    void onCakeChanged_ShouldIgnoreChangesOlderThanTheAppliedOne() {
+        // ACT
+        searchIndex.onCakeChanged(new CakeChangedEvent(CakeChangedEvent.Type.UPDATED, 2L,
+                new CakeResponse(2L, "Orange cake", "Bugs bunny's second favourite"), 8));
+        searchIndex.onCakeChanged(new CakeChangedEvent(CakeChangedEvent.Type.UPDATED, 2L,
+                new CakeResponse(2L, "Apple cake", "Bugs bunny's third favourite"), 7));
+        searchIndex.onCakeChanged(new CakeChangedEvent(CakeChangedEvent.Type.DELETED, 1L, null, 9));
+        searchIndex.onCakeChanged(new CakeChangedEvent(CakeChangedEvent.Type.UPDATED, 1L,
+                new CakeResponse(1L, "Lime cheesecake", "A cheesecake made of lime"), 8));
+        searchIndex.onCakeChanged(new CakeChangedEvent(CakeChangedEvent.Type.UPDATED, 3L,
+                new CakeResponse(3L, "Plantain cake", "Built before the index"), 4));
+
+        // ASSERT
+        assertEquals(List.of(2L), ids(searchIndex.search("orange", 10)));
+        assertTrue(searchIndex.search("apple", 10).isEmpty());
+        assertTrue(searchIndex.search("lime", 10).isEmpty());
+        assertTrue(searchIndex.search("plantain", 10).isEmpty());
+        assertEquals(List.of(3L), ids(searchIndex.search("banana", 10)));
+    }
+
+    @Test
+    void search_ShouldReturnNothing_ForBlankQuery() {
+        // ACT & ASSERT
+        assertTrue(searchIndex.search("  ", 10).isEmpty());
+    }
+
+    private List<Long> ids(List<CakeResponse> cakes) {
+        return cakes.stream().map(CakeResponse::getId).collect(toList());
+    }
+}
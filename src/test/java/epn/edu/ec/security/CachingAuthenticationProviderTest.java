@@ -0,0 +1,95 @@
+package epn.edu.ec.security;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.authentication.AuthenticationProvider;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+@ExtendWith(MockitoExtension.class)
+class CachingAuthenticationProviderTest {
+
+    @Mock
+    private AuthenticationProvider delegate;
+
+    private CachingAuthenticationProvider cachingAuthenticationProvider;
+
+    private final Authentication authenticated = UsernamePasswordAuthenticationToken.authenticated(
+            "cake-user", null, List.of(new SimpleGrantedAuthority("ROLE_USER")));
+
+    @BeforeEach
+    void setUp() {
+        cachingAuthenticationProvider = new CachingAuthenticationProvider(delegate, Duration.ofMinutes(5), 100);
+    }
+
+    @Test
+    void authenticate_ShouldVerifyPasswordOnce_WhenSameCredentialsArePresentedTwice() {
+        // ARRANGE
+        when(delegate.authenticate(any())).thenReturn(authenticated);
+
+        UsernamePasswordAuthenticationToken secondRequest = credentials("cake-user", "secret");
+        secondRequest.setDetails("second client");
+
+        // ACT
+        cachingAuthenticationProvider.authenticate(credentials("cake-user", "secret"));
+        Authentication result = cachingAuthenticationProvider.authenticate(secondRequest);
+
+        // ASSERT
+        assertNotSame(authenticated, result);
+        assertTrue(result.isAuthenticated());
+        assertEquals("cake-user", result.getPrincipal());
+        assertEquals(authenticated.getAuthorities(), result.getAuthorities());
+        assertEquals("second client", result.getDetails());
+        verify(delegate, times(1)).authenticate(any());
+    }
+
+    @Test
+    void authenticate_ShouldVerifyPasswordAgain_WhenPasswordDiffers() {
+        // ARRANGE
+        when(delegate.authenticate(any()))
+                .thenReturn(authenticated)
+                .thenThrow(new BadCredentialsException("bad credentials"));
+        cachingAuthenticationProvider.authenticate(credentials("cake-user", "secret"));
+
+        // ACT & ASSERT
+        assertThrows(BadCredentialsException.class,
+                () -> cachingAuthenticationProvider.authenticate(credentials("cake-user", "other")));
+        verify(delegate, times(2)).authenticate(any());
+    }
+
+    @Test
+    void authenticate_ShouldNotCacheFailures() {
+        // ARRANGE
+        when(delegate.authenticate(any())).thenThrow(new BadCredentialsException("bad credentials"));
+
+        // ACT
+        assertThrows(BadCredentialsException.class,
+                () -> cachingAuthenticationProvider.authenticate(credentials("cake-user", "wrong")));
+        assertThrows(BadCredentialsException.class,
+                () -> cachingAuthenticationProvider.authenticate(credentials("cake-user", "wrong")));
+
+        // ASSERT
+        verify(delegate, times(2)).authenticate(any());
+    }
+
+    private UsernamePasswordAuthenticationToken credentials(String username, String password) {
+        return UsernamePasswordAuthenticationToken.unauthenticated(username, password);
+    }
+}
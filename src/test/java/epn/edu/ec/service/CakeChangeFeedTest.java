@@ -0,0 +1,180 @@
+package epn.edu.ec.service;
+
+import static java.util.stream.Collectors.joining;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import epn.edu.ec.event.CakeChangedEvent;
+import epn.edu.ec.model.cake.CakeResponse;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class CakeChangeFeedTest {
+
+    private final List<Runnable> tasks = new ArrayList<>();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private CakeChangeFeed changeFeed;
+    private RecordingEmitter emitter;
+
+    @BeforeEach
+    void setUp() {
+        changeFeed = new CakeChangeFeed(tasks::add, 2, Duration.ofMinutes(1), Duration.ofHours(1),
+                Duration.ofMinutes(1), meterRegistry);
+        emitter = new RecordingEmitter();
+        changeFeed.subscribe(emitter);
+    }
+
+    @Test
+    void onCakeChanged_ShouldSendCommittedChangesInOrder() {
+        // ACT
+        changeFeed.onCakeChanged(updated(1L, "Chocolate Cake", 1));
+        changeFeed.onCakeChanged(new CakeChangedEvent(CakeChangedEvent.Type.DELETED, 2L, null, 2));
+        runTasks();
+
+        // ASSERT
+        assertEquals(2, emitter.events.size());
+        assertTrue(emitter.events.get(0).startsWith("id:1\nevent:updated\n"));
+        assertTrue(emitter.events.get(1).startsWith("id:2\nevent:deleted\n"));
+        assertEquals(1, meterRegistry.get(CakeChangeFeed.SUBSCRIBERS_METRIC).gauge().value());
+    }
+
+    @Test
+    void onCakeChanged_ShouldKeepOnlyLatestPendingChangeOfEachCake() {
+        // ACT
+        changeFeed.onCakeChanged(updated(1L, "Chocolate Cake", 1));
+        changeFeed.onCakeChanged(updated(2L, "Vanilla Cake", 2));
+        changeFeed.onCakeChanged(updated(1L, "Dark Chocolate Cake", 3));
+        runTasks();
+
+        // ASSERT
+        assertEquals(2, emitter.events.size());
+        assertTrue(emitter.events.get(0).contains("Vanilla Cake"));
+        assertTrue(emitter.events.get(1).contains("Dark Chocolate Cake"));
+    }
+
+    @Test
+    void onCakeChanged_ShouldIgnoreChangesOlderThanThePublishedOne() {
+        // ACT
+        changeFeed.onCakeChanged(updated(1L, "Dark Chocolate Cake", 3));
+        changeFeed.onCakeChanged(updated(1L, "Chocolate Cake", 2));
+        runTasks();
+        changeFeed.onCakeChanged(updated(1L, "White Chocolate Cake", 1));
+        runTasks();
+
+        // ASSERT
+        assertEquals(1, emitter.events.size());
+        assertTrue(emitter.events.get(0).contains("Dark Chocolate Cake"));
+    }
+
+    @Test
+    void onCakeChanged_ShouldResyncAndDisconnect_WhenSubscriberFallsBehind() {
+        // ACT
+        changeFeed.onCakeChanged(updated(1L, "Chocolate Cake", 1));
+        changeFeed.onCakeChanged(updated(2L, "Vanilla Cake", 2));
+        changeFeed.onCakeChanged(updated(3L, "Carrot Cake", 3));
+        int subscribersBeforeDrain = changeFeed.getSubscriberCount();
+        runTasks();
+        changeFeed.onCakeChanged(updated(4L, "Lemon Cake", 4));
+        runTasks();
+
+        // ASSERT
+        assertEquals(0, subscribersBeforeDrain);
+        assertEquals(List.of("event:resync\ndata:\n\n"), emitter.events);
+        assertTrue(emitter.completed);
+        assertEquals(0, changeFeed.getSubscriberCount());
+    }
+
+    @Test
+    void sendHeartbeats_ShouldDropSubscriber_WhenSendTakesLongerThanTimeout() {
+        // ARRANGE
+        CakeChangeFeed stallingFeed = new CakeChangeFeed(tasks::add, 2, Duration.ofMinutes(1), Duration.ofHours(1),
+                Duration.ZERO, new SimpleMeterRegistry());
+        RecordingEmitter stalledEmitter = new RecordingEmitter();
+        // the heartbeat run happens while the write is still in progress
+        stalledEmitter.onSend = stallingFeed::sendHeartbeats;
+        stallingFeed.subscribe(stalledEmitter);
+
+        // ACT
+        stallingFeed.onCakeChanged(updated(1L, "Chocolate Cake", 1));
+        stallingFeed.onCakeChanged(updated(2L, "Vanilla Cake", 2));
+        runTasks();
+
+        // ASSERT
+        assertEquals(1, stalledEmitter.events.size());
+        assertTrue(stalledEmitter.completed);
+        assertEquals(0, stallingFeed.getSubscriberCount());
+    }
+
+    @Test
+    void onCakeChanged_ShouldDropSubscriber_WhenSendFails() {
+        // ARRANGE
+        emitter.failing = true;
+
+        // ACT
+        changeFeed.onCakeChanged(updated(1L, "Chocolate Cake", 1));
+        runTasks();
+
+        // ASSERT
+        assertEquals(0, changeFeed.getSubscriberCount());
+    }
+
+    @Test
+    void sendHeartbeats_ShouldOnlyPingIdleSubscribers() {
+        // ARRANGE
+        CakeChangeFeed heartbeatFeed = new CakeChangeFeed(tasks::add, 2, Duration.ofMinutes(1), Duration.ZERO,
+                Duration.ofMinutes(1), new SimpleMeterRegistry());
+        RecordingEmitter idleEmitter = new RecordingEmitter();
+        heartbeatFeed.subscribe(idleEmitter);
+
+        // ACT
+        changeFeed.sendHeartbeats();
+        heartbeatFeed.sendHeartbeats();
+        runTasks();
+
+        // ASSERT
+        assertTrue(emitter.events.isEmpty());
+        assertEquals(List.of(":heartbeat\n\n"), idleEmitter.events);
+    }
+
+    private void runTasks() {
+        while (!tasks.isEmpty()) {
+            tasks.remove(0).run();
+        }
+    }
+
+    private static CakeChangedEvent updated(long cakeId, String title, long revision) {
+        return new CakeChangedEvent(CakeChangedEvent.Type.UPDATED, cakeId, new CakeResponse(cakeId, title, title),
+                revision);
+    }
+
+    private static class RecordingEmitter extends SseEmitter {
+        private final List<String> events = new ArrayList<>();
+        private boolean failing;
+        private boolean completed;
+        private Runnable onSend = () -> { };
+
+        @Override
+        public void send(SseEventBuilder builder) throws IOException {
+            if (failing) {
+                throw new IOException("connection reset");
+            }
+            onSend.run();
+            events.add(builder.build().stream()
+                    .map(data -> String.valueOf(data.getData()))
+                    .collect(joining()));
+        }
+
+        @Override
+        public void complete() {
+            completed = true;
+        }
+    }
+}
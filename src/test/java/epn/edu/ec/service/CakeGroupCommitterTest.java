@@ -0,0 +1,167 @@
+package epn.edu.ec.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import epn.edu.ec.exception.CakeCommitTimeoutException;
+import epn.edu.ec.exception.CakeTitleConflictException;
+import epn.edu.ec.model.cake.CakeResponse;
+import epn.edu.ec.model.cake.CreateCakeRequest;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@ExtendWith(MockitoExtension.class)
+class CakeGroupCommitterTest {
+
+    @Mock
+    private CakeService cakeService;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    // one thread per caller, every caller blocks until its group is committed
+    private final ExecutorService callers = Executors.newCachedThreadPool();
+
+    @AfterEach
+    void tearDown() {
+        callers.shutdownNow();
+    }
+
+    @Test
+    void createCake_ShouldCommitConcurrentCreatesAsOneGroup() {
+        // ARRANGE
+        CakeGroupCommitter groupCommitter = groupCommitter(3, Duration.ofSeconds(10));
+        when(cakeService.createCakes(anyList())).thenAnswer(invocation -> created(invocation.getArgument(0)));
+
+        // ACT
+        List<CompletableFuture<CakeResponse>> results = new ArrayList<>();
+        for (long id = 1; id <= 3; id++) {
+            CreateCakeRequest request = request(id + " cake");
+            results.add(CompletableFuture.supplyAsync(() -> groupCommitter.createCake(request), callers));
+        }
+
+        // ASSERT
+        results.forEach(result -> {
+            CakeResponse cake = result.join();
+            assertEquals(cake.getId() + " cake", cake.getTitle());
+        });
+        verify(cakeService, times(1)).createCakes(anyList());
+        assertEquals(3, meterRegistry.get(CakeGroupCommitter.BATCH_SIZE_METRIC).summary().totalAmount());
+    }
+
+    @Test
+    void createCake_ShouldFailOnlyTheCallerWhoseTitleIsTaken() {
+        // ARRANGE
+        CakeGroupCommitter groupCommitter = groupCommitter(2, Duration.ofSeconds(10));
+        when(cakeService.createCakes(anyList())).thenAnswer(invocation -> {
+            List<CakeResponse> created = created(invocation.getArgument(0));
+            created.replaceAll(cake -> cake.getId() == 2 ? null : cake);
+            return created;
+        });
+
+        // ACT
+        CompletableFuture<CakeResponse> first =
+                CompletableFuture.supplyAsync(() -> groupCommitter.createCake(request("1 cake")), callers);
+        CompletableFuture<CakeResponse> second =
+                CompletableFuture.supplyAsync(() -> groupCommitter.createCake(request("2 cake")), callers);
+
+        // ASSERT
+        assertEquals(1L, first.join().getId());
+        CompletionException failure = assertThrows(CompletionException.class, second::join);
+        assertTrue(failure.getCause() instanceof CakeTitleConflictException);
+    }
+
+    @Test
+    void createCake_ShouldCreateAlone_WhenGroupLosesTitleToConcurrentWriter() {
+        // ARRANGE
+        CakeGroupCommitter groupCommitter = groupCommitter(1, Duration.ZERO);
+        CreateCakeRequest request = request("1 cake");
+        when(cakeService.createCakes(anyList())).thenThrow(new CakeTitleConflictException());
+        when(cakeService.createCake(request)).thenThrow(new CakeTitleConflictException());
+
+        // ACT & ASSERT
+        assertThrows(CakeTitleConflictException.class, () -> groupCommitter.createCake(request));
+        verify(cakeService).createCake(any());
+    }
+
+    @Test
+    void createCake_ShouldReportFailedCommitToEveryCaller() {
+        // ARRANGE
+        CakeGroupCommitter groupCommitter = groupCommitter(1, Duration.ZERO);
+        when(cakeService.createCakes(anyList())).thenThrow(new IllegalStateException("database unavailable"));
+
+        // ACT & ASSERT
+        IllegalStateException failure = assertThrows(IllegalStateException.class,
+                () -> groupCommitter.createCake(request("1 cake")));
+        assertEquals("database unavailable", failure.getMessage());
+    }
+
+    @Test
+    void createCake_ShouldFailQueuedCallers_AndFlushAgain_WhenCommitThrowsError() {
+        // ARRANGE
+        CakeGroupCommitter groupCommitter = groupCommitter(1, Duration.ZERO);
+        when(cakeService.createCakes(anyList()))
+                .thenThrow(new OutOfMemoryError("heap exhausted"))
+                .thenAnswer(invocation -> created(invocation.getArgument(0)));
+
+        // ACT
+        IllegalStateException failure = assertThrows(IllegalStateException.class,
+                () -> groupCommitter.createCake(request("1 cake")));
+        CakeResponse cake = groupCommitter.createCake(request("2 cake"));
+
+        // ASSERT
+        assertTrue(failure.getCause() instanceof OutOfMemoryError);
+        assertEquals(2L, cake.getId());
+    }
+
+    @Test
+    void createCake_ShouldGiveUp_WhenNotCommittedInTime() {
+        // ARRANGE
+        List<Runnable> flushes = new ArrayList<>();
+        CakeGroupCommitter groupCommitter = new CakeGroupCommitter(cakeService, flushes::add, 1, Duration.ZERO,
+                Duration.ofMillis(50), 16, meterRegistry);
+
+        // ACT & ASSERT
+        assertThrows(CakeCommitTimeoutException.class, () -> groupCommitter.createCake(request("1 cake")));
+        // no longer queued, the late flush commits nothing
+        flushes.forEach(Runnable::run);
+        verify(cakeService, never()).createCakes(anyList());
+    }
+
+    private CakeGroupCommitter groupCommitter(int maxBatchSize, Duration window) {
+        return new CakeGroupCommitter(cakeService, task -> new Thread(task).start(), maxBatchSize, window,
+                Duration.ofSeconds(10), 16, meterRegistry);
+    }
+
+    private static CreateCakeRequest request(String title) {
+        return CreateCakeRequest.builder().title(title).description("Group committed").build();
+    }
+
+    /**
+     * Every request created, with the id the test put at the start of its title.
+     */
+    private static List<CakeResponse> created(List<CreateCakeRequest> requests) {
+        List<CakeResponse> cakes = new ArrayList<>();
+        requests.forEach(request -> cakes.add(new CakeResponse(Long.parseLong(request.getTitle().split(" ")[0]),
+                request.getTitle(), request.getDescription(), 0L)));
+        return cakes;
+    }
+}
@@ -0,0 +1,171 @@
+package epn.edu.ec.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.Optional;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.context.junit.jupiter.SpringJUnitConfig;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionSystemException;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import epn.edu.ec.config.CacheConfig;
+import epn.edu.ec.model.cake.CakeResponse;
+import epn.edu.ec.model.cake.CreateCakeRequest;
+import epn.edu.ec.model.cake.UpdateCakeRequest;
+import epn.edu.ec.repository.CakeRepository;
+import epn.edu.ec.repository.CakeTombstoneRepository;
+import epn.edu.ec.repository.model.Cake;
+import epn.edu.ec.search.CakeSearchIndex;
+import epn.edu.ec.store.JpaCakeStore;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManager;
+
+@SpringJUnitConfig
+class CakeServiceCacheTest {
+
+    @Configuration
+    @Import({CacheConfig.class, CakeService.class, JpaCakeStore.class})
+    static class CacheTestConfig {
+        @Bean
+        CacheManager cacheManager() {
+            return new ConcurrentMapCacheManager(CakeService.CAKE_CACHE);
+        }
+
+        @Bean
+        ObjectMapper objectMapper() {
+            return new ObjectMapper();
+        }
+
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+    }
+
+    @MockitoBean
+    private CakeRepository cakeRepository;
+
+    @MockitoBean
+    private EntityManager entityManager;
+
+    @MockitoBean
+    private CakeSearchIndex searchIndex;
+
+    @MockitoBean
+    private CatalogRevisionService revisionService;
+
+    @MockitoBean
+    private CakeTombstoneRepository tombstoneRepository;
+
+    @MockitoBean
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private CakeService cakeService;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    private final Cake cake = Cake.builder()
+            .id(1L)
+            .title("Chocolate Cake")
+            .description("Delicious chocolate cake")
+            .build();
+
+    @BeforeEach
+    void setUp() {
+        cacheManager.getCacheNames().forEach(name -> cacheManager.getCache(name).clear());
+    }
+
+    @Test
+    void getCakeById_ShouldQueryRepositoryOnce_WhenCalledTwice() {
+        // ARRANGE
+        when(cakeRepository.findResponseById(1L)).thenReturn(Optional.of(CakeService.cakeResponse(cake)));
+
+        // ACT
+        cakeService.getCakeById(1L);
+        CakeResponse cakeResponse = cakeService.getCakeById(1L);
+
+        // ASSERT
+        assertEquals("Chocolate Cake", cakeResponse.getTitle());
+        verify(cakeRepository, times(1)).findResponseById(1L);
+    }
+
+    @Test
+    void updateCake_ShouldRefreshCachedCake() {
+        // ARRANGE
+        Cake updatedCake = cake.toBuilder().title("Updated Chocolate Cake").description("Updated description").build();
+        when(cakeRepository.findResponseById(1L))
+                .thenReturn(Optional.of(CakeService.cakeResponse(cake)), Optional.of(CakeService.cakeResponse(updatedCake)));
+        when(cakeRepository.updateById(eq(1L), any(), any(), any(), anyLong())).thenReturn(Optional.of(1L));
+        cakeService.getCakeById(1L);
+
+        UpdateCakeRequest updateRequest = new UpdateCakeRequest();
+        updateRequest.setTitle("Updated Chocolate Cake");
+        updateRequest.setDescription("Updated description");
+
+        // ACT
+        cakeService.updateCake(1L, updateRequest, null);
+        CakeResponse cakeResponse = cakeService.getCakeById(1L);
+
+        // ASSERT
+        assertEquals("Updated Chocolate Cake", cakeResponse.getTitle());
+        verify(cakeRepository, times(2)).findResponseById(1L);
+    }
+
+    @Test
+    void createCake_ShouldNotCacheCake_WhenCommitFails() {
+        // ARRANGE
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        // the store commits its own transaction first, then the service's fails
+        doNothing().doThrow(new TransactionSystemException("commit failed")).when(transactionManager).commit(any());
+        when(cakeRepository.saveAll(any())).thenReturn(List.of(cake));
+        CreateCakeRequest createRequest = CreateCakeRequest.builder()
+                .title("Chocolate Cake")
+                .description("Delicious chocolate cake")
+                .build();
+
+        // ACT & ASSERT
+        assertThrows(TransactionSystemException.class, () -> cakeService.createCake(createRequest));
+        assertNull(cacheManager.getCache(CakeService.CAKE_CACHE).get(1L));
+    }
+
+    @Test
+    void deleteCake_ShouldEvictCachedCake() {
+        // ARRANGE
+        when(cakeRepository.findResponseById(1L)).thenReturn(Optional.of(CakeService.cakeResponse(cake)));
+        when(cakeRepository.deleteCakeById(1L)).thenReturn(1);
+        cakeService.getCakeById(1L);
+
+        // ACT
+        cakeService.deleteCake(1L);
+        cakeService.getCakeById(1L);
+
+        // ASSERT
+        // one read to warm the cache and one after the eviction; the delete itself does not load the cake
+        verify(cakeRepository, times(2)).findResponseById(1L);
+    }
+}
@@ -2,15 +2,37 @@ package epn.edu.ec.service;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
+import epn.edu.ec.event.CakeChangedEvent;
+import epn.edu.ec.exception.CakeBatchTooLargeException;
 import epn.edu.ec.exception.CakeNotFoundException;
+import epn.edu.ec.exception.CakeOperationNotSupportedException;
+import epn.edu.ec.exception.CakeTitleConflictException;
+import epn.edu.ec.exception.CakeVersionConflictException;
+import epn.edu.ec.exception.CatalogRevisionExpiredException;
+import epn.edu.ec.exception.InvalidCakeCursorException;
+import epn.edu.ec.exception.InvalidCakeQueryException;
+import epn.edu.ec.model.cake.CakeBatchOperation;
+import epn.edu.ec.model.cake.CakeBatchRequest;
+import epn.edu.ec.model.cake.CakeBatchResponse;
+import epn.edu.ec.model.cake.CakeBatchResult;
+import epn.edu.ec.model.cake.CakeDeltaResponse;
+import epn.edu.ec.model.cake.CakeQuery;
 import epn.edu.ec.model.cake.CakeResponse;
 import epn.edu.ec.model.cake.CreateCakeRequest;
 import epn.edu.ec.model.cake.UpdateCakeRequest;
@@ -20,11 +42,22 @@ import org.junit.jupiter.api.extension.ExtendWith;
 
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
 
 import epn.edu.ec.repository.CakeRepository;
+import epn.edu.ec.repository.CakeTombstoneRepository;
 import epn.edu.ec.repository.model.Cake;
+import epn.edu.ec.repository.model.CatalogRevision;
+import epn.edu.ec.search.CakeSearchIndex;
+import epn.edu.ec.store.CakeStore;
 import epn.edu.ec.model.cake.CakesResponse;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManager;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
 
 @ExtendWith(MockitoExtension.class)
 class CakeServiceTest {
@@ -32,6 +65,30 @@ class CakeServiceTest {
     @Mock
     private CakeRepository cakeRepository;
 
+    @Mock
+    private CakeStore cakeStore;
+
+    @Mock
+    private EntityManager entityManager;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private CakeSearchIndex searchIndex;
+
+    @Mock
+    private CatalogRevisionService revisionService;
+
+    @Mock
+    private CakeTombstoneRepository tombstoneRepository;
+
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper();
+
+    @Spy
+    private SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
     @InjectMocks
     private CakeService cakeService;
 
@@ -54,10 +111,10 @@ class CakeServiceTest {
     }
 
     @Test
-    void getCakes_ShouldReturnAllCakesSortedByTitle() {
+    void getCakes_ShouldReturnCakesSortedByTheStore() {
         // ARRANGE
-        List<Cake> cakes = Arrays.asList(cakeB, cakeA);
-        when(cakeRepository.findAll()).thenReturn(cakes);
+        List<CakeResponse> cakes = Arrays.asList(CakeService.cakeResponse(cakeA), CakeService.cakeResponse(cakeB));
+        when(cakeStore.findAll()).thenReturn(cakes);
 
         // ACT
         CakesResponse cakesResponse = cakeService.getCakes();
@@ -67,12 +124,160 @@ class CakeServiceTest {
         assertEquals(2, cakesResponse.getCakes().size());
         assertEquals("Chocolate Cake", cakesResponse.getCakes().get(0).getTitle());
         assertEquals("Vanilla Cake", cakesResponse.getCakes().get(1).getTitle());
+        verify(cakeRepository, never()).findAll();
+    }
+
+    @Test
+    void getCakesPage_ShouldReturnNextCursor_WhenMoreCakesExist() {
+        // ARRANGE
+        when(cakeStore.findFirstPage(2))
+                .thenReturn(Arrays.asList(CakeService.cakeResponse(cakeA), CakeService.cakeResponse(cakeB)));
+
+        // ACT
+        CakesResponse cakesResponse = cakeService.getCakes(1, null);
+
+        // ASSERT
+        assertEquals(1, cakesResponse.getCakes().size());
+        assertEquals("Chocolate Cake", cakesResponse.getCakes().get(0).getTitle());
+        assertEquals(new CakeCursor("Chocolate Cake", 1L).encode(), cakesResponse.getNextCursor());
+    }
+
+    @Test
+    void getCakesPage_ShouldContinueAfterCursor_AndOmitCursorOnLastPage() {
+        // ARRANGE
+        String after = new CakeCursor("Chocolate Cake", 1L).encode();
+        when(cakeStore.findPageAfter("Chocolate Cake", 1L, 2))
+                .thenReturn(List.of(CakeService.cakeResponse(cakeB)));
+
+        // ACT
+        CakesResponse cakesResponse = cakeService.getCakes(1, after);
+
+        // ASSERT
+        assertEquals(1, cakesResponse.getCakes().size());
+        assertEquals("Vanilla Cake", cakesResponse.getCakes().get(0).getTitle());
+        assertNull(cakesResponse.getNextCursor());
+    }
+
+    @Test
+    void getCakesPage_ShouldContinueAfterCakeWithoutTitle() {
+        // ARRANGE
+        CakeResponse untitled = new CakeResponse(7L, null, "No name yet");
+        when(cakeStore.findFirstPage(2)).thenReturn(List.of(untitled, CakeService.cakeResponse(cakeA)));
+        when(cakeStore.findPageAfter(null, 7L, 2)).thenReturn(List.of(CakeService.cakeResponse(cakeA)));
+
+        // ACT
+        CakesResponse firstPage = cakeService.getCakes(1, null);
+        CakesResponse nextPage = cakeService.getCakes(1, firstPage.getNextCursor());
+
+        // ASSERT
+        assertEquals(new CakeCursor(null, 7L), CakeCursor.decode(firstPage.getNextCursor()));
+        assertEquals("Chocolate Cake", nextPage.getCakes().get(0).getTitle());
+        assertNull(nextPage.getNextCursor());
+    }
+
+    @Test
+    void getCakesPage_ShouldThrowException_WhenCursorIsInvalid() {
+        // ACT & ASSERT
+        assertThrows(InvalidCakeCursorException.class, () -> cakeService.getCakes(10, "not-a-cursor"));
+    }
+
+    @Test
+    void findCakes_ShouldContinueAfterCursor_WithTheFiltersOfTheQuery() {
+        // ARRANGE
+        CakeQuery query = CakeQuery.builder().titleContains("cake").build();
+        String after = new CakeCursor("Chocolate Cake", 1L).encode();
+        when(cakeStore.find(query.toBuilder().afterTitle("Chocolate Cake").afterId(1L).build(), 2))
+                .thenReturn(List.of(CakeService.cakeResponse(cakeB), CakeService.cakeResponse(cakeA)));
+
+        // ACT
+        CakesResponse cakesResponse = cakeService.findCakes(query, 1, after);
+
+        // ASSERT
+        assertEquals(1, cakesResponse.getCakes().size());
+        assertEquals("Vanilla Cake", cakesResponse.getCakes().get(0).getTitle());
+        assertEquals(new CakeCursor("Vanilla Cake", 2L).encode(), cakesResponse.getNextCursor());
+    }
+
+    @Test
+    void findCakes_ShouldOmitCursor_WhenSortedByAnotherOrder() {
+        // ARRANGE
+        CakeQuery query = CakeQuery.builder().sort(CakeQuery.parseSort(List.of("-id"))).build();
+        when(cakeStore.find(query, 2))
+                .thenReturn(List.of(CakeService.cakeResponse(cakeB), CakeService.cakeResponse(cakeA)));
+
+        // ACT
+        CakesResponse cakesResponse = cakeService.findCakes(query, 1, null);
+
+        // ASSERT
+        assertEquals("Vanilla Cake", cakesResponse.getCakes().get(0).getTitle());
+        assertNull(cakesResponse.getNextCursor());
+        assertThrows(InvalidCakeQueryException.class,
+                () -> cakeService.findCakes(query, 1, new CakeCursor("Vanilla Cake", 2L).encode()));
+    }
+
+    @Test
+    void exportCakes_ShouldWriteOneJsonLinePerCake_AndDetachEachCake() throws Exception {
+        // ARRANGE
+        when(cakeStore.isPrimaryDatabase()).thenReturn(true);
+        when(cakeRepository.streamAll()).thenReturn(Stream.of(cakeA, cakeB));
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+        // ACT
+        cakeService.exportCakes(outputStream);
+
+        // ASSERT
+        String[] lines = outputStream.toString().split("\n");
+        assertEquals(2, lines.length);
+        assertEquals("Chocolate Cake", objectMapper.readValue(lines[0], CakeResponse.class).getTitle());
+        assertEquals("Vanilla Cake", objectMapper.readValue(lines[1], CakeResponse.class).getTitle());
+        verify(entityManager).detach(cakeA);
+        verify(entityManager).detach(cakeB);
+    }
+
+    @Test
+    void searchCakes_ShouldCapLimit_AndReturnIndexResults() {
+        // ARRANGE
+        CakeResponse chocolate = new CakeResponse(1L, "Chocolate Cake", "Delicious chocolate cake");
+        when(searchIndex.search("choc", CakeService.MAX_SEARCH_LIMIT)).thenReturn(List.of(chocolate));
+
+        // ACT
+        CakesResponse cakesResponse = cakeService.searchCakes("choc", 10_000);
+
+        // ASSERT
+        assertEquals(List.of(chocolate), cakesResponse.getCakes());
+    }
+
+    @Test
+    void getDelta_ShouldReturnChangedCakesAndTombstonesSinceRevision() {
+        // ARRANGE
+        when(revisionService.current()).thenReturn(new CatalogRevision(CatalogRevision.CATALOG, 12L, 3L));
+        when(cakeStore.findChangedSince(10L)).thenReturn(List.of(CakeService.cakeResponse(cakeA)));
+        when(tombstoneRepository.findCakeIdsDeletedSince(10L)).thenReturn(List.of(2L));
+
+        // ACT
+        CakeDeltaResponse delta = cakeService.getDelta(10L);
+
+        // ASSERT
+        assertEquals(12L, delta.getRevision());
+        assertEquals(List.of(CakeService.cakeResponse(cakeA)), delta.getCakes());
+        assertEquals(List.of(2L), delta.getDeletedCakeIds());
+    }
+
+    @Test
+    void getDelta_ShouldThrowException_WhenTombstonesSinceRevisionWereCompacted() {
+        // ARRANGE
+        when(revisionService.current()).thenReturn(new CatalogRevision(CatalogRevision.CATALOG, 12L, 5L));
+
+        // ACT & ASSERT
+        assertThrows(CatalogRevisionExpiredException.class, () -> cakeService.getDelta(4L));
+        assertThrows(CatalogRevisionExpiredException.class, () -> cakeService.getDelta(13L));
+        verify(cakeStore, never()).findChangedSince(anyLong());
     }
 
     @Test
     public void getCakeById_ShouldReturnCake_WhenCakeExists() {
         // ARRANGE
-        when(cakeRepository.findById(1L)).thenReturn(Optional.of(cakeA));
+        when(cakeStore.findById(1L)).thenReturn(Optional.of(CakeService.cakeResponse(cakeA)));
 
         // ACT
         CakeResponse cakeResponse = cakeService.getCakeById(1L);
@@ -87,24 +292,93 @@ class CakeServiceTest {
     public void getCakeById_ShouldThrowException_WhenCakeDoesNotExist() {
         // ARRANGE
         long nonExistentCakeId = 999L;
-        when(cakeRepository.findById(nonExistentCakeId)).thenReturn(Optional.empty());
+        when(cakeStore.findById(nonExistentCakeId)).thenReturn(Optional.empty());
 
         // ACT & ASSERT
         assertThrows(CakeNotFoundException.class, () -> {
             cakeService.getCakeById(nonExistentCakeId);
         });
+        assertEquals(1, meterRegistry.get(CakeService.NOT_FOUND_METRIC).tag("operation", "get").counter().count());
     }
 
     @Test
-    public void createCake_ShouldSaveAndReturnNewCake() {
+    public void getCakeByTitle_ShouldLookUpNormalizedTitleKey() {
         // ARRANGE
-        Cake newCake = Cake.builder()
-                .id(3L)
-                .title("Red Velvet Cake")
-                .description("Delicious Red Velvet Cake")
+        when(cakeStore.findByTitleKey("chocolate cake")).thenReturn(Optional.of(CakeService.cakeResponse(cakeA)));
+
+        // ACT
+        CakeResponse cakeResponse = cakeService.getCakeByTitle("  CHOCOLATE Cake ");
+
+        // ASSERT
+        assertEquals(cakeA.getId(), cakeResponse.getId());
+        assertEquals(cakeA.getTitle(), cakeResponse.getTitle());
+    }
+
+    @Test
+    public void getCakeByTitle_ShouldThrowException_WhenCakeDoesNotExist() {
+        // ARRANGE
+        when(cakeStore.findByTitleKey("missing cake")).thenReturn(Optional.empty());
+
+        // ACT & ASSERT
+        assertThrows(CakeNotFoundException.class, () -> cakeService.getCakeByTitle("Missing Cake"));
+    }
+
+    @Test
+    public void createCake_ShouldThrowConflict_WhenTitleAlreadyExists() {
+        // ARRANGE
+        when(cakeStore.insertAll(any())).thenThrow(new DataIntegrityViolationException("uk_cakes_title_key"));
+        CreateCakeRequest createCakeRequest = CreateCakeRequest.builder()
+                .title("chocolate cake")
+                .description("Another chocolate cake")
                 .build();
 
-        when(cakeRepository.save(any(Cake.class))).thenReturn(newCake);
+        // ACT & ASSERT
+        assertThrows(CakeTitleConflictException.class, () -> cakeService.createCake(createCakeRequest));
+        verify(eventPublisher, never()).publishEvent(any());
+    }
+
+    @Test
+    public void createCakes_ShouldInsertGroupInOneRevision_AndSkipTakenTitles() {
+        // ARRANGE
+        when(cakeStore.findExistingTitleKeys(any())).thenReturn(List.of("chocolate cake"));
+        when(cakeStore.insertAll(any())).thenReturn(List.of(new CakeResponse(3L, "Red Velvet Cake", "Red", 0L)));
+        when(revisionService.next()).thenReturn(6L);
+
+        // ACT
+        List<CakeResponse> created = cakeService.createCakes(List.of(
+                CreateCakeRequest.builder().title("Red Velvet Cake").description("Red").build(),
+                CreateCakeRequest.builder().title("CHOCOLATE CAKE").description("Taken").build(),
+                CreateCakeRequest.builder().title(" red velvet cake").description("Repeated").build()));
+
+        // ASSERT
+        assertEquals(3L, created.get(0).getId());
+        assertNull(created.get(1));
+        assertNull(created.get(2));
+        verify(cakeStore).insertAll(argThat(cakes -> {
+            Iterator<Cake> saved = cakes.iterator();
+            Cake cake = saved.next();
+            return !saved.hasNext() && cake.getRevision() == 6L && "Red Velvet Cake".equals(cake.getTitle());
+        }));
+        verify(eventPublisher).publishEvent(new CakeChangedEvent(CakeChangedEvent.Type.CREATED, 3L, created.get(0), 6L));
+    }
+
+    @Test
+    public void createCakes_ShouldThrowConflict_WhenTitleIsTakenConcurrently() {
+        // ARRANGE
+        doThrow(new DataIntegrityViolationException("uk_cakes_title_key")).when(cakeStore).insertAll(any());
+
+        // ACT & ASSERT
+        assertThrows(CakeTitleConflictException.class, () -> cakeService.createCakes(List.of(
+                CreateCakeRequest.builder().title("Red Velvet Cake").build())));
+        verify(eventPublisher, never()).publishEvent(any());
+    }
+
+    @Test
+    public void createCake_ShouldSaveAndReturnNewCake() {
+        // ARRANGE
+        CakeResponse newCake = new CakeResponse(3L, "Red Velvet Cake", "Delicious Red Velvet Cake", 0L);
+
+        when(cakeStore.insertAll(any())).thenReturn(List.of(newCake));
 
         // ACT
         CreateCakeRequest createCakeRequest = CreateCakeRequest
@@ -126,50 +400,180 @@ class CakeServiceTest {
     public void updateCake_ShouldUpdateExistingCake() {
         // ARRANGE
         long cakeId = 1L;
-        Cake existingCake = Cake.builder().id(cakeId).title("Old Title").build();
         UpdateCakeRequest updateRequest = new UpdateCakeRequest();
         updateRequest.setTitle("Updated Chocolate Cake");
         updateRequest.setDescription("Updated delicious chocolate cake");
 
-        when(cakeRepository.findById(cakeId)).thenReturn(Optional.of(existingCake));
-        // Simular que el objeto ya actualizado
-        when(cakeRepository.save(any(Cake.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(cakeStore.update(cakeId, null, "Updated Chocolate Cake", "Updated delicious chocolate cake", 5L))
+                .thenReturn(Optional.of(4L));
+        when(revisionService.next()).thenReturn(5L);
 
         // ACT
-        cakeService.updateCake(cakeId, updateRequest);
+        long version = cakeService.updateCake(cakeId, updateRequest, null);
 
         // ASSERT
-        verify(cakeRepository).findById(cakeId);
-        verify(cakeRepository).save(argThat(cake ->
-                cake.getTitle().equals("Updated Chocolate Cake") &&
-                        cake.getDescription().equals("Updated delicious chocolate cake")
-        ));
+        assertEquals(4L, version);
+        // a single UPDATE statement, the cake is never loaded
+        verify(cakeStore, never()).findById(cakeId);
+        verify(cakeRepository, never()).save(any(Cake.class));
+        verify(eventPublisher).publishEvent((Object) new CakeChangedEvent(CakeChangedEvent.Type.UPDATED, cakeId,
+                new CakeResponse(cakeId, "Updated Chocolate Cake", "Updated delicious chocolate cake", 4L), 5L));
+    }
+
+    @Test
+    public void updateCake_ShouldThrowException_WhenCakeDoesNotExist() {
+        // ARRANGE
+        long nonExistentCakeId = 999L;
+        UpdateCakeRequest updateRequest = new UpdateCakeRequest();
+        updateRequest.setTitle("Updated Chocolate Cake");
+
+        when(cakeStore.update(eq(nonExistentCakeId), eq(null), any(), any(), anyLong())).thenReturn(Optional.empty());
+
+        // ACT & ASSERT
+        assertThrows(CakeNotFoundException.class, () -> cakeService.updateCake(nonExistentCakeId, updateRequest, null));
+        verify(eventPublisher, never()).publishEvent(any());
+        assertEquals(1, meterRegistry.get(CakeService.NOT_FOUND_METRIC).tag("operation", "update").counter().count());
+    }
+
+    @Test
+    public void updateCake_ShouldThrowVersionConflict_WhenCakeWasUpdatedMeanwhile() {
+        // ARRANGE
+        long cakeId = 1L;
+        UpdateCakeRequest updateRequest = new UpdateCakeRequest();
+        updateRequest.setTitle("Updated Chocolate Cake");
+
+        when(cakeStore.update(eq(cakeId), eq(2L), any(), any(), anyLong())).thenReturn(Optional.empty());
+        when(cakeStore.exists(cakeId)).thenReturn(true);
+
+        // ACT & ASSERT
+        assertThrows(CakeVersionConflictException.class, () -> cakeService.updateCake(cakeId, updateRequest, 2L));
+        verify(eventPublisher, never()).publishEvent(any());
+    }
+
+    @Test
+    public void updateCake_ShouldPublishIncrementedVersion_WhenVersionMatches() {
+        // ARRANGE
+        long cakeId = 1L;
+        UpdateCakeRequest updateRequest = new UpdateCakeRequest();
+        updateRequest.setTitle("Updated Chocolate Cake");
+        updateRequest.setDescription("Updated delicious chocolate cake");
+
+        when(cakeStore.update(eq(cakeId), eq(2L), any(), any(), anyLong())).thenReturn(Optional.of(3L));
+        when(revisionService.next()).thenReturn(7L);
+
+        // ACT
+        cakeService.updateCake(cakeId, updateRequest, 2L);
+
+        // ASSERT
+        verify(eventPublisher).publishEvent((Object) new CakeChangedEvent(CakeChangedEvent.Type.UPDATED, cakeId,
+                new CakeResponse(cakeId, "Updated Chocolate Cake", "Updated delicious chocolate cake", 3L), 7L));
     }
 
     @Test
     public void deleteCake_ShouldRemoveExistingCake() {
         // ARRANGE
         long cakeId = 1L;
-        Cake cakeToDelete = Cake.builder().id(cakeId).title("To be deleted").build();
-        when(cakeRepository.findById(cakeId)).thenReturn(Optional.of(cakeToDelete));
+        when(cakeStore.delete(cakeId)).thenReturn(true);
+        when(revisionService.next()).thenReturn(9L);
 
         // ACT
         cakeService.deleteCake(cakeId);
 
         // ASSERT
-        verify(cakeRepository).findById(cakeId);
-        verify(cakeRepository).delete(cakeToDelete);
+        verify(cakeStore).delete(cakeId);
+        verify(cakeStore, never()).findById(cakeId);
+        verify(tombstoneRepository).save(argThat(tombstone ->
+                tombstone.getCakeId() == cakeId && tombstone.getRevision() == 9L));
     }
 
     @Test
     public void deleteCake_ShouldThrowException_WhenCakeDoesNotExist() {
         // ARRANGE
         long nonExistentCakeId = 999L;
-        when(cakeRepository.findById(nonExistentCakeId)).thenReturn(Optional.empty());
+        when(cakeStore.delete(nonExistentCakeId)).thenReturn(false);
 
         // ACT & ASSERT
         assertThrows(CakeNotFoundException.class, () -> {
             cakeService.deleteCake(nonExistentCakeId);
         });
     }
-}
\ No newline at end of file
+
+    @Test
+    void applyBatch_ShouldApplyEachOperation_AndReportResultsInOrder() {
+        // ARRANGE
+        when(cakeStore.isPrimaryDatabase()).thenReturn(true);
+        Cake savedCake = Cake.builder().id(3L).title("Carrot Cake").description("Carrot cake").build();
+        when(cakeRepository.findAllById(any())).thenReturn(List.of(cakeA, cakeB));
+        when(cakeRepository.saveAll(any())).thenReturn(List.of(savedCake));
+        when(revisionService.next()).thenReturn(4L);
+
+        CakeBatchRequest batchRequest = new CakeBatchRequest(List.of(
+                CakeBatchOperation.builder().type(CakeBatchOperation.Type.CREATE).title("Carrot Cake").description("Carrot cake").build(),
+                CakeBatchOperation.builder().type(CakeBatchOperation.Type.UPDATE).id(1L).title("Dark Chocolate Cake").description("Darker").build(),
+                CakeBatchOperation.builder().type(CakeBatchOperation.Type.DELETE).id(2L).build(),
+                CakeBatchOperation.builder().type(CakeBatchOperation.Type.DELETE).id(999L).build()));
+
+        // ACT
+        CakeBatchResponse batchResponse = cakeService.applyBatch(batchRequest);
+
+        // ASSERT
+        List<CakeBatchResult> results = batchResponse.getResults();
+        assertEquals(4, results.size());
+        assertEquals(CakeBatchResult.Status.CREATED, results.get(0).getStatus());
+        assertEquals(3L, results.get(0).getId());
+        assertEquals(CakeBatchResult.Status.UPDATED, results.get(1).getStatus());
+        assertEquals("Dark Chocolate Cake", cakeA.getTitle());
+        assertEquals(4L, cakeA.getRevision());
+        assertEquals(CakeBatchResult.Status.DELETED, results.get(2).getStatus());
+        assertEquals(CakeBatchResult.Status.NOT_FOUND, results.get(3).getStatus());
+        verify(cakeRepository).deleteAll(List.of(cakeB));
+        verify(tombstoneRepository).saveAll(argThat(tombstones -> tombstones.iterator().next().getCakeId() == 2L));
+    }
+
+    @Test
+    void applyBatch_ShouldReportConflict_WhenTitleIsTaken() {
+        // ARRANGE
+        when(cakeStore.isPrimaryDatabase()).thenReturn(true);
+        when(cakeRepository.findAllById(any())).thenReturn(List.of(cakeB));
+        when(cakeRepository.findByTitleKeyIn(any())).thenReturn(List.of(cakeA));
+        when(cakeRepository.saveAll(any())).thenReturn(List.of());
+
+        CakeBatchRequest batchRequest = new CakeBatchRequest(List.of(
+                CakeBatchOperation.builder().type(CakeBatchOperation.Type.CREATE).title("CHOCOLATE CAKE").build(),
+                CakeBatchOperation.builder().type(CakeBatchOperation.Type.UPDATE).id(2L).title("Chocolate Cake").build()));
+
+        // ACT
+        CakeBatchResponse batchResponse = cakeService.applyBatch(batchRequest);
+
+        // ASSERT
+        assertEquals(CakeBatchResult.Status.CONFLICT, batchResponse.getResults().get(0).getStatus());
+        assertEquals(CakeBatchResult.Status.CONFLICT, batchResponse.getResults().get(1).getStatus());
+        verify(cakeRepository).saveAll(List.of());
+        verify(revisionService, never()).next();
+    }
+
+    @Test
+    void applyBatch_ShouldRejectBatch_WhenTooLarge() {
+        // ARRANGE
+        when(cakeStore.isPrimaryDatabase()).thenReturn(true);
+        List<CakeBatchOperation> operations = new ArrayList<>();
+        for (int i = 0; i <= CakeService.MAX_BATCH_SIZE; i++) {
+            operations.add(CakeBatchOperation.builder().type(CakeBatchOperation.Type.CREATE).title("Cake " + i).build());
+        }
+
+        // ACT & ASSERT
+        assertThrows(CakeBatchTooLargeException.class, () -> cakeService.applyBatch(new CakeBatchRequest(operations)));
+    }
+
+    @Test
+    void applyBatch_ShouldBeRejected_WhenCakesAreNotInThePrimaryDatabase() {
+        // ARRANGE
+        when(cakeStore.isPrimaryDatabase()).thenReturn(false);
+        CakeBatchRequest batchRequest = new CakeBatchRequest(List.of(
+                CakeBatchOperation.builder().type(CakeBatchOperation.Type.DELETE).id(1L).build()));
+
+        // ACT & ASSERT
+        assertThrows(CakeOperationNotSupportedException.class, () -> cakeService.applyBatch(batchRequest));
+        verify(cakeRepository, never()).findAllById(any());
+    }
+}
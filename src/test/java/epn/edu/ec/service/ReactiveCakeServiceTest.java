@@ -0,0 +1,135 @@
+package epn.edu.ec.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import epn.edu.ec.event.CakeChangedEvent;
+import epn.edu.ec.exception.CakeNotFoundException;
+import epn.edu.ec.exception.CakeTitleConflictException;
+import epn.edu.ec.model.cake.CakeResponse;
+import epn.edu.ec.model.cake.CakesResponse;
+import epn.edu.ec.model.cake.CreateCakeRequest;
+import epn.edu.ec.model.cake.UpdateCakeRequest;
+import epn.edu.ec.repository.ReactiveCakeRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+@ExtendWith(MockitoExtension.class)
+class ReactiveCakeServiceTest {
+
+    @Mock
+    private ReactiveCakeRepository cakeRepository;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    private final CacheManager cacheManager = new ConcurrentMapCacheManager(CakeService.CAKE_CACHE);
+
+    private ReactiveCakeService cakeService;
+
+    private final CakeResponse cakeA = new CakeResponse(1L, "Chocolate Cake", "Delicious chocolate cake");
+    private final CakeResponse cakeB = new CakeResponse(2L, "Vanilla Cake", "Tasty vanilla cake");
+
+    @BeforeEach
+    void setUp() {
+        cakeService = new ReactiveCakeService(cakeRepository, eventPublisher, cacheManager, new SimpleMeterRegistry());
+    }
+
+    @Test
+    void getCakes_ShouldReturnFirstPage_WithCursor_WhenMoreCakesExist() {
+        // ARRANGE
+        when(cakeRepository.findFirstPage(2)).thenReturn(Flux.just(cakeA, cakeB));
+
+        // ACT
+        CakesResponse cakesResponse = cakeService.getCakes(1, null).block();
+
+        // ASSERT
+        assertEquals(1, cakesResponse.getCakes().size());
+        assertEquals(new CakeCursor("Chocolate Cake", 1L).encode(), cakesResponse.getNextCursor());
+    }
+
+    @Test
+    void getCakeById_ShouldThrowException_WhenCakeDoesNotExist() {
+        // ARRANGE
+        when(cakeRepository.findById(999L)).thenReturn(Mono.empty());
+
+        // ACT & ASSERT
+        assertThrows(CakeNotFoundException.class, () -> cakeService.getCakeById(999L).block());
+    }
+
+    @Test
+    void createCake_ShouldPublishCreatedEvent() {
+        // ARRANGE
+        when(cakeRepository.insert("Chocolate Cake", "Delicious chocolate cake"))
+                .thenReturn(Mono.just(new ReactiveCakeRepository.Write(4L, cakeA)));
+
+        // ACT
+        CakeResponse cakeResponse = cakeService.createCake(CreateCakeRequest.builder()
+                .title("Chocolate Cake")
+                .description("Delicious chocolate cake")
+                .build()).block();
+
+        // ASSERT
+        assertEquals(1L, cakeResponse.getId());
+        verify(eventPublisher).publishEvent(new CakeChangedEvent(CakeChangedEvent.Type.CREATED, 1L, cakeA, 4L));
+    }
+
+    @Test
+    void createCake_ShouldThrowConflict_WhenTitleAlreadyExists() {
+        // ARRANGE
+        when(cakeRepository.insert(any(), any()))
+                .thenReturn(Mono.error(new DataIntegrityViolationException("uk_cakes_title_key")));
+        CreateCakeRequest createCakeRequest = CreateCakeRequest.builder().title("chocolate cake").build();
+
+        // ACT & ASSERT
+        assertThrows(CakeTitleConflictException.class, () -> cakeService.createCake(createCakeRequest).block());
+        verify(eventPublisher, never()).publishEvent(any());
+    }
+
+    @Test
+    void updateCake_ShouldEvictCachedCake_AndPublishUpdatedEvent() {
+        // ARRANGE
+        Cache cache = cacheManager.getCache(CakeService.CAKE_CACHE);
+        cache.put(1L, cakeA);
+        when(cakeRepository.update(1L, "Dark Chocolate Cake", "Darker")).thenReturn(Mono.just(
+                new ReactiveCakeRepository.Write(5L, new CakeResponse(1L, "Dark Chocolate Cake", "Darker", 1L))));
+        UpdateCakeRequest updateRequest = new UpdateCakeRequest();
+        updateRequest.setTitle("Dark Chocolate Cake");
+        updateRequest.setDescription("Darker");
+
+        // ACT
+        cakeService.updateCake(1L, updateRequest).block();
+
+        // ASSERT
+        assertNull(cache.get(1L));
+        verify(eventPublisher).publishEvent(new CakeChangedEvent(CakeChangedEvent.Type.UPDATED, 1L,
+                new CakeResponse(1L, "Dark Chocolate Cake", "Darker", 1L), 5L));
+    }
+
+    @Test
+    void deleteCake_ShouldThrowException_WhenCakeDoesNotExist() {
+        // ARRANGE
+        when(cakeRepository.deleteById(999L)).thenReturn(Mono.empty());
+
+        // ACT & ASSERT
+        assertThrows(CakeNotFoundException.class, () -> cakeService.deleteCake(999L).block());
+        verify(eventPublisher, never()).publishEvent(any());
+    }
+}
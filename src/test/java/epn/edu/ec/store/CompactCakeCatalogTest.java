@@ -0,0 +1,205 @@
+package epn.edu.ec.store;
+
+import static java.util.stream.Collectors.toList;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import epn.edu.ec.model.cake.CakeQuery;
+import epn.edu.ec.model.cake.CakeResponse;
+
+class CompactCakeCatalogTest {
+
+    private CompactCakeCatalog catalog;
+
+    @BeforeEach
+    void setUp() {
+        catalog = new CompactCakeCatalog(false);
+        catalog.load(List.of(
+                new CakeResponse(3L, "Lemon cheesecake", "A cheesecake made of lemon", 0L),
+                new CakeResponse(1L, "Carrot cake", "Bugs bunny's favourite", 0L),
+                new CakeResponse(2L, "Banana cake", "Donkey kong's favourite", 0L),
+                new CakeResponse(4L, null, "A cake without a title", null)), 10);
+    }
+
+    @Test
+    void findById_ShouldReturnStoredCake() {
+        // ACT
+        CakeResponse cake = catalog.findById(1L).orElseThrow();
+
+        // ASSERT
+        assertEquals("Carrot cake", cake.getTitle());
+        assertEquals("Bugs bunny's favourite", cake.getDescription());
+        assertEquals(0L, cake.getVersion());
+        assertNull(catalog.findById(4L).orElseThrow().getVersion());
+        assertTrue(catalog.findById(99L).isEmpty());
+    }
+
+    @Test
+    void findByTitleKey_ShouldMatchNormalizedTitle() {
+        // ACT & ASSERT
+        assertEquals(3L, catalog.findByTitleKey("lemon cheesecake").orElseThrow().getId());
+        assertTrue(catalog.findByTitleKey("Lemon cheesecake").isEmpty());
+        assertTrue(catalog.findByTitleKey(null).isEmpty());
+    }
+
+    @Test
+    void findAll_ShouldOrderByTitleWithNullTitlesFirst() {
+        // ACT & ASSERT
+        assertEquals(List.of(4L, 2L, 1L, 3L), ids(catalog.findAll()));
+    }
+
+    @Test
+    void findFirstMatching_ShouldKeepOnlyTheFirstMatchesInTheGivenOrder() {
+        // ARRANGE
+        Comparator<CakeResponse> descendingDescription = CakeQuery.builder()
+                .sort(CakeQuery.parseSort(List.of("-description")))
+                .build()
+                .comparator();
+
+        // ACT & ASSERT
+        assertEquals(List.of(2L, 1L, 3L), ids(catalog.findFirstMatching(cake -> true, descendingDescription, 3)));
+        assertEquals(List.of(2L, 3L, 4L), ids(catalog.findFirstMatching(
+                cake -> !cake.getDescription().startsWith("Bugs"), descendingDescription, 10)));
+        assertEquals(List.of(), ids(catalog.findFirstMatching(cake -> true, descendingDescription, 0)));
+    }
+
+    @Test
+    void findPageAfter_ShouldContinueAfterTitleAndId() {
+        // ACT & ASSERT
+        assertEquals(List.of(4L, 2L), ids(catalog.findFirstPage(2)));
+        assertEquals(List.of(1L, 3L), ids(catalog.findPageAfter("Banana cake", 2L, 2)));
+        assertEquals(List.of(3L), ids(catalog.findPageAfter("Carrot cake", 1L, 10)));
+        assertEquals(List.of(), ids(catalog.findPageAfter("Lemon cheesecake", 3L, 10)));
+        assertEquals(List.of(2L, 1L), ids(catalog.findPageAfter(null, 4L, 2)));
+    }
+
+    @Test
+    void put_ShouldReplaceCakeAndKeepTitleOrder() {
+        // ACT
+        catalog.put(new CakeResponse(2L, "Walnut cake", "Now with walnuts", 1L), 11);
+        catalog.put(new CakeResponse(5L, "Apple pie", "Not quite a cake", 0L), 12);
+
+        // ASSERT
+        assertEquals(List.of(4L, 5L, 1L, 3L, 2L), ids(catalog.findAll()));
+        assertEquals(5, catalog.size());
+        assertTrue(catalog.findByTitleKey("banana cake").isEmpty());
+        assertEquals(2L, catalog.findByTitleKey("walnut cake").orElseThrow().getId());
+    }
+
+    @Test
+    void put_ShouldIgnoreUpdate_WhenOlderThanAppliedRevision() {
+        // ARRANGE
+        catalog.put(new CakeResponse(1L, "Carrot cake", "Second version", 2L), 12);
+
+        // ACT
+        catalog.put(new CakeResponse(1L, "Carrot cake", "First version", 1L), 11);
+
+        // ASSERT
+        CakeResponse cake = catalog.findById(1L).orElseThrow();
+        assertEquals("Second version", cake.getDescription());
+        assertEquals(2L, cake.getVersion());
+    }
+
+    @Test
+    void put_ShouldIgnoreChanges_UpToLoadedRevision() {
+        // ACT
+        catalog.put(new CakeResponse(1L, "Carrot cake", "Already loaded", 1L), 10);
+        catalog.put(new CakeResponse(9L, "Apple pie", "Already deleted", 0L), 9);
+        catalog.remove(2L, 8);
+
+        // ASSERT
+        assertEquals("Bugs bunny's favourite", catalog.findById(1L).orElseThrow().getDescription());
+        assertEquals(List.of(4L, 2L, 1L, 3L), ids(catalog.findAll()));
+    }
+
+    @Test
+    void put_ShouldNotBringBackRemovedCake_WhenUpdateArrivesLate() {
+        // ARRANGE
+        catalog.remove(1L, 12);
+        catalog.remove(5L, 14);
+
+        // ACT
+        catalog.put(new CakeResponse(1L, "Carrot cake", "Updated before the delete", 1L), 11);
+        catalog.put(new CakeResponse(5L, "Apple pie", "Created before the delete", 0L), 13);
+
+        // ASSERT
+        assertTrue(catalog.findById(1L).isEmpty());
+        assertTrue(catalog.findById(5L).isEmpty());
+        assertEquals(List.of(4L, 2L, 3L), ids(catalog.findAll()));
+    }
+
+    @Test
+    void remove_ShouldDropCakeFromEveryIndex() {
+        // ACT
+        catalog.remove(1L, 11);
+        catalog.remove(99L, 12);
+
+        // ASSERT
+        assertTrue(catalog.findById(1L).isEmpty());
+        assertTrue(catalog.findByTitleKey("carrot cake").isEmpty());
+        assertEquals(List.of(4L, 2L, 3L), ids(catalog.findAll()));
+    }
+
+    @Test
+    void apply_ShouldStayConsistent_AfterManyChangesAndRebuilds() {
+        // ARRANGE
+        List<CakeResponse> cakes = new ArrayList<>();
+        for (long id = 1; id <= 3000; id++) {
+            cakes.add(new CakeResponse(id, "Cake " + id, "Description " + id, 0L));
+        }
+        catalog.load(cakes, 1);
+
+        // ACT
+        long revision = 1;
+        for (long id = 1; id <= 3000; id++) {
+            catalog.put(new CakeResponse(id, "Renamed " + id, "Description " + id, 1L), ++revision);
+            if (id % 3 == 0) {
+                catalog.remove(id, ++revision);
+            }
+        }
+        // older than the changes already applied, and those kept through the rebuilds
+        catalog.put(new CakeResponse(2L, "Stale 2", "Description 2", 1L), 2);
+        catalog.put(new CakeResponse(3L, "Stale 3", "Description 3", 1L), 4);
+
+        // ASSERT
+        assertEquals(2000, catalog.size());
+        assertEquals("Renamed 2", catalog.findById(2L).orElseThrow().getTitle());
+        assertEquals("Renamed 1", catalog.findByTitleKey("renamed 1").orElseThrow().getTitle());
+        assertTrue(catalog.findById(3L).isEmpty());
+        List<CakeResponse> all = catalog.findAll();
+        for (int i = 1; i < all.size(); i++) {
+            assertTrue(all.get(i - 1).getTitle().compareTo(all.get(i).getTitle()) < 0);
+        }
+    }
+
+    @Test
+    void readFrom_ShouldRestoreCatalogWrittenByWriteTo() throws Exception {
+        // ARRANGE
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        catalog.writeTo(new DataOutputStream(bytes));
+        CompactCakeCatalog restored = new CompactCakeCatalog(true);
+
+        // ACT
+        restored.readFrom(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())), 10);
+
+        // ASSERT
+        assertEquals(catalog.findAll(), restored.findAll());
+        assertEquals(3L, restored.findByTitleKey("lemon cheesecake").orElseThrow().getId());
+    }
+
+    private static List<Long> ids(List<CakeResponse> cakes) {
+        return cakes.stream().map(CakeResponse::getId).collect(toList());
+    }
+}
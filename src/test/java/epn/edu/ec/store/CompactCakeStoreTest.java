@@ -0,0 +1,156 @@
+package epn.edu.ec.store;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import epn.edu.ec.event.CakeCatalogPopulatedEvent;
+import epn.edu.ec.event.CakeChangedEvent;
+import epn.edu.ec.model.cake.CakeResponse;
+import epn.edu.ec.repository.CakeRepository;
+import epn.edu.ec.repository.CatalogMetadataRepository;
+import epn.edu.ec.repository.model.CatalogMetadata;
+import epn.edu.ec.repository.model.CatalogRevision;
+import epn.edu.ec.service.CatalogRevisionService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@ExtendWith(MockitoExtension.class)
+class CompactCakeStoreTest {
+
+    @Mock
+    private CakeRepository cakeRepository;
+
+    @Mock
+    private CatalogMetadataRepository catalogMetadataRepository;
+
+    @Mock
+    private CatalogRevisionService revisionService;
+
+    @TempDir
+    private Path tempDir;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @BeforeEach
+    void setUp() {
+        when(cakeRepository.findAllResponses()).thenReturn(List.of(
+                new CakeResponse(1L, "Carrot cake", "Bugs bunny's favourite", 0L),
+                new CakeResponse(2L, "Banana cake", "Donkey kong's favourite", 0L)));
+        when(revisionService.current()).thenReturn(new CatalogRevision(CatalogRevision.CATALOG, 7, 0));
+    }
+
+    @Test
+    void onCakeChanged_ShouldApplyCommittedChanges() {
+        // ARRANGE
+        CompactCakeStore store = store("");
+        store.onCatalogPopulated(new CakeCatalogPopulatedEvent(2));
+
+        // ACT
+        store.onCakeChanged(new CakeChangedEvent(CakeChangedEvent.Type.CREATED, 3L,
+                new CakeResponse(3L, "Apple pie", "Not quite a cake", 0L), 8));
+        store.onCakeChanged(new CakeChangedEvent(CakeChangedEvent.Type.DELETED, 1L, null, 9));
+
+        // ASSERT
+        assertEquals(List.of(3L, 2L), store.findAll().stream().map(CakeResponse::getId).toList());
+        assertTrue(store.findById(1L).isEmpty());
+        assertEquals(2, meterRegistry.get(CompactCakeStore.CAKES_METRIC).gauge().value());
+    }
+
+    @Test
+    void onCatalogPopulated_ShouldApplyChangesCommittedWhileLoading() {
+        // ARRANGE
+        CompactCakeStore store = store("");
+        when(cakeRepository.findAllResponses()).thenAnswer(invocation -> {
+            // committed before the catalog revision was read, so already in the cakes read
+            store.onCakeChanged(new CakeChangedEvent(CakeChangedEvent.Type.UPDATED, 1L,
+                    new CakeResponse(1L, "Carrot cake", "Older than the read", 0L), 7));
+            // committed after it
+            store.onCakeChanged(new CakeChangedEvent(CakeChangedEvent.Type.UPDATED, 2L,
+                    new CakeResponse(2L, "Banana bread", "Renamed while loading", 1L), 8));
+            return List.of(
+                    new CakeResponse(1L, "Carrot cake", "Bugs bunny's favourite", 0L),
+                    new CakeResponse(2L, "Banana cake", "Donkey kong's favourite", 0L));
+        });
+
+        // ACT
+        store.onCatalogPopulated(new CakeCatalogPopulatedEvent(2));
+
+        // ASSERT
+        assertEquals(new CakeResponse(2L, "Banana bread", "Renamed while loading", 1L), store.findById(2L).orElseThrow());
+        assertEquals("Bugs bunny's favourite", store.findById(1L).orElseThrow().getDescription());
+        assertEquals(List.of(2L, 1L), store.findAll().stream().map(CakeResponse::getId).toList());
+    }
+
+    @Test
+    void onCatalogPopulated_ShouldRestoreSnapshot_WhenDatabaseIsAtTheSameRevision() throws IOException {
+        // ARRANGE
+        String snapshotFile = tempDir.resolve("cakes.snapshot").toString();
+        when(catalogMetadataRepository.findById(CompactCakeStore.EPOCH_METADATA)).thenReturn(Optional.empty());
+        when(catalogMetadataRepository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
+        CompactCakeStore store = store(snapshotFile);
+        store.onCatalogPopulated(new CakeCatalogPopulatedEvent(2));
+        store.writeSnapshot();
+
+        CompactCakeStore restarted = store(snapshotFile);
+        when(catalogMetadataRepository.findById(CompactCakeStore.EPOCH_METADATA))
+                .thenReturn(Optional.of(new CatalogMetadata(CompactCakeStore.EPOCH_METADATA, epochOf(snapshotFile))));
+
+        // ACT
+        restarted.onCatalogPopulated(new CakeCatalogPopulatedEvent(2));
+
+        // ASSERT
+        assertEquals(store.findAll(), restarted.findAll());
+        verify(cakeRepository, times(1)).findAllResponses();
+    }
+
+    @Test
+    void onCatalogPopulated_ShouldLoadFromDatabase_WhenSnapshotIsStale() {
+        // ARRANGE
+        String snapshotFile = tempDir.resolve("cakes.snapshot").toString();
+        when(catalogMetadataRepository.findById(CompactCakeStore.EPOCH_METADATA))
+                .thenReturn(Optional.of(new CatalogMetadata(CompactCakeStore.EPOCH_METADATA, "epoch")));
+        when(revisionService.current()).thenReturn(
+                new CatalogRevision(CatalogRevision.CATALOG, 7, 0),
+                new CatalogRevision(CatalogRevision.CATALOG, 7, 0),
+                new CatalogRevision(CatalogRevision.CATALOG, 8, 0));
+        CompactCakeStore store = store(snapshotFile);
+        store.onCatalogPopulated(new CakeCatalogPopulatedEvent(2));
+        store.writeSnapshot();
+
+        // ACT
+        store(snapshotFile).onCatalogPopulated(new CakeCatalogPopulatedEvent(2));
+
+        // ASSERT
+        verify(cakeRepository, times(2)).findAllResponses();
+        verify(catalogMetadataRepository, never()).save(any());
+    }
+
+    private CompactCakeStore store(String snapshotFile) {
+        return new CompactCakeStore(cakeRepository, catalogMetadataRepository, revisionService, false, snapshotFile,
+                meterRegistry);
+    }
+
+    private static String epochOf(String snapshotFile) throws IOException {
+        try (DataInputStream in = new DataInputStream(Files.newInputStream(Path.of(snapshotFile)))) {
+            return in.readUTF();
+        }
+    }
+}
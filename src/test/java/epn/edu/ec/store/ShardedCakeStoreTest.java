@@ -0,0 +1,238 @@
+package epn.edu.ec.store;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.task.SyncTaskExecutor;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import epn.edu.ec.model.cake.CakeQuery;
+import epn.edu.ec.model.cake.CakeResponse;
+import epn.edu.ec.repository.model.Cake;
+
+class ShardedCakeStoreTest {
+
+    private ShardedCakeStore store;
+
+    @BeforeEach
+    void setUp() {
+        // fresh in-memory shards for every test
+        store = new ShardedCakeStore(3, "jdbc:h2:mem:sharded-store-" + UUID.randomUUID() + "-%d;DB_CLOSE_DELAY=-1",
+                2, new SyncTaskExecutor(), Duration.ofSeconds(10));
+    }
+
+    @AfterEach
+    void tearDown() {
+        store.close();
+    }
+
+    @Test
+    void insertAll_ShouldSpreadCakesOverShards_AndEncodeTheShardInTheId() {
+        // ACT
+        List<CakeResponse> cakes = store.insertAll(List.of(
+                cake("Lemon cheesecake", 1L), cake("Carrot cake", 1L), cake("Banana cake", 1L)));
+
+        // ASSERT
+        assertEquals(Set.of(0, 1, 2), Set.of(ShardedCakeStore.shardNumber(cakes.get(0).getId()),
+                ShardedCakeStore.shardNumber(cakes.get(1).getId()), ShardedCakeStore.shardNumber(cakes.get(2).getId())));
+        cakes.forEach(cake -> assertEquals(cake, store.findById(cake.getId()).orElseThrow()));
+        assertEquals(3, store.count());
+        assertTrue(store.findById(cakes.get(0).getId() + 1_000 * ShardedCakeStore.MAX_SHARDS).isEmpty());
+    }
+
+    @Test
+    void findPages_ShouldMergeEveryShardInTitleOrder() {
+        // ARRANGE
+        store.insertAll(List.of(cake("Lemon cheesecake", 1L), cake("Carrot cake", 1L), cake("Banana cake", 1L),
+                cake("Apple pie", 1L), cake("Victoria sponge", 1L)));
+
+        // ACT
+        List<CakeResponse> firstPage = store.findFirstPage(2);
+        CakeResponse last = firstPage.get(1);
+        List<CakeResponse> nextPage = store.findPageAfter(last.getTitle(), last.getId(), 2);
+
+        // ASSERT
+        assertEquals(List.of("Apple pie", "Banana cake"), firstPage.stream().map(CakeResponse::getTitle).toList());
+        assertEquals(List.of("Carrot cake", "Lemon cheesecake"), nextPage.stream().map(CakeResponse::getTitle).toList());
+        assertEquals(List.of("Apple pie", "Banana cake", "Carrot cake", "Lemon cheesecake", "Victoria sponge"),
+                store.findAll().stream().map(CakeResponse::getTitle).toList());
+    }
+
+    @Test
+    void findPageAfter_ShouldPageThroughCakesWithoutTitleFirst() {
+        // ARRANGE
+        List<CakeResponse> untitled = store.insertAll(List.of(cake(null, 1L), cake(null, 1L)));
+        store.insertAll(List.of(cake("Banana cake", 1L)));
+        long firstUntitledId = Math.min(untitled.get(0).getId(), untitled.get(1).getId());
+
+        // ACT
+        List<CakeResponse> afterFirstUntitled = store.findPageAfter(null, firstUntitledId, 10);
+        List<CakeResponse> filteredAfterFirstUntitled = store.find(CakeQuery.builder()
+                .titleContains("cake")
+                .afterId(firstUntitledId)
+                .build(), 10);
+
+        // ASSERT
+        assertEquals(2, afterFirstUntitled.size());
+        assertEquals(null, afterFirstUntitled.get(0).getTitle());
+        assertEquals("Banana cake", afterFirstUntitled.get(1).getTitle());
+        assertEquals(List.of("Banana cake"), filteredAfterFirstUntitled.stream().map(CakeResponse::getTitle).toList());
+    }
+
+    @Test
+    void find_ShouldFilterOnEveryShard_AndMergeInTheOrderOfTheQuery() {
+        // ARRANGE
+        store.insertAll(List.of(cake("Lemon cheesecake", 1L), cake("Carrot cake", 1L), cake("Banana cake", 1L),
+                cake("Apple pie", 1L), cake("Chocolate 100% cake", 1L)));
+
+        // ACT
+        List<CakeResponse> titleMatches = store.find(CakeQuery.builder().titleContains("CAKE").build(), 3);
+        List<CakeResponse> descending = store.find(CakeQuery.builder()
+                .descriptionContains("cake desc")
+                .sort(CakeQuery.parseSort(List.of("-title")))
+                .build(), 10);
+        List<CakeResponse> prefixMatches = store.find(CakeQuery.builder().titleStartsWith("chocolate 100%").build(), 10);
+
+        // ASSERT
+        assertEquals(List.of("Banana cake", "Carrot cake", "Chocolate 100% cake"),
+                titleMatches.stream().map(CakeResponse::getTitle).toList());
+        assertEquals(List.of("Lemon cheesecake", "Chocolate 100% cake", "Carrot cake", "Banana cake"),
+                descending.stream().map(CakeResponse::getTitle).toList());
+        assertEquals(List.of("Chocolate 100% cake"), prefixMatches.stream().map(CakeResponse::getTitle).toList());
+    }
+
+    @Test
+    void insertAll_ShouldRejectTitleTakenOnAnotherShard() {
+        // ARRANGE
+        store.insertAll(List.of(cake("Carrot cake", 1L)));
+
+        // ACT & ASSERT
+        assertThrows(DuplicateKeyException.class, () -> store.insertAll(List.of(cake(" CARROT cake", 2L))));
+        assertEquals(List.of("carrot cake"), store.findExistingTitleKeys(Set.of("carrot cake", "banana cake")));
+        assertEquals(1, store.count());
+    }
+
+    @Test
+    void update_ShouldApplyOnlyAtExpectedVersion_AndKeepTitlesUnique() {
+        // ARRANGE
+        List<CakeResponse> cakes = store.insertAll(List.of(cake("Carrot cake", 1L), cake("Banana cake", 1L)));
+        long carrotCakeId = cakes.get(0).getId();
+
+        // ACT & ASSERT
+        assertEquals(Optional.of(1L), store.update(carrotCakeId, 0L, "Carrot cake", "With walnuts", 2L));
+        assertTrue(store.update(carrotCakeId, 0L, "Carrot cake", "Stale", 3L).isEmpty());
+        assertThrows(DuplicateKeyException.class,
+                () -> store.update(carrotCakeId, null, "banana CAKE", "Renamed", 4L));
+
+        CakeResponse carrotCake = store.findByTitleKey("carrot cake").orElseThrow();
+        assertEquals("With walnuts", carrotCake.getDescription());
+        assertEquals(1L, carrotCake.getVersion());
+        assertEquals(List.of(carrotCakeId), store.findChangedSince(1L).stream().map(CakeResponse::getId).toList());
+    }
+
+    @Test
+    void findChangedSince_ShouldMergeEveryShardInRevisionOrder() {
+        // ARRANGE
+        List<Long> idsByDescendingShard = store.insertAll(List.of(
+                        cake("Lemon cheesecake", 1L), cake("Carrot cake", 1L), cake("Banana cake", 1L)))
+                .stream()
+                .map(CakeResponse::getId)
+                .sorted(Comparator.comparingInt(ShardedCakeStore::shardNumber).reversed())
+                .toList();
+
+        // ACT
+        // the last shard changes first, so shard order and revision order disagree
+        long revision = 2;
+        for (long id : idsByDescendingShard) {
+            store.update(id, null, store.findById(id).orElseThrow().getTitle(), "Changed", revision++);
+        }
+
+        // ASSERT
+        assertEquals(idsByDescendingShard, store.findChangedSince(1L).stream().map(CakeResponse::getId).toList());
+        assertEquals(idsByDescendingShard.subList(1, 3),
+                store.findChangedSince(2L).stream().map(CakeResponse::getId).toList());
+    }
+
+    @Test
+    void delete_ShouldRemoveTheCakeFromItsShard() {
+        // ARRANGE
+        long cakeId = store.insertAll(List.of(cake("Carrot cake", 1L))).get(0).getId();
+
+        // ACT & ASSERT
+        assertTrue(store.delete(cakeId));
+        assertFalse(store.delete(cakeId));
+        assertFalse(store.exists(cakeId));
+        assertEquals(0, store.count());
+    }
+
+    @Test
+    void insertAll_ShouldDeleteCakesOfOtherShards_WhenOneShardFails() {
+        // ARRANGE
+        Cake tooLong = cake("Carrot cake " + "very ".repeat(60), 1L);
+
+        // ACT & ASSERT
+        assertThrows(DataIntegrityViolationException.class,
+                () -> store.insertAll(List.of(cake("Lemon cheesecake", 1L), cake("Banana cake", 1L), tooLong)));
+        assertEquals(0, store.count());
+    }
+
+    @Test
+    void writes_ShouldBeUndone_WhenTheCatalogTransactionRollsBack() {
+        // ARRANGE
+        List<CakeResponse> cakes = store.insertAll(List.of(cake("Carrot cake", 1L), cake("Banana cake", 1L)));
+        long carrotCakeId = cakes.get(0).getId();
+        long bananaCakeId = cakes.get(1).getId();
+
+        // ACT
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            store.insertAll(List.of(cake("Lemon cheesecake", 2L)));
+            store.update(carrotCakeId, 0L, "Walnut cake", "Renamed", 2L);
+            store.delete(bananaCakeId);
+            TransactionSynchronizationManager.getSynchronizations()
+                    .forEach(synchronization -> synchronization.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        // ASSERT
+        assertEquals(Set.copyOf(cakes), Set.copyOf(store.findAll()));
+        assertTrue(store.findByTitleKey("walnut cake").isEmpty());
+        assertTrue(store.findChangedSince(1L).isEmpty());
+    }
+
+    @Test
+    void findAll_ShouldGiveUp_WhenAShardDoesNotAnswerInTime() {
+        // ARRANGE
+        ShardedCakeStore stalledStore = new ShardedCakeStore(2,
+                "jdbc:h2:mem:sharded-store-" + UUID.randomUUID() + "-%d;DB_CLOSE_DELAY=-1", 2, task -> {
+                }, Duration.ofMillis(50));
+
+        // ACT & ASSERT
+        try {
+            assertThrows(QueryTimeoutException.class, stalledStore::findAll);
+        } finally {
+            stalledStore.close();
+        }
+    }
+
+    private static Cake cake(String title, long revision) {
+        return Cake.builder().title(title).description(title + " description").revision(revision).build();
+    }
+}